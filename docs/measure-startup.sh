@@ -0,0 +1,55 @@
+#!/usr/bin/env bash
+# Startup time of the four variants in docs/startup.md: the median of the "Started ShortnerApplication"
+# figures over 'runs' starts, the first start of each variant discarded.
+#
+# Usage, from the project root after ./mvnw -Pprod package:
+#   docs/measure-startup.sh [runs]    (default 6)
+# The DATABASE_*, JWT_SECRET_KEY, VISITOR_HASH_SECRET and FRONTEND_URL variables must point at a database
+# the prod profile has already migrated, so that no run measures the first migration.
+set -euo pipefail
+
+runs=${1:-6}
+port=${PORT:-8091}
+java=${JAVA_HOME:+$JAVA_HOME/bin/}java
+jar=shortner-0.0.1-SNAPSHOT.jar
+root=$(pwd)
+logs=$(mktemp -d)
+
+# measure <label> <directory> <java arguments...>
+measure() {
+    local label=$1 dir=$2
+    shift 2
+    local started=() process=()
+    for i in $(seq 1 "$runs"); do
+        local log=$logs/$label-$i.log
+        (cd "$dir" && exec "$java" "$@" -jar "$jar" --server.port="$port") > "$log" 2>&1 &
+        local pid=$!
+        until grep -q "Started ShortnerApplication\|APPLICATION FAILED TO START\|Application run failed" "$log"; do
+            sleep 0.1
+        done
+        kill "$pid"
+        wait "$pid" 2> /dev/null || true
+        local line
+        if ! line=$(grep -o "Started ShortnerApplication in [0-9.]* seconds (process running for [0-9.]*)" "$log"); then
+            echo "$label: start $i failed, see $log" >&2
+            exit 1
+        fi
+        if [ "$i" -gt 1 ]; then
+            started+=("$(echo "$line" | awk '{print $4}')")
+            process+=("$(echo "$line" | awk '{print $9}' | tr -d ')')")
+        fi
+    done
+    printf '| %s | %s | %s |\n' "$label" "$(median "${started[@]}")" "$(median "${process[@]}")"
+}
+
+median() {
+    printf '%s\n' "$@" | sort -n | awk '{v[NR] = $1} END {print (NR % 2) ? v[(NR + 1) / 2] : (v[NR / 2] + v[NR / 2 + 1]) / 2}'
+}
+
+echo "| Variant | Context ready (s) | Including JVM start (s) |"
+echo "|---|---|---|"
+measure "ddl-auto=update" "$root/target"
+measure "prod profile" "$root/target" -Dspring.profiles.active=prod
+measure "+ AOT" "$root/target/application" -Dspring.profiles.active=prod -Dspring.aot.enabled=true
+measure "+ CDS" "$root/target/application" -XX:SharedArchiveFile=application.jsa -Dspring.profiles.active=prod \
+    -Dspring.aot.enabled=true
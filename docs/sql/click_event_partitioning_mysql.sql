@@ -0,0 +1,28 @@
+-- One-time conversion of click_event into a table partitioned by month on click_date (MySQL 8).
+-- ALTER TABLE rebuilds the table, so run it in a maintenance window (or after stopping the application).
+-- Afterwards set shortner.clicks.partitioning.enabled=true; the application then keeps
+-- upcoming partitions created and applies the retention policy.
+--
+-- MySQL limitations to be aware of:
+-- - partitioned InnoDB tables can't have foreign keys, so the one to url_mapping is dropped;
+-- - every unique key has to contain the partition column, so the primary key becomes (id, click_date).
+
+-- 1. Drop the foreign key Hibernate generated (its name is random, so look it up first)
+select constraint_name from information_schema.referential_constraints
+ where constraint_schema = database() and table_name = 'click_event';
+-- alter table click_event drop foreign key <constraint_name>;
+
+-- 2. Primary key including the partition column (click_date must be NOT NULL for that)
+alter table click_event
+    modify click_date datetime(6) not null,
+    drop primary key,
+    add primary key (id, click_date);
+
+-- 3. Monthly partitions. List one partition per month from the first click up to three months ahead
+--    (adjust the dates below to your data), plus 'pmax', which the application splits new months off.
+alter table click_event partition by range columns (click_date) (
+    partition p202601 values less than ('2026-02-01'),
+    partition p202602 values less than ('2026-03-01'),
+    partition p202603 values less than ('2026-04-01'),
+    partition pmax values less than (maxvalue)
+);
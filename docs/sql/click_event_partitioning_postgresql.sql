@@ -0,0 +1,45 @@
+-- One-time conversion of click_event into a table partitioned by month on click_date (PostgreSQL 12+).
+-- Copies every row, so run it in a maintenance window (or after stopping the application).
+-- Afterwards set shortner.clicks.partitioning.enabled=true; the application then keeps
+-- upcoming partitions created and applies the retention policy.
+
+begin;
+
+alter table click_event rename to click_event_unpartitioned;
+
+-- A partitioned table's primary key has to contain the partition key
+create table click_event (
+    id             bigint generated by default as identity,
+    click_date     timestamp(6),
+    url_mapping_id bigint references url_mapping (id),
+    visitor_hash   bigint,
+    primary key (id, click_date)
+) partition by range (click_date);
+
+-- One partition per month from the first click to three months ahead.
+-- There's deliberately no DEFAULT partition: it would have to be scanned whenever a new month is attached.
+do $$
+declare
+    month date := coalesce(date_trunc('month', (select min(click_date) from click_event_unpartitioned)),
+                           date_trunc('month', now()));
+begin
+    while month <= date_trunc('month', now()) + interval '3 months' loop
+        execute format('create table click_event_p%s partition of click_event for values from (%L) to (%L)',
+                       to_char(month, 'YYYYMM'), month, month + interval '1 month');
+        month := month + interval '1 month';
+    end loop;
+end $$;
+
+insert into click_event (id, click_date, url_mapping_id, visitor_hash)
+select id, click_date, url_mapping_id, visitor_hash from click_event_unpartitioned;
+
+select setval(pg_get_serial_sequence('click_event', 'id'), coalesce((select max(id) from click_event), 0) + 1, false);
+
+drop table click_event_unpartitioned;
+
+-- Only now: the old table's indexes had these names until it was dropped, and building them after
+-- the copy is faster than maintaining them during it
+create index idx_click_event_url_mapping_date on click_event (url_mapping_id, click_date);
+create index idx_click_event_date on click_event (click_date);
+
+commit;
@@ -0,0 +1,19 @@
+-- Test data for the startup measurements in docs/startup.md, on a database migrated by the prod profile:
+-- 1,000 users, 100,000 links and 1,000,000 clicks spread over the last 365 days.
+-- The rollup backfill is marked done so that no run starts it.
+
+insert into users (email, password, role, username)
+select 'user' || i || '@example.com', 'not-a-password-hash', 'ROLE_USER', 'user' || i
+from generate_series(1, 1000) i;
+
+insert into url_mapping (click_count, created_date, user_id, original_url, short_url)
+select 10, localtimestamp - (i % 365) * interval '1 day', 1 + i % 1000, 'https://example.com/page/' || i, 'seed' || i
+from generate_series(1, 100000) i;
+
+insert into click_event (click_date, url_mapping_id, visitor_hash)
+select localtimestamp - (i % 365) * interval '1 day', 1 + i % 100000, i % 50000
+from generate_series(1, 1000000) i;
+
+insert into rollup_backfill_state (name, done_through) values ('daily_click_rollup', current_date - 1);
+
+analyze;
@@ -0,0 +1,63 @@
+package com.url.shortner.codegen;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cost of producing one short code (UrlMappingService.convertToShortUrl calls this once per link).
+ * The block allocator is replaced by an in-memory counter, so this measures the generator itself;
+ * in production one DB round trip is added per 'shortner.codegen.block-size' codes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShortCodeGeneratorBenchmark {
+
+    private SequenceShortCodeGenerator sequenceGenerator;
+    private RandomShortCodeGenerator randomGenerator;
+
+    @Setup
+    public void setUp() {
+        AtomicLong sequence = new AtomicLong();
+        ShortCodeBlockAllocator inMemoryAllocator = new ShortCodeBlockAllocator(null) {
+            @Override
+            public long leaseBlock(String sequenceName, int blockSize) {
+                return sequence.getAndAdd(blockSize);
+            }
+        };
+        sequenceGenerator = new SequenceShortCodeGenerator(inMemoryAllocator, 1000);
+        randomGenerator = new RandomShortCodeGenerator();
+    }
+
+    @Benchmark
+    public String sequence() {
+        return sequenceGenerator.nextCode();
+    }
+
+    // Many request threads shortening at once all go through the generator's lock
+    @Benchmark
+    @Threads(8)
+    public String sequenceContended() {
+        return sequenceGenerator.nextCode();
+    }
+
+    @Benchmark
+    public String random() {
+        return randomGenerator.nextCode();
+    }
+}
@@ -0,0 +1,65 @@
+package com.url.shortner.security.jwt;
+
+import com.url.shortner.services.UserDetailsImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token verification as done by JwtAuthenticationFilter on every authenticated API call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilsBenchmark {
+
+    private JwtUtils jwtUtils;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        byte[] secret = new byte[48]; // 384 bits -> HS384, as in production
+        new Random(42).nextBytes(secret);
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", Base64.getEncoder().encodeToString(secret));
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpiration", 3_600_000);
+        jwtUtils.init();
+
+        UserDetailsImpl user = new UserDetailsImpl(1L, "bench@example.com", "benchmark-user", "ignored",
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        token = jwtUtils.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtils.validateToken(token);
+    }
+
+    @Benchmark
+    public String getUserNameFromJwtToken() {
+        return jwtUtils.getUserNameFromJwtToken(token);
+    }
+
+    // What JwtAuthenticationFilter does per request: one verified parse, principal built from the claims
+    @Benchmark
+    public UserDetailsImpl authenticate() {
+        return jwtUtils.getUserDetailsFromClaims(jwtUtils.parseClaims(token));
+    }
+}
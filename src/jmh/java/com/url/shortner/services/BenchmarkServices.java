@@ -0,0 +1,35 @@
+package com.url.shortner.services;
+
+import com.url.shortner.analytics.ClickRollups;
+import com.url.shortner.analytics.UniqueVisitors;
+import com.url.shortner.metrics.ShortnerMetrics;
+import com.url.shortner.repository.ClickEventRepository;
+import com.url.shortner.repository.UrlMappingRepository;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+/**
+ * Builds a UrlMappingService whose collaborators are stub-only Mockito mocks.
+ * Stub-only mocks don't record invocations, so they don't grow the heap over millions of
+ * benchmark calls; collaborators a benchmark doesn't declare are injected as null.
+ */
+class BenchmarkServices {
+
+    @Mock(stubOnly = true)
+    UrlMappingRepository urlMappingRepository;
+    @Mock(stubOnly = true)
+    ClickEventRepository clickEventRepository;
+    @Mock(stubOnly = true)
+    ClickRollups clickRollups;
+    @Mock(stubOnly = true)
+    UniqueVisitors uniqueVisitors;
+    @Mock(stubOnly = true)
+    ShortnerMetrics metrics;
+    @InjectMocks
+    UrlMappingService urlMappingService;
+
+    BenchmarkServices() {
+        MockitoAnnotations.openMocks(this);
+    }
+}
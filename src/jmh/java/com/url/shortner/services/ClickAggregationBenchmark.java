@@ -0,0 +1,113 @@
+package com.url.shortner.services;
+
+import com.url.shortner.analytics.HyperLogLog;
+import com.url.shortner.dtos.ClickEventDTO;
+import com.url.shortner.models.UrlMapping;
+import com.url.shortner.models.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * The Java side of both analytics endpoints over a year: what UrlMappingService does with the
+ * per-day rows once they are read, one row per day.
+ * - rollup=true: the daily_click_rollup rows from ClickRollups, mapped to DTOs.
+ * - rollup=false: the GROUP BY projections of click_event, collected per day for /totalClicks.
+ * - visitors=true: each day of /analytics/{shortUrl} also gets its HyperLogLog estimate.
+ * Repositories return pre-built rows, so DB time is not included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClickAggregationBenchmark {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 1, 1);
+    private static final int DAYS = 365;
+    private static final int VISITORS_PER_DAY = 1000;
+
+    @Param({"true", "false"})
+    public boolean rollup;
+
+    @Param({"false", "true"})
+    public boolean visitors;
+
+    private UrlMappingService urlMappingService;
+    private User user;
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    @Setup
+    public void setUp() {
+        BenchmarkServices services = new BenchmarkServices();
+        urlMappingService = services.urlMappingService;
+
+        user = new User();
+        user.setId(1L);
+        user.setUsername("benchmark-user");
+        UrlMapping link = new UrlMapping();
+        link.setId(1L);
+        link.setShortUrl("link0");
+        link.setOriginalUrl("https://example.com/0");
+        link.setUser(user);
+
+        Random random = new Random(42);
+        Map<LocalDate, Long> clicksByDay = new TreeMap<>();
+        List<ClickEventDTO> groupedRows = new ArrayList<>(DAYS);
+        Map<LocalDate, HyperLogLog> visitorsByDay = new TreeMap<>();
+        for (int i = 0; i < DAYS; i++) {
+            LocalDate day = FIRST_DAY.plusDays(i);
+            long clicks = 1 + random.nextInt(10_000);
+            clicksByDay.put(day, clicks);
+            groupedRows.add(new ClickEventDTO(day, clicks));
+            HyperLogLog sketch = new HyperLogLog();
+            for (int v = 0; v < VISITORS_PER_DAY; v++) {
+                sketch.add(random.nextLong());
+            }
+            visitorsByDay.put(day, sketch);
+        }
+
+        start = FIRST_DAY.atStartOfDay();
+        end = FIRST_DAY.plusDays(DAYS).atStartOfDay().minusNanos(1);
+        when(services.urlMappingRepository.findByShortUrl("link0")).thenReturn(link);
+        when(services.clickRollups.isEnabled()).thenReturn(rollup);
+        when(services.clickRollups.getDailyClicks(any(), any(), any())).thenReturn(clicksByDay);
+        when(services.clickRollups.getDailyClicksByUser(any(), any(), any())).thenReturn(clicksByDay);
+        when(services.clickEventRepository.countClicksPerDay(any(), any(), any())).thenReturn(groupedRows);
+        when(services.clickEventRepository.countClicksPerDayByUser(any(), any(), any())).thenReturn(groupedRows);
+        when(services.uniqueVisitors.isEnabled()).thenReturn(visitors);
+        when(services.uniqueVisitors.getDailyVisitors(any(), any(), any())).thenReturn(visitorsByDay);
+    }
+
+    @Benchmark
+    public List<ClickEventDTO> getClickEventsByDate() {
+        return urlMappingService.getClickEventsByDate("link0", start, end);
+    }
+
+    @Benchmark
+    public Map<LocalDate, Long> getTotalClicksByUserAndDate() {
+        return urlMappingService.getTotalClicksByUserAndDate(user, FIRST_DAY, FIRST_DAY.plusDays(DAYS - 1));
+    }
+}
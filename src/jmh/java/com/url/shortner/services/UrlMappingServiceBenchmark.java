@@ -0,0 +1,55 @@
+package com.url.shortner.services;
+
+import com.url.shortner.dtos.UrlMappingDTO;
+import com.url.shortner.models.UrlMapping;
+import com.url.shortner.models.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity -> DTO conversion, done once per link on every /api/urls/myurls call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UrlMappingServiceBenchmark {
+
+    private UrlMappingService urlMappingService;
+    private UrlMapping urlMapping;
+
+    @Setup
+    public void setUp() {
+        // convertToDTO uses none of the collaborators
+        urlMappingService = new BenchmarkServices().urlMappingService;
+
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("benchmark-user");
+        urlMapping = new UrlMapping();
+        urlMapping.setId(42L);
+        urlMapping.setOriginalUrl("https://www.example.com/some/long/path?with=query&and=more");
+        urlMapping.setShortUrl("aBcD1234");
+        urlMapping.setUser(user);
+        urlMapping.setClickCount(12_345);
+        urlMapping.setCreatedDate(LocalDateTime.of(2026, 1, 1, 12, 0));
+    }
+
+    @Benchmark
+    public UrlMappingDTO convertToDTO() {
+        return urlMappingService.convertToDTO(urlMapping);
+    }
+}
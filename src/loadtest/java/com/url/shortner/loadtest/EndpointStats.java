@@ -0,0 +1,56 @@
+package com.url.shortner.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and response statuses of one operation, recorded concurrently by all workers.
+ * Latencies go into an HdrHistogram in microseconds (3 significant digits at any magnitude), so
+ * p999 and max are exact to the microsecond without keeping every sample.
+ */
+final class EndpointStats {
+
+    // Status recorded for requests that got no response (connection refused, timeout)
+    static final int NO_RESPONSE = -1;
+
+    private final Operation operation;
+    private final Recorder latencies = new Recorder(3);
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+    EndpointStats(Operation operation) {
+        this.operation = operation;
+    }
+
+    void record(int status, long latencyNanos) {
+        latencies.recordValue(Math.max(0, latencyNanos / 1_000));
+        statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+
+    Operation getOperation() {
+        return operation;
+    }
+
+    // Everything recorded since the previous call
+    Histogram takeLatencies() {
+        return latencies.getIntervalHistogram();
+    }
+
+    Map<Integer, Long> getStatuses() {
+        Map<Integer, Long> counts = new TreeMap<>();
+        statuses.forEach((status, count) -> counts.put(status, count.sum()));
+        return counts;
+    }
+
+    // Responses other than the one a successful request of this operation gets
+    long getErrors() {
+        return getStatuses().entrySet().stream()
+                .filter(entry -> entry.getKey() != operation.getExpectedStatus())
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+    }
+}
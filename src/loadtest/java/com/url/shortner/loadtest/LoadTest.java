@@ -0,0 +1,311 @@
+package com.url.shortner.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load generator for a running instance of the application (see docs/load-testing.md).
+ * 1. Seeding: logs in (registering them first if needed) 'users' users, then bulk-shortens 'links'
+ *    links spread evenly over them, all through the public API.
+ * 2. Traffic: 'concurrency' virtual-thread workers send the configured mix of redirects, single
+ *    shortens and analytics reads for 'warmup' and then 'duration'. Redirect and analytics links
+ *    are drawn from a Zipf distribution over the seeded links, so the result depends on how well
+ *    the caches keep the hot ones.
+ * 3. Report: requests, errors, throughput and p50/p99/p999/max latency per operation, measured
+ *    after the warmup only, printed and written as JSON to 'out'.
+ * With --rate the load is open-loop: requests are due at fixed intervals and their latency counts
+ * from when they were due, so a stalled server shows up as latency instead of silently lowering
+ * the request rate (coordinated omission). Without it every worker sends as fast as it can.
+ */
+public final class LoadTest {
+
+    private static final int BULK_CHUNK = 1000;
+
+    private final LoadTestOptions options;
+    private final ShortnerClient client;
+    private final Map<Operation, EndpointStats> stats = new EnumMap<>(Operation.class);
+    private final AtomicLong shortenCounter = new AtomicLong();
+
+    // Filled by seed(): the token of each user, and each link's code and owner (in Zipf rank order)
+    private String[] tokens;
+    private String[] codes;
+    private int[] owners;
+
+    private LoadTest(LoadTestOptions options) {
+        this.options = options;
+        this.client = new ShortnerClient(options.baseUrl());
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new EndpointStats(operation));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(LoadTestOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+        LoadTest loadTest = new LoadTest(options);
+        loadTest.seed();
+        long measuredNanos = loadTest.run();
+        loadTest.report(measuredNanos);
+    }
+
+    private void seed() throws Exception {
+        int users = options.users();
+        int links = options.links();
+        System.out.printf("Seeding %d users and %d links on %s%n", users, links, options.baseUrl());
+        long started = System.nanoTime();
+
+        // 1. Users: reused when they exist from an earlier run, registered otherwise.
+        //    Registration doesn't check for an existing username, so it must only be tried for new ones.
+        tokens = new String[users];
+        parallel(users, task -> {
+            String username = options.userPrefix() + "-" + task;
+            String token = client.login(username, options.password());
+            if (token == null) {
+                int status = client.register(username, options.password());
+                token = client.login(username, options.password());
+                if (token == null) {
+                    throw new IllegalStateException("Could not register " + username + " (" + status + ") or log in as it");
+                }
+            }
+            tokens[task] = token;
+        });
+
+        // 2. Links: user u owns the links [u * links / users, (u + 1) * links / users)
+        codes = new String[links];
+        owners = new int[links];
+        parallel(users, user -> {
+            int from = (int) ((long) user * links / users);
+            int to = (int) ((long) (user + 1) * links / users);
+            for (int chunk = from; chunk < to; chunk += BULK_CHUNK) {
+                List<String> urls = new ArrayList<>();
+                for (int link = chunk; link < Math.min(to, chunk + BULK_CHUNK); link++) {
+                    urls.add("https://example.com/loadtest/" + options.seed() + "/" + link);
+                }
+                List<String> chunkCodes = client.bulkShorten(tokens[user], urls);
+                for (int i = 0; i < chunkCodes.size(); i++) {
+                    codes[chunk + i] = chunkCodes.get(i);
+                    owners[chunk + i] = user;
+                }
+            }
+        });
+
+        // 3. Hot links are spread over all users instead of all belonging to the first one
+        SplittableRandom random = new SplittableRandom(options.seed());
+        for (int i = links - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            String code = codes[i];
+            codes[i] = codes[j];
+            codes[j] = code;
+            int owner = owners[i];
+            owners[i] = owners[j];
+            owners[j] = owner;
+        }
+        System.out.printf("Seeded in %d ms%n", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    // Runs the warmup and the measured phase; returns the length of the measured phase in nanos
+    private long run() throws Exception {
+        ZipfDistribution zipf = new ZipfDistribution(codes.length, options.zipfExponent());
+        System.out.printf("Zipf exponent %.2f: the top 1%% of links get %.1f%% of the redirects%n",
+                options.zipfExponent(), 100 * zipf.topShare(Math.max(1, codes.length / 100)));
+        System.out.printf("Warmup %ds, then measuring %ds with %d workers%s%n",
+                options.warmup().toSeconds(), options.duration().toSeconds(), options.concurrency(),
+                options.rate() > 0 ? " at " + options.rate() + " requests/s" : "");
+
+        Operation[] weighted = weightedOperations();
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup().toNanos();
+        long end = measureFrom + options.duration().toNanos();
+        AtomicLong tickets = new AtomicLong();
+        double intervalNanos = options.rate() > 0 ? 1e9 / options.rate() : 0;
+
+        parallel(options.concurrency(), worker -> {
+            SplittableRandom random = new SplittableRandom(options.seed() * 31 + worker);
+            while (true) {
+                // Open loop: the request is due at its slot in the schedule, whether or not the
+                // previous ones have been answered. Closed loop: it's due now.
+                long due;
+                if (intervalNanos > 0) {
+                    due = start + (long) (tickets.getAndIncrement() * intervalNanos);
+                    long wait = due - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                } else {
+                    due = System.nanoTime();
+                }
+                if (due >= end) {
+                    return;
+                }
+                Operation operation = weighted[random.nextInt(weighted.length)];
+                int status;
+                try {
+                    status = execute(operation, random, zipf);
+                } catch (IOException e) {
+                    status = EndpointStats.NO_RESPONSE;
+                }
+                if (due >= measureFrom) {
+                    stats.get(operation).record(status, System.nanoTime() - due);
+                }
+            }
+        });
+        return end - measureFrom;
+    }
+
+    private int execute(Operation operation, SplittableRandom random, ZipfDistribution zipf) throws IOException, InterruptedException {
+        return switch (operation) {
+            case REDIRECT -> client.redirect(codes[zipf.sample(random)]);
+            case SHORTEN -> client.shorten(tokens[random.nextInt(tokens.length)],
+                    "https://example.com/loadtest/" + options.seed() + "/new/" + shortenCounter.incrementAndGet());
+            case ANALYTICS -> {
+                // The owner asking about one of their links, over the last week
+                int rank = zipf.sample(random);
+                LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+                yield client.analytics(tokens[owners[rank]], codes[rank], now.minusDays(7).toLocalDate().atStartOfDay().toString(), now.toString());
+            }
+            case TOTAL_CLICKS -> {
+                LocalDate today = LocalDate.now();
+                yield client.totalClicks(tokens[random.nextInt(tokens.length)], today.minusDays(30).toString(), today.toString());
+            }
+        };
+    }
+
+    // Each operation repeated by its weight, so a uniform pick follows the mix
+    private Operation[] weightedOperations() {
+        List<Operation> weighted = new ArrayList<>();
+        options.mix().forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                weighted.add(operation);
+            }
+        });
+        return weighted.toArray(Operation[]::new);
+    }
+
+    private void report(long measuredNanos) throws IOException {
+        double seconds = measuredNanos / 1e9;
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        System.out.println();
+        System.out.printf("%-12s %10s %8s %10s %9s %9s %9s %9s%n", "operation", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        boolean rateLimited = false;
+        for (EndpointStats endpoint : stats.values()) {
+            if (!options.mix().containsKey(endpoint.getOperation())) {
+                continue;
+            }
+            Histogram histogram = endpoint.takeLatencies();
+            long requests = histogram.getTotalCount();
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("requests", requests);
+            result.put("errors", endpoint.getErrors());
+            result.put("throughput", requests / seconds);
+            result.put("p50Ms", millis(histogram, 50));
+            result.put("p99Ms", millis(histogram, 99));
+            result.put("p999Ms", millis(histogram, 99.9));
+            result.put("maxMs", histogram.getMaxValue() / 1000.0);
+            Map<String, Long> statuses = new LinkedHashMap<>();
+            endpoint.getStatuses().forEach((status, count) ->
+                    statuses.put(status == EndpointStats.NO_RESPONSE ? "no-response" : String.valueOf(status), count));
+            result.put("statuses", statuses);
+            endpoints.put(endpoint.getOperation().getKey(), result);
+            rateLimited |= statuses.containsKey("429");
+
+            System.out.printf("%-12s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f   %s%n", endpoint.getOperation().getKey(),
+                    requests, endpoint.getErrors(), requests / seconds,
+                    millis(histogram, 50), millis(histogram, 99), millis(histogram, 99.9), histogram.getMaxValue() / 1000.0, statuses);
+        }
+        if (rateLimited) {
+            System.out.println("Some requests got 429: start the application with --shortner.ratelimit.enabled=false");
+        }
+
+        if (!options.out().isBlank()) {
+            Map<String, Object> report = new LinkedHashMap<>();
+            Map<String, Object> settings = new LinkedHashMap<>();
+            settings.put("baseUrl", options.baseUrl().toString());
+            settings.put("users", options.users());
+            settings.put("links", options.links());
+            settings.put("warmupSeconds", options.warmup().toSeconds());
+            settings.put("durationSeconds", options.duration().toSeconds());
+            settings.put("concurrency", options.concurrency());
+            settings.put("rate", options.rate());
+            settings.put("zipf", options.zipfExponent());
+            settings.put("seed", options.seed());
+            Map<String, Integer> mix = new LinkedHashMap<>();
+            options.mix().forEach((operation, weight) -> mix.put(operation.getKey(), weight));
+            settings.put("mix", mix);
+            report.put("options", settings);
+            report.put("endpoints", endpoints);
+            Path out = Path.of(options.out());
+            if (out.getParent() != null) {
+                Files.createDirectories(out.getParent());
+            }
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(out.toFile(), report);
+            System.out.println("Report written to " + out);
+        }
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        void run(int index) throws Exception;
+    }
+
+    // Runs task(0) .. task(count - 1) on virtual threads, at most 'options.concurrency()' at a time,
+    // and fails with the first task that failed
+    private void parallel(int count, Task task) throws Exception {
+        Semaphore permits = new Semaphore(options.concurrency());
+        List<Future<?>> futures = new ArrayList<>(count);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < count; i++) {
+                int index = i;
+                permits.acquire();
+                futures.add(executor.submit(() -> {
+                    try {
+                        task.run(index);
+                        return null;
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    executor.shutdownNow();
+                    throw e.getCause() instanceof Exception cause ? cause : e;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.url.shortner.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Command line options, all of the form --name=value (durations like 30s, 2m or 500ms).
+ * Every option has a default, so a run without arguments works against a local app on port 8080.
+ */
+record LoadTestOptions(URI baseUrl,
+                       int users,
+                       int links,
+                       Duration warmup,
+                       Duration duration,
+                       int concurrency,
+                       double rate,
+                       double zipfExponent,
+                       Map<Operation, Integer> mix,
+                       long seed,
+                       String userPrefix,
+                       String password,
+                       String out) {
+
+    static final String USAGE = """
+            Options (--name=value):
+              --base-url=http://localhost:8080   application under test
+              --users=10                         users registered (or reused) and logged in
+              --links=1000                       links shortened for them before the run
+              --warmup=10s                       traffic sent before measuring
+              --duration=60s                     measured traffic
+              --concurrency=64                   requests in flight at most
+              --rate=0                           requests per second, 0 = as fast as possible
+              --zipf=1.0                         Zipf exponent of the redirect (and analytics) link choice
+              --mix=redirect:90,shorten:5,analytics:4,totalClicks:1
+              --seed=42                          seed of every random choice
+              --user-prefix=loadtest             users are <prefix>-0 .. <prefix>-(users-1)
+              --password=loadtest-password
+              --out=target/loadtest-result.json  JSON report, empty = none
+            """;
+
+    private static final Set<String> KNOWN = Set.of("base-url", "users", "links", "warmup", "duration",
+            "concurrency", "rate", "zipf", "mix", "seed", "user-prefix", "password", "out");
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got '" + arg + "'");
+            }
+            values.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+        LoadTestOptions options = new LoadTestOptions(
+                URI.create(stripTrailingSlash(values.getOrDefault("base-url", "http://localhost:8080"))),
+                Integer.parseInt(values.getOrDefault("users", "10")),
+                Integer.parseInt(values.getOrDefault("links", "1000")),
+                DurationStyle.detectAndParse(values.getOrDefault("warmup", "10s")),
+                DurationStyle.detectAndParse(values.getOrDefault("duration", "60s")),
+                Integer.parseInt(values.getOrDefault("concurrency", "64")),
+                Double.parseDouble(values.getOrDefault("rate", "0")),
+                Double.parseDouble(values.getOrDefault("zipf", "1.0")),
+                parseMix(values.getOrDefault("mix", "redirect:90,shorten:5,analytics:4,totalClicks:1")),
+                Long.parseLong(values.getOrDefault("seed", "42")),
+                values.getOrDefault("user-prefix", "loadtest"),
+                values.getOrDefault("password", "loadtest-password"),
+                values.getOrDefault("out", "target/loadtest-result.json"));
+        values.keySet().removeAll(KNOWN);
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options " + values.keySet());
+        }
+        if (options.users <= 0 || options.links < options.users || options.concurrency <= 0) {
+            throw new IllegalArgumentException("Need users > 0, links >= users and concurrency > 0");
+        }
+        return options;
+    }
+
+    // "redirect:90,shorten:5" -> weights; operations left out get no traffic
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] keyAndWeight = part.trim().split(":");
+            if (keyAndWeight.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight in --mix, got '" + part + "'");
+            }
+            int weight = Integer.parseInt(keyAndWeight[1].trim());
+            if (weight > 0) {
+                weights.put(Operation.fromKey(keyAndWeight[0].trim()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("--mix needs at least one operation with a positive weight");
+        }
+        return weights;
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
@@ -0,0 +1,35 @@
+package com.url.shortner.loadtest;
+
+// The requests the load test sends, with the status a successful one answers with
+enum Operation {
+
+    REDIRECT("redirect", 302),
+    SHORTEN("shorten", 200),
+    ANALYTICS("analytics", 200),
+    TOTAL_CLICKS("totalClicks", 200);
+
+    private final String key;
+    private final int expectedStatus;
+
+    Operation(String key, int expectedStatus) {
+        this.key = key;
+        this.expectedStatus = expectedStatus;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    int getExpectedStatus() {
+        return expectedStatus;
+    }
+
+    static Operation fromKey(String key) {
+        for (Operation operation : values()) {
+            if (operation.key.equalsIgnoreCase(key)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation '" + key + "', expected one of redirect, shorten, analytics, totalClicks");
+    }
+}
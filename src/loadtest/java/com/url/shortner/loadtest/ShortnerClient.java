@@ -0,0 +1,113 @@
+package com.url.shortner.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The application's HTTP API as the load test uses it, through the JDK client: no test hooks, the
+ * same requests the frontend sends. The timed calls return the status code and discard the body.
+ */
+final class ShortnerClient {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient http;
+    private final URI baseUrl;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    ShortnerClient(URI baseUrl) {
+        this.baseUrl = baseUrl;
+        // HTTP/1.1 like a browser behind most proxies; redirects are measured, not followed
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    int register(String username, String password) throws IOException, InterruptedException {
+        Map<String, String> body = Map.of("username", username, "email", username + "@loadtest.invalid", "password", password);
+        return send(post("/api/auth/public/register", null, body), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    // The JWT, or null when the login was refused (e.g. the user doesn't exist yet)
+    String login(String username, String password) throws IOException, InterruptedException {
+        HttpResponse<String> response = send(post("/api/auth/public/login", null, Map.of("username", username, "password", password)),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            return null;
+        }
+        return objectMapper.readTree(response.body()).path("token").asText();
+    }
+
+    // The short codes of the given URLs, in order
+    List<String> bulkShorten(String token, List<String> originalUrls) throws IOException, InterruptedException {
+        HttpResponse<String> response = send(post("/api/urls/shorten/bulk", token, Map.of("originalUrls", originalUrls)),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Bulk shortening failed with " + response.statusCode() + ": " + response.body());
+        }
+        List<String> codes = new ArrayList<>(originalUrls.size());
+        for (JsonNode result : objectMapper.readTree(response.body())) {
+            if (!result.path("error").isNull() && !result.path("error").isMissingNode()) {
+                throw new IllegalStateException("Bulk shortening rejected " + result.path("originalUrl").asText()
+                        + ": " + result.path("error").asText());
+            }
+            codes.add(result.path("shortUrl").asText());
+        }
+        return codes;
+    }
+
+    int shorten(String token, String originalUrl) throws IOException, InterruptedException {
+        return send(post("/api/urls/shorten", token, Map.of("originalUrl", originalUrl)), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    int redirect(String shortUrl) throws IOException, InterruptedException {
+        return send(get("/" + shortUrl, null), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    // Clicks per day of one link, e.g. startDate=2026-01-01T00:00:00
+    int analytics(String token, String shortUrl, String startDate, String endDate) throws IOException, InterruptedException {
+        return send(get("/api/urls/analytics/" + shortUrl + "?startDate=" + startDate + "&endDate=" + endDate, token),
+                HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    // Clicks per day over all links of the user, e.g. startDate=2026-01-01
+    int totalClicks(String token, String startDate, String endDate) throws IOException, InterruptedException {
+        return send(get("/api/urls/totalClicks?startDate=" + startDate + "&endDate=" + endDate, token),
+                HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private HttpRequest get(String path, String token) {
+        return request(path, token).GET().build();
+    }
+
+    private HttpRequest post(String path, String token, Object body) throws IOException {
+        return request(path, token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT);
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws IOException, InterruptedException {
+        return http.send(request, handler);
+    }
+}
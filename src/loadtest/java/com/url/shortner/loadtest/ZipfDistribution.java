@@ -0,0 +1,48 @@
+package com.url.shortner.loadtest;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Ranks 0..n-1 drawn with probability proportional to 1 / (rank + 1)^exponent: a few links get most
+ * of the clicks, and a long tail is clicked now and then, like real short-link traffic.
+ * The cumulative distribution is computed once (8 bytes per link); a sample is a binary search.
+ */
+final class ZipfDistribution {
+
+    private final double[] cumulative;
+
+    ZipfDistribution(int n, double exponent) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be positive");
+        }
+        cumulative = new double[n];
+        double sum = 0;
+        for (int rank = 0; rank < n; rank++) {
+            sum += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < n; rank++) {
+            cumulative[rank] /= sum;
+        }
+    }
+
+    int sample(RandomGenerator random) {
+        double u = random.nextDouble();
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] < u) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Share of all samples that land on the 'top' most frequent ranks
+    double topShare(int top) {
+        return cumulative[Math.min(top, cumulative.length) - 1];
+    }
+}
@@ -2,8 +2,10 @@ package com.url.shortner;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling // Drives periodic background work such as flushing click counters
 public class ShortnerApplication {
 
 	// The main method is the entry point of the Java application.
@@ -0,0 +1,12 @@
+package com.url.shortner.analytics;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// One day of raw clicks as a rollup rebuild reads it: the clicks and visitors of every link clicked that day
+public record ClickDay(LocalDate day, List<LinkClicks> links) {
+
+    // 'visitors' is the serialized HyperLogLog of the link's visitor hashes, null when none were recorded
+    public record LinkClicks(long urlMappingId, long clicks, byte[] visitors) {
+    }
+}
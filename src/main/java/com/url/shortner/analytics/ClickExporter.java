@@ -0,0 +1,109 @@
+package com.url.shortner.analytics;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.url.shortner.bulkhead.Workload;
+import com.url.shortner.models.UrlMapping;
+import com.url.shortner.models.User;
+import com.url.shortner.repository.ClickEventJdbcRepository;
+import com.url.shortner.repository.UrlMappingRepository;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Streams raw click history straight from a database cursor to the HTTP response.
+ * - Rows are written as they are read, so memory use doesn't depend on the number of clicks.
+ * - The returned StreamingResponseBody runs on Spring MVC's async executor, so the servlet
+ *   request thread is released while a long export is running.
+ * - If the client disconnects, the write fails and the query is abandoned.
+ * An export holds one database connection for its whole duration, from the ANALYTICS workload's
+ * pool: the async thread doesn't inherit the request's workload, so it is set here. How many run at
+ * once is capped by the export bulkhead, whose permit is held until the stream ends (BulkheadFilter).
+ */
+@Component
+@AllArgsConstructor
+public class ClickExporter {
+
+    private UrlMappingRepository urlMappingRepository;
+    private ClickEventJdbcRepository clickEventJdbcRepository;
+    private ObjectMapper objectMapper;
+
+    // Export of one link; null when the link doesn't exist or belongs to someone else
+    public StreamingResponseBody exportLink(User user, String shortUrl, LocalDateTime from, LocalDateTime to, ExportFormat format) {
+        UrlMapping urlMapping = urlMappingRepository.findByShortUrl(shortUrl);
+        if (urlMapping == null || urlMapping.getUser() == null || !Objects.equals(urlMapping.getUser().getId(), user.getId())) {
+            return null;
+        }
+        Long urlMappingId = urlMapping.getId();
+        return out -> write(out, format, sink -> Workload.ANALYTICS.run(() -> clickEventJdbcRepository.streamClicks(urlMappingId, from, to, sink)));
+    }
+
+    // Export of every link of the user
+    public StreamingResponseBody exportUser(User user, LocalDateTime from, LocalDateTime to, ExportFormat format) {
+        Long userId = user.getId();
+        return out -> write(out, format, sink -> Workload.ANALYTICS.run(() -> clickEventJdbcRepository.streamClicksByUser(userId, from, to, sink)));
+    }
+
+    private void write(OutputStream out, ExportFormat format, Consumer<Consumer<ExportedClick>> query) throws IOException {
+        try {
+            if (format == ExportFormat.CSV) {
+                writeCsv(out, query);
+            } else {
+                writeNdjson(out, query);
+            }
+        } catch (UncheckedIOException e) {
+            // Raised from inside the row callback, e.g. the client went away mid-export
+            throw e.getCause();
+        }
+    }
+
+    private void writeNdjson(OutputStream out, Consumer<Consumer<ExportedClick>> query) throws IOException {
+        // One JSON object per line: {"id":1,"shortUrl":"aBcD1234","clickDate":"2026-04-27T10:00:00"}
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.setRootValueSeparator(null); // we end every line ourselves
+            query.accept(click -> {
+                try {
+                    json.writeStartObject();
+                    json.writeNumberField("id", click.id());
+                    json.writeStringField("shortUrl", click.shortUrl());
+                    json.writeStringField("clickDate", click.clickDate().toString());
+                    json.writeEndObject();
+                    json.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private void writeCsv(OutputStream out, Consumer<Consumer<ExportedClick>> query) throws IOException {
+        // Short codes are alphanumeric and dates ISO-8601, so no field ever needs quoting
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024)) {
+            writer.write("id,short_url,click_date\n");
+            query.accept(click -> {
+                try {
+                    writer.write(Long.toString(click.id()));
+                    writer.write(',');
+                    writer.write(click.shortUrl());
+                    writer.write(',');
+                    writer.write(click.clickDate().toString());
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+}
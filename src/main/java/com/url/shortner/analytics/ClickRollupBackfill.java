@@ -0,0 +1,277 @@
+package com.url.shortner.analytics;
+
+import com.url.shortner.bulkhead.Workload;
+import com.url.shortner.models.RollupBackfillState;
+import com.url.shortner.repository.ClickEventJdbcRepository;
+import com.url.shortner.repository.DailyClickRollupRepository;
+import com.url.shortner.repository.RollupBackfillStateRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Builds daily_click_rollup (and the visitor sketches of UniqueVisitors) from the raw click_event rows.
+ * - Once the application is ready, the history is backfilled on a background thread: every past day
+ *   not rebuilt yet, from the first click on (first deployment) or from where an earlier backfill
+ *   stopped. Progress is kept in rollup_backfill_state after each day. The rollup's own rows can't
+ *   tell: the click recorder starts adding today's clicks before the application is ready.
+ * - Every night the last 'reconcileDays' days are rebuilt. This completes the day the feature
+ *   was deployed on (its clicks before the deployment were never rolled up) and repairs any drift.
+ *   Only one instance does it: the first to claim the night in rollup_backfill_state. If that one
+ *   fails, the next night's reconcile covers the same days again.
+ * - A rebuild of any number of days is one pass over click_event, sorted by day and link (see
+ *   ClickEventJdbcRepository.streamClickDays). Each day is then written in a transaction of its own,
+ *   rollup and sketches together, so a long rebuild never holds locks for long.
+ * Today is never rebuilt here: it still receives clicks, which the recorder adds incrementally.
+ * Days whose click_event partition was dropped by the retention policy are never rebuilt either,
+ * their rollup rows are then the only record left of those clicks.
+ */
+@Slf4j
+@Component
+public class ClickRollupBackfill {
+
+    private static final String STATE_NAME = "daily_click_rollup";
+    private static final String RECONCILE_STATE_NAME = "daily_click_rollup_reconcile";
+
+    private final DailyClickRollupRepository dailyClickRollupRepository;
+    private final ClickEventJdbcRepository clickEventJdbcRepository;
+    private final UniqueVisitors uniqueVisitors;
+    private final RollupBackfillStateRepository rollupBackfillStateRepository;
+    // Each day's writes commit on their own, outside the read of the pass
+    private final TransactionTemplate dayTransaction;
+    private final boolean enabled;
+    private final boolean backfillOnStartup;
+    private final int reconcileDays;
+    // 0 when raw clicks are kept forever
+    private final int retentionMonths;
+    private final boolean virtualThreads;
+
+    private volatile boolean stopped;
+    private Thread historyBackfill;
+
+    public ClickRollupBackfill(DailyClickRollupRepository dailyClickRollupRepository,
+                               ClickEventJdbcRepository clickEventJdbcRepository,
+                               UniqueVisitors uniqueVisitors,
+                               RollupBackfillStateRepository rollupBackfillStateRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${shortner.analytics.rollup.enabled:true}") boolean enabled,
+                               @Value("${shortner.analytics.rollup.backfill-on-startup:true}") boolean backfillOnStartup,
+                               @Value("${shortner.analytics.rollup.reconcile-days:2}") int reconcileDays,
+                               @Value("${shortner.clicks.partitioning.enabled:false}") boolean partitioning,
+                               @Value("${shortner.clicks.partitioning.retention-months:0}") int retentionMonths,
+                               @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.dailyClickRollupRepository = dailyClickRollupRepository;
+        this.clickEventJdbcRepository = clickEventJdbcRepository;
+        this.uniqueVisitors = uniqueVisitors;
+        this.rollupBackfillStateRepository = rollupBackfillStateRepository;
+        this.dayTransaction = new TransactionTemplate(transactionManager);
+        this.dayTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.backfillOnStartup = backfillOnStartup;
+        this.reconcileDays = reconcileDays;
+        this.retentionMonths = partitioning ? retentionMonths : 0;
+        this.virtualThreads = virtualThreads;
+    }
+
+    // Rebuilds the rollup for every day from 'from' to 'to' (inclusive), stopping before today
+    // and starting no earlier than the oldest day still kept in click_event.
+    // A day that fails is logged and skipped. Returns the number of days rebuilt.
+    public int backfill(LocalDate from, LocalDate to) {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        return rebuild(oldestKept(from), to.isAfter(yesterday) ? yesterday : to, false, day -> {
+        });
+    }
+
+    // 'day', or the first day still kept in click_event if that's later
+    private LocalDate oldestKept(LocalDate day) {
+        if (retentionMonths == 0) {
+            return day;
+        }
+        LocalDate oldestKept = YearMonth.now().minusMonths(retentionMonths).atDay(1);
+        return day.isBefore(oldestKept) ? oldestKept : day;
+    }
+
+    // Rebuilds the days from 'first' to 'last' (inclusive) in one pass over click_event, each day in
+    // its own transaction together with 'onRebuilt' (e.g. recording progress). A failed day is logged;
+    // with 'stopOnFailure' the pass ends there. Returns the number of days rebuilt.
+    // The pass reads every click of the range: it runs on the analytics pool, like the analytics endpoints.
+    private int rebuild(LocalDate first, LocalDate last, boolean stopOnFailure, Consumer<LocalDate> onRebuilt) {
+        if (first.isAfter(last)) {
+            return 0;
+        }
+        RebuildPass pass = new RebuildPass(first, stopOnFailure, onRebuilt);
+        Workload.ANALYTICS.run(() -> {
+            clickEventJdbcRepository.streamClickDays(first, last.plusDays(1), pass::rebuild);
+            // Trailing days without clicks
+            pass.rebuildEmptyDaysBefore(last.plusDays(1));
+        });
+        return pass.rebuilt;
+    }
+
+    private final class RebuildPass {
+        private final boolean stopOnFailure;
+        private final Consumer<LocalDate> onRebuilt;
+        private LocalDate next;
+        private boolean ended;
+        private int rebuilt;
+
+        RebuildPass(LocalDate first, boolean stopOnFailure, Consumer<LocalDate> onRebuilt) {
+            this.next = first;
+            this.stopOnFailure = stopOnFailure;
+            this.onRebuilt = onRebuilt;
+        }
+
+        // Called for each day the pass reads; false ends the pass
+        boolean rebuild(ClickDay clickDay) {
+            return rebuildEmptyDaysBefore(clickDay.day()) && write(clickDay);
+        }
+
+        // Days without clicks don't come out of the pass, but may still have rollup rows to clear
+        boolean rebuildEmptyDaysBefore(LocalDate day) {
+            while (next.isBefore(day)) {
+                if (!write(new ClickDay(next, List.of()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean write(ClickDay clickDay) {
+            if (ended || stopped) {
+                ended = true;
+                return false;
+            }
+            next = clickDay.day().plusDays(1);
+            try {
+                dayTransaction.executeWithoutResult(status -> {
+                    dailyClickRollupRepository.replaceDay(clickDay);
+                    uniqueVisitors.replaceDay(clickDay);
+                    onRebuilt.accept(clickDay.day());
+                });
+                rebuilt++;
+                return true;
+            } catch (RuntimeException e) {
+                // e.g. another instance rebuilding the same day at the same time; the next run fixes it
+                log.error("Failed to rebuild the click rollup for {}", clickDay.day(), e);
+                ended = stopOnFailure;
+                return !ended;
+            }
+        }
+    }
+
+    // Starts the history backfill on its own thread, so it neither delays the readiness state and the
+    // other ready listeners nor takes a scheduler or request thread for its whole run.
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!enabled || !backfillOnStartup) {
+            return;
+        }
+        // Follows the application's threading mode, like the click writer
+        Thread.Builder builder = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon(true);
+        historyBackfill = builder.name("click-rollup-backfill").start(() -> {
+            try {
+                backfillHistory();
+            } catch (RuntimeException e) {
+                log.error("Click rollup history backfill failed, it resumes on the next start", e);
+            }
+        });
+    }
+
+    // Rebuilds every day up to yesterday that the history backfill hasn't done yet, oldest first,
+    // recording each one as done. Stops at the first failure: the next start resumes from there.
+    // Returns the number of days rebuilt.
+    int backfillHistory() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        RollupBackfillState state = rollupBackfillStateRepository.findById(STATE_NAME).orElse(null);
+        LocalDate from;
+        if (state != null) {
+            from = oldestKept(state.getDoneThrough().plusDays(1));
+        } else {
+            state = new RollupBackfillState();
+            state.setName(STATE_NAME);
+            LocalDate firstDay = clickEventJdbcRepository.findFirstClickDay();
+            from = firstDay == null ? LocalDate.now() : oldestKept(firstDay);
+        }
+        if (from.isAfter(yesterday)) {
+            // Nothing before today: the recorder and the nightly rebuild keep the rollup from here on
+            state.setDoneThrough(yesterday);
+            rollupBackfillStateRepository.save(state);
+            return 0;
+        }
+        log.info("Backfilling the click rollup from {}", from);
+        RollupBackfillState progress = state;
+        int days = rebuild(from, yesterday, true, day -> {
+            progress.setDoneThrough(day);
+            rollupBackfillStateRepository.save(progress);
+        });
+        if (from.plusDays(days).isAfter(yesterday)) {
+            log.info("Click rollup backfill done, {} days rebuilt", days);
+        } else {
+            log.info("Click rollup backfill stopped after {} days, it resumes from {} on the next start", days, from.plusDays(days));
+        }
+        return days;
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+        if (historyBackfill != null) {
+            try {
+                // The day being rebuilt finishes before the DataSource goes away
+                historyBackfill.join(30_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Scheduled(cron = "${shortner.analytics.rollup.reconcile-cron:0 10 0 * * *}")
+    public void reconcile() {
+        if (enabled && claimReconcile(LocalDate.now())) {
+            LocalDate today = LocalDate.now();
+            LocalDate from = today.minusDays(reconcileDays);
+            if (backfill(from, today) == reconcileDays) {
+                advanceHistory(from);
+            }
+        }
+    }
+
+    // True for the one instance that gets to reconcile on 'today': the first to move the reconcile
+    // row forward to it. The row is created the first time.
+    boolean claimReconcile(LocalDate today) {
+        if (!rollupBackfillStateRepository.existsById(RECONCILE_STATE_NAME)) {
+            RollupBackfillState state = new RollupBackfillState();
+            state.setName(RECONCILE_STATE_NAME);
+            try {
+                rollupBackfillStateRepository.save(state);
+            } catch (DataIntegrityViolationException e) {
+                // Another instance created it at the same moment
+            }
+        }
+        return rollupBackfillStateRepository.claim(RECONCILE_STATE_NAME, today) == 1;
+    }
+
+    // A complete nightly rebuild that joins on to the history backfill extends it, so a restart
+    // months later doesn't rebuild months of days again
+    private void advanceHistory(LocalDate rebuiltFrom) {
+        rollupBackfillStateRepository.findById(STATE_NAME)
+                .filter(state -> !state.getDoneThrough().plusDays(1).isBefore(rebuiltFrom))
+                .ifPresent(state -> {
+                    state.setDoneThrough(LocalDate.now().minusDays(1));
+                    rollupBackfillStateRepository.save(state);
+                });
+    }
+}
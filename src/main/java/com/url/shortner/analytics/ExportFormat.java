@@ -0,0 +1,34 @@
+package com.url.shortner.analytics;
+
+import org.springframework.http.MediaType;
+
+public enum ExportFormat {
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+    CSV(MediaType.parseMediaType("text/csv"), "csv");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    ExportFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    // Case-insensitive; null for an unknown format
+    public static ExportFormat parse(String format) {
+        for (ExportFormat exportFormat : values()) {
+            if (exportFormat.extension.equalsIgnoreCase(format)) {
+                return exportFormat;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,7 @@
+package com.url.shortner.analytics;
+
+import java.time.LocalDateTime;
+
+// One raw click as written to an export
+public record ExportedClick(long id, String shortUrl, LocalDateTime clickDate) {
+}
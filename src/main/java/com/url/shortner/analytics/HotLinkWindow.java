@@ -0,0 +1,30 @@
+package com.url.shortner.analytics;
+
+import java.time.Duration;
+
+// The sliding windows HotLinks keeps a top list for
+public enum HotLinkWindow {
+    MINUTE(Duration.ofMinutes(1)),
+    HOUR(Duration.ofHours(1)),
+    DAY(Duration.ofDays(1));
+
+    private final long millis;
+
+    HotLinkWindow(Duration length) {
+        this.millis = length.toMillis();
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    // Case-insensitive; null for an unknown window
+    public static HotLinkWindow parse(String window) {
+        for (HotLinkWindow hotLinkWindow : values()) {
+            if (hotLinkWindow.name().equalsIgnoreCase(window)) {
+                return hotLinkWindow;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,222 @@
+package com.url.shortner.analytics;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.url.shortner.cache.ResolvedUrl;
+import com.url.shortner.dtos.HotLinkDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The links clicked most right now, over the last minute, hour and day, computed in memory from the
+ * redirect path instead of grouping click_event rows.
+ * - Each window keeps two Space-Saving summaries: the current period and the previous one. The
+ *   sliding count of a link is its current count plus the previous count weighted by how much of
+ *   the previous period still falls inside the window (the usual sliding window approximation).
+ * - One tracker for all links (admins) and one per user that owns clicked links, each with a fixed
+ *   number of counters, so memory is O(capacity) per tracker whatever the traffic. Per-user trackers
+ *   are bounded to 'maxUsers', idle ones expire. Trackers whose clicks contend split into stripes
+ *   (see Tracker), each with that many counters.
+ * - Per-instance: with several instances each one sees only its own share of the redirects.
+ */
+@Component
+public class HotLinks {
+
+    private final boolean enabled;
+    private final int userCapacity;
+    private final int maxStripes;
+    private final Tracker global;
+    private final Cache<Long, Tracker> byUser;
+
+    public HotLinks(@Value("${shortner.analytics.hot-links.enabled:true}") boolean enabled,
+                    @Value("${shortner.analytics.hot-links.capacity:200}") int capacity,
+                    @Value("${shortner.analytics.hot-links.user-capacity:20}") int userCapacity,
+                    @Value("${shortner.analytics.hot-links.max-users:10000}") long maxUsers,
+                    @Value("${shortner.analytics.hot-links.max-stripes:8}") int maxStripes) {
+        this.enabled = enabled;
+        this.userCapacity = userCapacity;
+        this.maxStripes = maxStripes;
+        this.global = new Tracker(capacity, maxStripes);
+        this.byUser = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(Duration.ofDays(1))
+                .build();
+    }
+
+    // Called on the redirect path: O(1) per window under a stripe's lock, no DB access.
+    public void record(ResolvedUrl resolvedUrl) {
+        if (enabled) {
+            record(resolvedUrl.shortUrl(), resolvedUrl.userId(), System.currentTimeMillis());
+        }
+    }
+
+    void record(String shortUrl, Long userId, long now) {
+        global.add(shortUrl, now);
+        if (userId != null) {
+            byUser.get(userId, id -> new Tracker(userCapacity, maxStripes)).add(shortUrl, now);
+        }
+    }
+
+    // The 'limit' hottest links of all users
+    public List<HotLinkDTO> top(HotLinkWindow window, int limit) {
+        return global.top(window, limit, System.currentTimeMillis());
+    }
+
+    // The 'limit' hottest links of one user; empty when none of them was clicked lately
+    public List<HotLinkDTO> topByUser(Long userId, HotLinkWindow window, int limit) {
+        return topByUser(userId, window, limit, System.currentTimeMillis());
+    }
+
+    List<HotLinkDTO> top(HotLinkWindow window, int limit, long now) {
+        return global.top(window, limit, now);
+    }
+
+    List<HotLinkDTO> topByUser(Long userId, HotLinkWindow window, int limit, long now) {
+        Tracker tracker = byUser.getIfPresent(userId);
+        return tracker == null ? List.of() : tracker.top(window, limit, now);
+    }
+
+    /*
+     * All windows of one set of links, in stripes that each have their own lock. A click takes the
+     * first stripe whose lock is free and only adds a stripe, up to 'maxStripes', when all of them
+     * are busy. So a tracker stays one stripe unless its clicks actually contend, which keeps the
+     * many per-user trackers small, while a busy one (all links, or the owner of a viral link)
+     * spreads its clicks. top() merges the stripes: a link's count is the sum of its counts in each.
+     */
+    private static final class Tracker {
+        private final int capacity;
+        private final int maxStripes;
+        private final ReentrantLock growLock = new ReentrantLock();
+        private volatile Stripe[] stripes;
+
+        Tracker(int capacity, int maxStripes) {
+            this.capacity = capacity;
+            this.maxStripes = maxStripes;
+            this.stripes = new Stripe[]{new Stripe(capacity)};
+        }
+
+        void add(String shortUrl, long now) {
+            Stripe[] current = stripes;
+            int first = (int) Math.floorMod(Thread.currentThread().threadId(), (long) current.length);
+            for (int i = 0; i < current.length; i++) {
+                Stripe stripe = current[(first + i) % current.length];
+                if (stripe.lock.tryLock()) {
+                    stripe.addAndUnlock(shortUrl, now);
+                    return;
+                }
+            }
+            Stripe stripe = current.length < maxStripes ? grow(current) : current[first];
+            stripe.lock.lock();
+            stripe.addAndUnlock(shortUrl, now);
+        }
+
+        List<HotLinkDTO> top(HotLinkWindow window, int limit, long now) {
+            Map<String, Double> clicks = new HashMap<>();
+            for (Stripe stripe : stripes) {
+                stripe.lock.lock();
+                try {
+                    stripe.windows.get(window).addClicks(clicks, now);
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+            List<HotLinkDTO> top = new ArrayList<>(clicks.size());
+            clicks.forEach((shortUrl, count) -> {
+                if (Math.round(count) > 0) {
+                    top.add(new HotLinkDTO(shortUrl, Math.round(count)));
+                }
+            });
+            top.sort((a, b) -> Long.compare(b.getClicks(), a.getClicks()));
+            return top.size() > limit ? new ArrayList<>(top.subList(0, limit)) : top;
+        }
+
+        // Adds a stripe unless another thread already did since 'seen' was read; returns the newest
+        private Stripe grow(Stripe[] seen) {
+            growLock.lock();
+            try {
+                Stripe[] current = stripes;
+                if (current == seen) {
+                    current = Arrays.copyOf(current, current.length + 1);
+                    current[current.length - 1] = new Stripe(capacity);
+                    stripes = current;
+                }
+                return current[current.length - 1];
+            } finally {
+                growLock.unlock();
+            }
+        }
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<HotLinkWindow, SlidingWindow> windows = new EnumMap<>(HotLinkWindow.class);
+
+        Stripe(int capacity) {
+            for (HotLinkWindow window : HotLinkWindow.values()) {
+                windows.put(window, new SlidingWindow(window.getMillis(), capacity));
+            }
+        }
+
+        // Called with the lock held
+        void addAndUnlock(String shortUrl, long now) {
+            try {
+                for (SlidingWindow window : windows.values()) {
+                    window.add(shortUrl, now);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class SlidingWindow {
+        private final long length;
+        private final int capacity;
+        private long start;
+        private SpaceSaving<String> current;
+        private SpaceSaving<String> previous;
+
+        SlidingWindow(long length, int capacity) {
+            this.length = length;
+            this.capacity = capacity;
+            this.current = new SpaceSaving<>(capacity);
+            this.previous = new SpaceSaving<>(capacity);
+        }
+
+        void add(String shortUrl, long now) {
+            rotate(now);
+            current.add(shortUrl);
+        }
+
+        // Adds the sliding count of every link this window tracks to 'clicks'
+        void addClicks(Map<String, Double> clicks, long now) {
+            rotate(now);
+            double previousWeight = 1 - (double) (now - start) / length;
+            for (String shortUrl : current.keys()) {
+                clicks.merge(shortUrl, (double) current.count(shortUrl), Double::sum);
+            }
+            for (String shortUrl : previous.keys()) {
+                clicks.merge(shortUrl, previous.count(shortUrl) * previousWeight, Double::sum);
+            }
+        }
+
+        // Periods are aligned to multiples of the window length; a gap of a whole period empties both
+        private void rotate(long now) {
+            if (now < start + length) {
+                return;
+            }
+            previous = now < start + 2 * length ? current : new SpaceSaving<>(capacity);
+            current = new SpaceSaving<>(capacity);
+            start = now - Math.floorMod(now, length);
+        }
+    }
+}
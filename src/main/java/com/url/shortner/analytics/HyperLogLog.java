@@ -0,0 +1,117 @@
+package com.url.shortner.analytics;
+
+import java.nio.ByteBuffer;
+
+/**
+ * HyperLogLog sketch for counting distinct visitors in a few KB, whatever the number of clicks.
+ * - 2^12 = 4096 one-byte registers: about 1.6% standard error. Precision 14 (0.8%) would make
+ *   every busy link-day 16 KB in daily_visitor_sketch, which isn't worth it for a dashboard.
+ * - Sketches merge by taking the register-wise maximum, so per-day sketches combine into any
+ *   date range and across links, and adding the same visitor twice changes nothing.
+ * - Serialized sparse (index/value pairs) while few registers are set, so the many link-days
+ *   with a handful of visitors take a few bytes instead of 4 KB.
+ * Expects well mixed 64-bit hashes as input (see VisitorKey). Not thread-safe.
+ */
+public final class HyperLogLog {
+
+    static final int PRECISION = 12;
+    static final int REGISTERS = 1 << PRECISION;
+
+    private static final byte SPARSE = 1;
+    private static final byte DENSE = 2;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this.registers = new byte[REGISTERS];
+    }
+
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+
+    public void add(long hash) {
+        // 1. The top bits pick the register
+        int index = (int) (hash >>> (Long.SIZE - PRECISION));
+        // 2. The position of the first 1 in the remaining bits is what the register remembers
+        //    (the sentinel bit caps it when they are all zero)
+        long rest = (hash << PRECISION) | (1L << (PRECISION - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    public HyperLogLog merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+        return this;
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        // Small cardinalities: linear counting over the empty registers is far more accurate.
+        // No large range correction is needed, 64-bit hashes don't collide at our scale.
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public boolean isEmpty() {
+        for (byte register : registers) {
+            if (register != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public byte[] toBytes() {
+        int used = 0;
+        for (byte register : registers) {
+            if (register != 0) {
+                used++;
+            }
+        }
+        // 3 bytes per set register (2 for the index, 1 for the value) until that's no smaller than dense
+        if (used * 3 < REGISTERS) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 + used * 3).put(SPARSE);
+            for (int i = 0; i < REGISTERS; i++) {
+                if (registers[i] != 0) {
+                    buffer.putShort((short) i).put(registers[i]);
+                }
+            }
+            return buffer.array();
+        }
+        return ByteBuffer.allocate(1 + REGISTERS).put(DENSE).put(registers).array();
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        byte format = buffer.get();
+        byte[] registers = new byte[REGISTERS];
+        if (format == DENSE) {
+            buffer.get(registers);
+        } else if (format == SPARSE) {
+            while (buffer.hasRemaining()) {
+                registers[buffer.getShort()] = buffer.get();
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown HyperLogLog format " + format);
+        }
+        return new HyperLogLog(registers);
+    }
+}
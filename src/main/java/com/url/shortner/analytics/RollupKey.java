@@ -0,0 +1,7 @@
+package com.url.shortner.analytics;
+
+import java.time.LocalDate;
+
+// One row of daily_click_rollup: a link on a given day.
+public record RollupKey(Long urlMappingId, LocalDate clickDay) {
+}
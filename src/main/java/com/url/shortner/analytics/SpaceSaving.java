@@ -0,0 +1,157 @@
+package com.url.shortner.analytics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy hitters summary (Metwally et al.): the approximate top keys of a stream in
+ * 'capacity' counters, however many distinct keys the stream has.
+ * - A tracked key just gets its counter incremented.
+ * - An untracked key, once all counters are taken, replaces the key with the smallest count and
+ *   inherits that count + 1. Counts therefore only ever overestimate, by at most the inherited
+ *   part, and any key with more than total/capacity occurrences is guaranteed to be tracked.
+ * Counters are kept in the paper's stream-summary: buckets of counters with the same count, in a
+ * list ordered by count. An increment moves a counter to the next bucket and the smallest counter
+ * is the first bucket's, so add() is O(1) whatever the capacity. Not thread-safe.
+ */
+public final class SpaceSaving<K> {
+
+    private final int capacity;
+    private final Map<K, Counter<K>> counters;
+    private Bucket<K> smallest;
+    private Bucket<K> largest;
+
+    public SpaceSaving(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public void add(K key) {
+        Counter<K> counter = counters.get(key);
+        if (counter != null) {
+            increment(counter);
+            return;
+        }
+        if (counters.size() < capacity) {
+            counter = new Counter<>(key);
+            counters.put(key, counter);
+            if (smallest == null || smallest.count != 1) {
+                insertAfter(null, new Bucket<>(1));
+            }
+            smallest.push(counter);
+            return;
+        }
+        counter = smallest.head;
+        counters.remove(counter.key);
+        counter.key = key;
+        counters.put(key, counter);
+        increment(counter);
+    }
+
+    // Estimated count of 'key', 0 when it isn't tracked
+    public long count(K key) {
+        Counter<K> counter = counters.get(key);
+        return counter == null ? 0 : counter.bucket.count;
+    }
+
+    // The tracked keys, highest count first
+    public List<K> keys() {
+        List<K> keys = new ArrayList<>(counters.size());
+        for (Bucket<K> bucket = largest; bucket != null; bucket = bucket.smaller) {
+            for (Counter<K> counter = bucket.head; counter != null; counter = counter.next) {
+                keys.add(counter.key);
+            }
+        }
+        return keys;
+    }
+
+    private void increment(Counter<K> counter) {
+        Bucket<K> bucket = counter.bucket;
+        Bucket<K> target = bucket.larger;
+        if (target == null || target.count != bucket.count + 1) {
+            target = new Bucket<>(bucket.count + 1);
+            insertAfter(bucket, target);
+        }
+        bucket.remove(counter);
+        target.push(counter);
+        if (bucket.head == null) {
+            unlink(bucket);
+        }
+    }
+
+    // Inserts 'bucket' right after 'after', or as the smallest when 'after' is null
+    private void insertAfter(Bucket<K> after, Bucket<K> bucket) {
+        Bucket<K> next = after == null ? smallest : after.larger;
+        bucket.smaller = after;
+        bucket.larger = next;
+        if (after == null) {
+            smallest = bucket;
+        } else {
+            after.larger = bucket;
+        }
+        if (next == null) {
+            largest = bucket;
+        } else {
+            next.smaller = bucket;
+        }
+    }
+
+    private void unlink(Bucket<K> bucket) {
+        if (bucket.smaller == null) {
+            smallest = bucket.larger;
+        } else {
+            bucket.smaller.larger = bucket.larger;
+        }
+        if (bucket.larger == null) {
+            largest = bucket.smaller;
+        } else {
+            bucket.larger.smaller = bucket.smaller;
+        }
+    }
+
+    private static final class Counter<K> {
+        private K key;
+        private Bucket<K> bucket;
+        private Counter<K> previous;
+        private Counter<K> next;
+
+        Counter(K key) {
+            this.key = key;
+        }
+    }
+
+    // The counters with one count, a doubly linked list
+    private static final class Bucket<K> {
+        private final long count;
+        private Counter<K> head;
+        private Bucket<K> smaller;
+        private Bucket<K> larger;
+
+        Bucket(long count) {
+            this.count = count;
+        }
+
+        void push(Counter<K> counter) {
+            counter.bucket = this;
+            counter.previous = null;
+            counter.next = head;
+            if (head != null) {
+                head.previous = counter;
+            }
+            head = counter;
+        }
+
+        void remove(Counter<K> counter) {
+            if (counter.previous == null) {
+                head = counter.next;
+            } else {
+                counter.previous.next = counter.next;
+            }
+            if (counter.next != null) {
+                counter.next.previous = counter.previous;
+            }
+        }
+    }
+}
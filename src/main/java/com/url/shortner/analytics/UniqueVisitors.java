@@ -0,0 +1,116 @@
+package com.url.shortner.analytics;
+
+import com.url.shortner.clicks.PendingClick;
+import com.url.shortner.repository.ClickEventJdbcRepository;
+import com.url.shortner.repository.DailyVisitorSketchRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Approximate unique visitors (distinct IP + User-Agent) per link and day, from daily_visitor_sketch.
+ * - Written by the click recorder after each batch: one HyperLogLog per link and day is merged
+ *   into the stored sketch. This runs outside the click_event transaction, a failed merge only
+ *   costs visitors until the nightly rebuild (ClickRollupBackfill) recomputes the day.
+ * - Read like ClickRollups: whole days from the sketches, partial days at the edges of a range from
+ *   click_event.visitor_hash. Days (and links) are merged, never summed, so a visitor who comes
+ *   back on several days is counted once over the range.
+ */
+@Slf4j
+@Component
+public class UniqueVisitors {
+
+    private final DailyVisitorSketchRepository dailyVisitorSketchRepository;
+    private final ClickEventJdbcRepository clickEventJdbcRepository;
+    private final boolean enabled;
+
+    public UniqueVisitors(DailyVisitorSketchRepository dailyVisitorSketchRepository,
+                          ClickEventJdbcRepository clickEventJdbcRepository,
+                          @Value("${shortner.analytics.visitors.enabled:true}") boolean enabled) {
+        this.dailyVisitorSketchRepository = dailyVisitorSketchRepository;
+        this.clickEventJdbcRepository = clickEventJdbcRepository;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Called with each batch of clicks once it is in click_event
+    public void record(List<PendingClick> clicks) {
+        if (!enabled || clicks.isEmpty()) {
+            return;
+        }
+        Map<RollupKey, HyperLogLog> visitors = new HashMap<>();
+        for (PendingClick click : clicks) {
+            if (click.visitorHash() == null) {
+                continue;
+            }
+            visitors.computeIfAbsent(new RollupKey(click.urlMappingId(), click.clickDate().toLocalDate()), key -> new HyperLogLog())
+                    .add(click.visitorHash());
+        }
+        try {
+            dailyVisitorSketchRepository.addVisitors(visitors);
+        } catch (RuntimeException e) {
+            log.error("Failed to update the visitor sketches of {} links/days", visitors.size(), e);
+        }
+    }
+
+    // Replaces one past day of sketches with the visitors read from click_event (see ClickRollupBackfill)
+    public void replaceDay(ClickDay clickDay) {
+        if (enabled) {
+            dailyVisitorSketchRepository.replaceDay(clickDay);
+        }
+    }
+
+    // Visitors per day for one link between 'start' and 'end' (both inclusive, like getDailyClicks).
+    public Map<LocalDate, HyperLogLog> getDailyVisitors(Long urlMappingId, LocalDateTime start, LocalDateTime end) {
+        Map<LocalDate, HyperLogLog> visitorsByDay = new TreeMap<>();
+        if (end.isBefore(start)) {
+            return visitorsByDay;
+        }
+        // 1. The whole days inside the range
+        LocalDate firstFullDay = start.toLocalTime().equals(LocalTime.MIDNIGHT) ? start.toLocalDate() : start.toLocalDate().plusDays(1);
+        LocalDate lastFullDay = end.toLocalTime().equals(LocalTime.MAX) ? end.toLocalDate() : end.toLocalDate().minusDays(1);
+        if (!firstFullDay.isAfter(lastFullDay)) {
+            visitorsByDay.putAll(dailyVisitorSketchRepository.findDailySketches(urlMappingId, firstFullDay, lastFullDay));
+        }
+
+        // 2. The partial days, read from the raw clicks
+        LocalDateTime endExclusive = end.plusNanos(1);
+        for (LocalDate day = start.toLocalDate(); !day.isAfter(end.toLocalDate()); day = day.plusDays(1)) {
+            if (!day.isBefore(firstFullDay) && !day.isAfter(lastFullDay)) {
+                continue;
+            }
+            LocalDateTime from = day.equals(start.toLocalDate()) ? start : day.atStartOfDay();
+            LocalDateTime to = day.equals(end.toLocalDate()) ? endExclusive : day.plusDays(1).atStartOfDay();
+            HyperLogLog visitors = new HyperLogLog();
+            clickEventJdbcRepository.collectVisitors(urlMappingId, from, to, visitors);
+            if (!visitors.isEmpty()) {
+                visitorsByDay.put(day, visitors);
+            }
+        }
+        return visitorsByDay;
+    }
+
+    // Visitors per day over all of a user's links, 'from' and 'to' inclusive.
+    public Map<LocalDate, HyperLogLog> getDailyVisitorsByUser(Long userId, LocalDate from, LocalDate to) {
+        return dailyVisitorSketchRepository.findDailySketchesByUser(userId, from, to);
+    }
+
+    // Distinct visitors over all the given days together
+    public static long countDistinct(Collection<HyperLogLog> sketches) {
+        HyperLogLog union = new HyperLogLog();
+        sketches.forEach(union::merge);
+        return union.estimate();
+    }
+}
@@ -0,0 +1,57 @@
+package com.url.shortner.bulkhead;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps how many requests of one workload run at the same time. A request that gets no permit within
+ * 'maxWait' is turned away instead of queueing up on the threads and connections the other
+ * workloads need. maxConcurrent 0 means no limit (only counted).
+ */
+final class Bulkhead {
+
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final long maxWaitNanos;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    Bulkhead(int maxConcurrent, Duration maxWait) {
+        this.permits = maxConcurrent > 0 ? new Semaphore(maxConcurrent) : null;
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+    // true when the caller may run; it must then call release() once done
+    boolean tryAcquire() throws InterruptedException {
+        if (permits != null && !permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+            rejected.increment();
+            return false;
+        }
+        active.incrementAndGet();
+        return true;
+    }
+
+    void release() {
+        active.decrementAndGet();
+        if (permits != null) {
+            permits.release();
+        }
+    }
+
+    int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    int getActive() {
+        return active.get();
+    }
+
+    long getRejected() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,158 @@
+package com.url.shortner.bulkhead;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Sorts every request into a Workload and runs it inside that workload's bulkhead.
+ * 1. The workload is set for the request thread, so the connections the request takes come from
+ *    the workload's own pool (see RoutingDataSourceConfig).
+ * 2. At most 'max-concurrent' requests of a workload run at once. A request that waits longer than
+ *    'max-wait' for its turn gets a 503 with Retry-After, so a burst of slow analytics queries
+ *    ties up a bounded number of server threads and connections, never the redirects' ones.
+ * 3. Exports run as analytics but have their own bulkhead, 'export', so a few long exports can't
+ *    take every analytics slot. They stream on Spring MVC's async executor after the request thread
+ *    has returned: a request that went async keeps its permit until the async processing completes
+ *    (it holds its connection until then too), and ClickExporter sets the workload on the async thread.
+ * Keep analytics + export max-concurrent at most the analytics pool size: a request over it would
+ * pass the bulkhead only to wait for a connection.
+ * Runs in the security chain right after RateLimitFilter (see WebSecurityConfig), so rate-limited
+ * requests never take a permit, and before the rest of the chain, so everything after it runs with
+ * the request's workload set.
+ */
+@Component
+public class BulkheadFilter extends OncePerRequestFilter implements MeterBinder {
+
+    private final Map<Workload, Bulkhead> bulkheads = new EnumMap<>(Workload.class);
+    private final Bulkhead exportBulkhead;
+
+    public BulkheadFilter(@Value("${shortner.bulkhead.redirect.max-concurrent:0}") int redirectMaxConcurrent,
+                          @Value("${shortner.bulkhead.redirect.max-wait:0s}") Duration redirectMaxWait,
+                          @Value("${shortner.bulkhead.links.max-concurrent:0}") int linksMaxConcurrent,
+                          @Value("${shortner.bulkhead.links.max-wait:0s}") Duration linksMaxWait,
+                          @Value("${shortner.bulkhead.analytics.max-concurrent:4}") int analyticsMaxConcurrent,
+                          @Value("${shortner.bulkhead.analytics.max-wait:2s}") Duration analyticsMaxWait,
+                          @Value("${shortner.bulkhead.export.max-concurrent:2}") int exportMaxConcurrent,
+                          @Value("${shortner.bulkhead.export.max-wait:0s}") Duration exportMaxWait) {
+        bulkheads.put(Workload.REDIRECT, new Bulkhead(redirectMaxConcurrent, redirectMaxWait));
+        bulkheads.put(Workload.LINKS, new Bulkhead(linksMaxConcurrent, linksMaxWait));
+        bulkheads.put(Workload.ANALYTICS, new Bulkhead(analyticsMaxConcurrent, analyticsMaxWait));
+        exportBulkhead = new Bulkhead(exportMaxConcurrent, exportMaxWait);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Workload workload = workloadOf(request);
+        Bulkhead bulkhead = isExport(request) ? exportBulkhead : bulkheads.get(workload);
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            return;
+        }
+
+        Workload previous = workload.enter();
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                // Still running on another thread: released once that completes (see 3.)
+                request.getAsyncContext().addListener(new ReleaseOnComplete(bulkhead));
+                async = true;
+            }
+        } finally {
+            Workload.restore(previous);
+            if (!async) {
+                bulkhead.release();
+            }
+        }
+    }
+
+    static boolean isExport(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/api/urls/export");
+    }
+
+    static Workload workloadOf(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        // A single path segment, e.g. /aBcD1234 (what the "/{shortUrl}" mapping accepts)
+        if ("GET".equals(request.getMethod()) && path.length() > 1 && path.indexOf('/', 1) < 0) {
+            return Workload.REDIRECT;
+        }
+        if (path.startsWith("/api/urls/analytics/")
+                || path.equals("/api/urls/totalClicks")
+                || path.equals("/api/urls/totalVisitors")
+                || path.startsWith("/api/urls/export")
+                || path.equals("/api/admin/rollup/backfill")) {
+            return Workload.ANALYTICS;
+        }
+        return Workload.LINKS;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bulkheads.forEach((workload, bulkhead) -> bind(registry, workload.getKey(), bulkhead));
+        bind(registry, "export", exportBulkhead);
+    }
+
+    private static void bind(MeterRegistry registry, String workload, Bulkhead bulkhead) {
+        Gauge.builder("shortner.bulkhead.active", bulkhead, Bulkhead::getActive)
+                .description("Requests of the workload currently running")
+                .tag("workload", workload)
+                .register(registry);
+        if (bulkhead.getMaxConcurrent() > 0) {
+            Gauge.builder("shortner.bulkhead.limit", bulkhead, Bulkhead::getMaxConcurrent)
+                    .description("Requests of the workload allowed to run at once")
+                    .tag("workload", workload)
+                    .register(registry);
+        }
+        FunctionCounter.builder("shortner.bulkhead.rejected", bulkhead, Bulkhead::getRejected)
+                .description("Requests turned away with 503 because the workload was saturated")
+                .tag("workload", workload)
+                .register(registry);
+    }
+
+    // Called on complete, and also after a timeout or an error, which both end in complete
+    private record ReleaseOnComplete(Bulkhead bulkhead) implements AsyncListener {
+        @Override
+        public void onComplete(AsyncEvent event) {
+            bulkhead.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
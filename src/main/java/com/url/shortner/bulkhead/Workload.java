@@ -0,0 +1,69 @@
+package com.url.shortner.bulkhead;
+
+import java.util.function.Supplier;
+
+/**
+ * The kinds of work that get their own connection pool (see RoutingDataSourceConfig) and their own
+ * concurrency limit (BulkheadFilter), so that one of them running hot can't starve the others.
+ * - REDIRECT: redirect lookups and click recording (the click writer and the counter flushes).
+ * - LINKS: everything else, i.e. link management, login and the background jobs. The default.
+ * - ANALYTICS: the analytics and export endpoints and the rollup rebuilds, the long-running scans.
+ * The workload of the current thread decides which pool a new connection comes from.
+ */
+public enum Workload {
+
+    REDIRECT("redirect"),
+    LINKS("links"),
+    ANALYTICS("analytics");
+
+    private static final ThreadLocal<Workload> CURRENT = new ThreadLocal<>();
+
+    private final String key;
+
+    Workload(String key) {
+        this.key = key;
+    }
+
+    // Used in property names, pool names and metric tags
+    public String getKey() {
+        return key;
+    }
+
+    public static Workload current() {
+        Workload workload = CURRENT.get();
+        return workload == null ? LINKS : workload;
+    }
+
+    // Runs 'work' as this workload. A transaction that is already running keeps its connection,
+    // so call this outside of one.
+    public <T> T call(Supplier<T> work) {
+        Workload previous = enter();
+        try {
+            return work.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    public void run(Runnable work) {
+        call(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    // Makes this the current workload and returns the one it replaces (null = none), for restore()
+    Workload enter() {
+        Workload previous = CURRENT.get();
+        CURRENT.set(this);
+        return previous;
+    }
+
+    static void restore(Workload previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
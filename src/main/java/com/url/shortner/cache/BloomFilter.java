@@ -0,0 +1,102 @@
+package com.url.shortner.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size Bloom filter over strings: no false negatives, false positives at about 'fpp'
+ * as long as no more than 'capacity' values are added.
+ * - Sized the standard way: m = -n ln(p) / ln(2)^2 bits and k = m/n ln(2) hash functions.
+ * - The k bit positions come from two 64-bit hashes (h1 + i * h2, Kirsch and Mitzenmacher),
+ *   so a lookup hashes the string once.
+ * - Bits live in an AtomicLongArray: lookups are lock-free and safe against concurrent adds.
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final long capacity;
+    private final AtomicLong inserted = new AtomicLong();
+
+    private BloomFilter(long bitCount, int hashCount, long capacity) {
+        this.words = new AtomicLongArray((int) ((bitCount + 63) / 64));
+        this.bitCount = bitCount;
+        this.hashCount = hashCount;
+        this.capacity = capacity;
+    }
+
+    public static BloomFilter create(long capacity, double fpp) {
+        long bits = Math.max(64, (long) Math.ceil(-capacity * Math.log(fpp) / (Math.log(2) * Math.log(2))));
+        int hashes = Math.max(1, (int) Math.round((double) bits / capacity * Math.log(2)));
+        return new BloomFilter(bits, hashes, capacity);
+    }
+
+    public void put(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 + 0x9e3779b97f4a7c15L);
+        boolean changed = false;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bitCount;
+            long mask = 1L << bit;
+            long previous = words.getAndAccumulate((int) (bit >>> 6), mask, (word, m) -> word | m);
+            changed |= (previous & mask) == 0;
+        }
+        // Like Guava, count only values that set a new bit: re-adding a code doesn't use up capacity
+        if (changed) {
+            inserted.incrementAndGet();
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 + 0x9e3779b97f4a7c15L);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bitCount;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // False positive probability implied by the bits set so far: (set bits / all bits)^k
+    public double expectedFpp() {
+        long set = 0;
+        for (int i = 0; i < words.length(); i++) {
+            set += Long.bitCount(words.get(i));
+        }
+        return Math.pow((double) set / bitCount, hashCount);
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    // Approximate number of distinct values added
+    public long getInserted() {
+        return inserted.get();
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    // FNV-1a over the chars (short codes are ASCII), then a MurmurHash3 finalizer to spread the bits
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
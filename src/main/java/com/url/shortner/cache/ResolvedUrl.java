@@ -0,0 +1,11 @@
+package com.url.shortner.cache;
+
+/**
+ * The minimal, immutable view of a UrlMapping that the redirect path needs.
+ * We cache this instead of the JPA entity so cached values can be shared safely
+ * between request threads and never drag the User/ClickEvent graph along.
+ * 'originalUrl' is always the canonical absolute URL (see UrlNormalizer), ready to be
+ * used as the Location header value without further processing.
+ */
+public record ResolvedUrl(Long id, String shortUrl, String originalUrl, Long userId) {
+}
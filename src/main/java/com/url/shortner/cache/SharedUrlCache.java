@@ -0,0 +1,216 @@
+package com.url.shortner.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional second cache tier shared by all instances (Redis or anything speaking its protocol),
+ * between each instance's UrlResolutionCache (the near cache) and the database. A freshly started
+ * instance then fills its near cache from here instead of from url_mapping.
+ * 1. Holds known codes only, for 'ttl'. A mapping never changes once created, so an entry can't go
+ *    stale; unknown codes are already kept away by the Bloom filter and the near cache.
+ * 2. A new code is still unknown to the other instances: their Bloom filters only learn it at
+ *    their next sync, and it may sit in their near caches as "unknown" (negative entry). Codes
+ *    created here are published on 'channel', and every other instance adds them to its filter and
+ *    drops them from its near cache, so they resolve everywhere right away instead of after the
+ *    sync interval or the negative TTL.
+ * 3. Any error (tier down, timeout) is logged once and the tier is skipped for 'retryAfter': the
+ *    redirect falls back to the database and only pays the (short) command timeout once.
+ *    Messages published while an instance is disconnected are lost; the negative TTL bounds that.
+ * Disabled by default: nothing connects to Redis then.
+ */
+@Slf4j
+@Component
+public class SharedUrlCache implements SmartLifecycle {
+
+    private final RedisConnectionFactory connectionFactory;
+    private final StringRedisTemplate redis;
+    private final UrlResolutionCache nearCache;
+    private final ShortCodeFilter shortCodeFilter;
+    private final boolean enabled;
+    private final Duration ttl;
+    private final String keyPrefix;
+    private final ChannelTopic channel;
+    private final long retryAfterNanos;
+    // Lets an instance skip its own messages
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    private volatile long unavailableUntil = System.nanoTime();
+    private volatile boolean down;
+    private RedisMessageListenerContainer listenerContainer;
+    private volatile boolean running;
+
+    public SharedUrlCache(RedisConnectionFactory connectionFactory,
+                          UrlResolutionCache nearCache,
+                          ShortCodeFilter shortCodeFilter,
+                          @Value("${shortner.cache.shared.enabled:false}") boolean enabled,
+                          @Value("${shortner.cache.shared.ttl:1h}") Duration ttl,
+                          @Value("${shortner.cache.shared.key-prefix:shortner:url:}") String keyPrefix,
+                          @Value("${shortner.cache.shared.channel:shortner:url-created}") String channel,
+                          @Value("${shortner.cache.shared.retry-after:30s}") Duration retryAfter) {
+        this.connectionFactory = connectionFactory;
+        this.redis = new StringRedisTemplate(connectionFactory);
+        this.nearCache = nearCache;
+        this.shortCodeFilter = shortCodeFilter;
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.keyPrefix = keyPrefix;
+        this.channel = new ChannelTopic(channel);
+        this.retryAfterNanos = retryAfter.toNanos();
+    }
+
+    // The resolution another instance (or this one) stored, or null when the tier doesn't have it,
+    // is disabled or is down: the caller then reads the database.
+    public ResolvedUrl get(String shortUrl) {
+        if (!available()) {
+            return null;
+        }
+        try {
+            String value = redis.opsForValue().get(keyPrefix + shortUrl);
+            if (value == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            recovered();
+            return decode(shortUrl, value);
+        } catch (DataAccessException e) {
+            failed(e);
+            return null;
+        }
+    }
+
+    public void put(ResolvedUrl resolvedUrl) {
+        if (!available()) {
+            return;
+        }
+        try {
+            redis.opsForValue().set(keyPrefix + resolvedUrl.shortUrl(), encode(resolvedUrl), ttl);
+            recovered();
+        } catch (DataAccessException e) {
+            failed(e);
+        }
+    }
+
+    // Tells the other instances about codes created here (see 2.). Call after the rows are committed.
+    public void publishCreated(Collection<String> shortUrls) {
+        if (shortUrls.isEmpty() || !available()) {
+            return;
+        }
+        try {
+            redis.convertAndSend(channel.getTopic(), instanceId + " " + String.join(" ", shortUrls));
+        } catch (DataAccessException e) {
+            failed(e);
+        }
+    }
+
+    void onMessage(Message message) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(" ");
+        if (parts.length < 2 || parts[0].equals(instanceId)) {
+            return;
+        }
+        for (int i = 1; i < parts.length; i++) {
+            // Filter first: a redirect between the two steps must not get a 404 from it
+            shortCodeFilter.put(parts[i]);
+            nearCache.invalidate(parts[i]);
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public void start() {
+        if (enabled) {
+            // Subscribes in the background and keeps retrying while the tier is down
+            listenerContainer = new RedisMessageListenerContainer();
+            listenerContainer.setConnectionFactory(connectionFactory);
+            listenerContainer.addMessageListener((message, pattern) -> onMessage(message), channel);
+            listenerContainer.afterPropertiesSet();
+            try {
+                listenerContainer.start();
+            } catch (RuntimeException e) {
+                log.warn("Could not subscribe to {} yet, will keep retrying: {}", channel.getTopic(), e.getMessage());
+            }
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listenerContainer != null) {
+            try {
+                listenerContainer.destroy();
+            } catch (Exception e) {
+                log.warn("Failed to stop the shared cache subscription", e);
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private boolean available() {
+        return enabled && System.nanoTime() - unavailableUntil >= 0;
+    }
+
+    private void failed(DataAccessException e) {
+        errors.increment();
+        unavailableUntil = System.nanoTime() + retryAfterNanos;
+        if (!down) {
+            down = true;
+            log.warn("Shared URL cache unavailable, using the database for the next {}s: {}",
+                    Duration.ofNanos(retryAfterNanos).toSeconds(), e.getMessage());
+        }
+    }
+
+    private void recovered() {
+        if (down) {
+            down = false;
+            log.info("Shared URL cache available again");
+        }
+    }
+
+    // id, user id (empty when none) and the destination, tab-separated: a canonical URL has no tabs
+    static String encode(ResolvedUrl resolvedUrl) {
+        return resolvedUrl.id() + "\t" + (resolvedUrl.userId() == null ? "" : resolvedUrl.userId()) + "\t" + resolvedUrl.originalUrl();
+    }
+
+    static ResolvedUrl decode(String shortUrl, String value) {
+        int first = value.indexOf('\t');
+        int second = value.indexOf('\t', first + 1);
+        String userId = value.substring(first + 1, second);
+        return new ResolvedUrl(Long.valueOf(value.substring(0, first)), shortUrl, value.substring(second + 1),
+                userId.isEmpty() ? null : Long.valueOf(userId));
+    }
+}
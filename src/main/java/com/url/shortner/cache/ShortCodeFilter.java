@@ -0,0 +1,201 @@
+package com.url.shortner.cache;
+
+import com.url.shortner.dtos.ShortCodeFilterStatsDTO;
+import com.url.shortner.repository.UrlMappingJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bloom filter over every existing short code, consulted by the redirect before anything else:
+ * a code the filter has never seen gets a 404 without a cache entry or a database query, which is
+ * what scanner and typo traffic mostly consists of.
+ * 1. Built from url_mapping on a thread of its own once the application is up. Until then, or when
+ *    the build fails, every code "might" exist.
+ * 2. Codes created on this instance are added before their row is inserted, so they are never
+ *    missing, even while their transaction is still open.
+ * 3. Every 'syncInterval' the codes created since the last sync are added, so links created on
+ *    other instances resolve after at most one interval. A row becomes visible when its transaction
+ *    commits, which can be well after its created_date, so each sync re-reads 'syncOverlap' (short
+ *    transactions and clock skew) plus the bulk transaction timeout: a bulk insert of up to
+ *    shortner.bulk.max-urls rows commits at most that long after its created_date, or not at all.
+ * 4. Once more codes were added than the filter was sized for, it is rebuilt at twice the size.
+ * Links are never deleted, so a rebuild is only needed to resize.
+ */
+@Slf4j
+@Component
+public class ShortCodeFilter {
+
+    private final UrlMappingJdbcRepository urlMappingJdbcRepository;
+    private final boolean enabled;
+    private final long expectedCodes;
+    private final double fpp;
+    private final Duration syncOverlap;
+    private final boolean virtualThreads;
+
+    // null until the first build finished
+    private volatile BloomFilter filter;
+    // The filter being built; codes created meanwhile go into both
+    private volatile BloomFilter building;
+    // Serializes builds and syncs. A ReentrantLock because both do JDBC while holding it.
+    private final ReentrantLock lock = new ReentrantLock();
+    // Only touched while holding 'lock'
+    private LocalDateTime syncedUntil;
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public ShortCodeFilter(UrlMappingJdbcRepository urlMappingJdbcRepository,
+                           @Value("${shortner.cache.bloom.enabled:true}") boolean enabled,
+                           @Value("${shortner.cache.bloom.expected-codes:1000000}") long expectedCodes,
+                           @Value("${shortner.cache.bloom.fpp:0.01}") double fpp,
+                           @Value("${shortner.cache.bloom.sync-overlap:1m}") Duration syncOverlap,
+                           @Value("${shortner.bulk.transaction-timeout-seconds:60}") long bulkTransactionTimeoutSeconds,
+                           @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.urlMappingJdbcRepository = urlMappingJdbcRepository;
+        this.enabled = enabled;
+        this.expectedCodes = expectedCodes;
+        this.fpp = fpp;
+        this.syncOverlap = syncOverlap.plusSeconds(bulkTransactionTimeoutSeconds);
+        this.virtualThreads = virtualThreads;
+    }
+
+    // Called on the redirect path: a few memory reads, no locks. false means the code certainly doesn't exist.
+    public boolean mightContain(String shortUrl) {
+        BloomFilter current = filter;
+        if (!enabled || current == null) {
+            return true;
+        }
+        checks.increment();
+        if (current.mightContain(shortUrl)) {
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    // Must be called before the mapping is inserted
+    public void put(String shortUrl) {
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(shortUrl);
+        }
+        BloomFilter next = building;
+        if (next != null) {
+            next.put(shortUrl);
+        }
+    }
+
+    // The filter let a code through that the database doesn't have
+    public void recordFalsePositive() {
+        if (enabled && filter != null) {
+            falsePositives.increment();
+        }
+    }
+
+    // Builds the filter on its own thread, so a scan of every short code neither delays the other
+    // ready listeners nor, when it fails, the application's start.
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        // Follows the application's threading mode, like the click writer
+        Thread.Builder builder = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon(true);
+        builder.name("short-code-filter-build").start(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                log.error("Failed to build the short code filter, redirects skip it until POST /api/admin/bloom/rebuild", e);
+            }
+        });
+    }
+
+    // Builds a new filter from url_mapping, sized for twice the current number of codes
+    // (at least 'expectedCodes'), and swaps it in. Redirects keep using the old one meanwhile.
+    public void rebuild() {
+        lock.lock();
+        try {
+            LocalDateTime started = LocalDateTime.now();
+            long capacity = Math.max(expectedCodes, 2 * urlMappingJdbcRepository.countShortUrls());
+            BloomFilter next = BloomFilter.create(capacity, fpp);
+            building = next;
+            urlMappingJdbcRepository.forEachShortUrl(null, next::put);
+            filter = next;
+            building = null;
+            // The next sync re-reads what the scan may have missed
+            syncedUntil = started;
+            log.info("Short code filter built: {} codes, sized for {}", next.getInserted(), capacity);
+        } catch (RuntimeException e) {
+            building = null;
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shortner.cache.bloom.sync-interval:5s}")
+    public void sync() {
+        if (!enabled || filter == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            LocalDateTime started = LocalDateTime.now();
+            urlMappingJdbcRepository.forEachShortUrl(syncedUntil.minus(syncOverlap), this::put);
+            syncedUntil = started;
+            BloomFilter current = filter;
+            if (current.getInserted() > current.getCapacity()) {
+                log.info("Short code filter holds {} codes, more than the {} it was sized for; rebuilding",
+                        current.getInserted(), current.getCapacity());
+                rebuild();
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to sync the short code filter", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getChecks() {
+        return checks.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getFalsePositives() {
+        return falsePositives.sum();
+    }
+
+    public ShortCodeFilterStatsDTO stats() {
+        ShortCodeFilterStatsDTO stats = new ShortCodeFilterStatsDTO();
+        BloomFilter current = filter;
+        stats.setReady(enabled && current != null);
+        if (current != null) {
+            stats.setCodes(current.getInserted());
+            stats.setCapacity(current.getCapacity());
+            stats.setBits(current.getBitCount());
+            stats.setExpectedFpp(current.expectedFpp());
+        }
+        long rejectedCount = rejected.sum();
+        long falsePositiveCount = falsePositives.sum();
+        stats.setChecks(checks.sum());
+        stats.setRejected(rejectedCount);
+        stats.setFalsePositives(falsePositiveCount);
+        // Share of lookups for unknown codes that still reached the database
+        long unknown = rejectedCount + falsePositiveCount;
+        stats.setObservedFpp(unknown == 0 ? 0 : (double) falsePositiveCount / unknown);
+        return stats;
+    }
+}
@@ -0,0 +1,109 @@
+package com.url.shortner.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * In-process cache of shortUrl -> resolved destination used by the redirect path.
+ * - Bounded by entry count (W-TinyLFU eviction), so a scan of random codes can't blow the heap.
+ * - Known codes live for 'ttl', unknown codes are cached as Optional.empty() for the
+ *   (much shorter) 'negativeTtl' so typo/scanner traffic doesn't hit the database every time.
+ * - Concurrent misses for the same code are collapsed into a single loader call.
+ *   The loader runs outside of any map lock (other callers wait on its CompletableFuture),
+ *   so a slow DB lookup never pins a carrier thread when running on virtual threads.
+ */
+@Component
+public class UrlResolutionCache {
+
+    private final AsyncCache<String, Optional<ResolvedUrl>> cache;
+
+    public UrlResolutionCache(@Value("${shortner.cache.resolution.max-size:100000}") long maxSize,
+                              @Value("${shortner.cache.resolution.ttl:10m}") Duration ttl,
+                              @Value("${shortner.cache.resolution.negative-ttl:30s}") Duration negativeTtl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new ResolutionExpiry(ttl.toNanos(), negativeTtl.toNanos()))
+                .recordStats()
+                .buildAsync();
+    }
+
+    // Returns the cached resolution, calling the loader (at most once per key at a time) on a miss.
+    public Optional<ResolvedUrl> get(String shortUrl, Function<String, Optional<ResolvedUrl>> loader) {
+        // 1. Hit (or a load already in flight): records a hit in the stats
+        CompletableFuture<Optional<ResolvedUrl>> cached = cache.getIfPresent(shortUrl);
+        if (cached == null) {
+            // 2. Miss: publish our own future first, then load on this thread without holding a lock
+            CompletableFuture<Optional<ResolvedUrl>> loading = new CompletableFuture<>();
+            cached = cache.asMap().putIfAbsent(shortUrl, loading);
+            if (cached == null) {
+                return load(shortUrl, loader, loading);
+            }
+        }
+        try {
+            return cached.join();
+        } catch (CompletionException e) {
+            // The other caller's load failed; it has already removed its future, so try ourselves
+            return get(shortUrl, loader);
+        }
+    }
+
+    private Optional<ResolvedUrl> load(String shortUrl, Function<String, Optional<ResolvedUrl>> loader,
+                                       CompletableFuture<Optional<ResolvedUrl>> loading) {
+        try {
+            Optional<ResolvedUrl> value = loader.apply(shortUrl);
+            loading.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            cache.asMap().remove(shortUrl, loading);
+            loading.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // Populates the cache eagerly, e.g. right after a new mapping is created.
+    // This also replaces any negative entry left behind by an earlier lookup of the same code.
+    public void put(ResolvedUrl resolvedUrl) {
+        cache.put(resolvedUrl.shortUrl(), CompletableFuture.completedFuture(Optional.of(resolvedUrl)));
+    }
+
+    public void invalidate(String shortUrl) {
+        cache.synchronous().invalidate(shortUrl);
+    }
+
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    public long estimatedSize() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    // Positive and negative entries expire on different schedules.
+    private record ResolutionExpiry(long ttlNanos, long negativeTtlNanos) implements Expiry<String, Optional<ResolvedUrl>> {
+
+        @Override
+        public long expireAfterCreate(String key, Optional<ResolvedUrl> value, long currentTime) {
+            return value.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Optional<ResolvedUrl> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Optional<ResolvedUrl> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.url.shortner.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.url.shortner.models.User;
+import com.url.shortner.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * username -> User, shared by UserService (API calls) and UserDetailsServiceImpl (login).
+ * - Bounded by entry count and by 'ttl', which also caps how long another instance can serve
+ *   a user that was changed elsewhere. Changes made through this instance evict immediately.
+ * - Unknown usernames are not cached, so a user who registers is found on the next call.
+ * - No single-flight: two concurrent misses both query the database, which is harmless here
+ *   and keeps the load outside of any cache lock (no carrier pinning on virtual threads).
+ * Cached users are shared between requests and must be treated as read-only.
+ */
+@Component
+public class UserCache {
+
+    private final UserRepository userRepository;
+    private final Cache<String, User> cache;
+
+    public UserCache(UserRepository userRepository,
+                     @Value("${shortner.cache.users.max-size:10000}") long maxSize,
+                     @Value("${shortner.cache.users.ttl:5m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public Optional<User> findByUsername(String username) {
+        User user = cache.getIfPresent(username);
+        if (user == null) {
+            Optional<User> loaded = userRepository.findByUsername(username);
+            loaded.ifPresent(u -> cache.put(username, u));
+            return loaded;
+        }
+        return Optional.of(user);
+    }
+
+    // Must be called after any change to a user (or its creation) is saved
+    public void invalidate(String username) {
+        cache.invalidate(username);
+    }
+}
@@ -0,0 +1,144 @@
+package com.url.shortner.clicks;
+
+import com.url.shortner.bulkhead.Workload;
+import com.url.shortner.repository.UrlMappingJdbcRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory click counters, one per UrlMapping, flushed to url_mapping.click_count as deltas.
+ * - Each counter is a LongAdder, which stripes increments over per-CPU cells, so thousands of
+ *   concurrent clicks on one viral link don't contend on a single CAS.
+ * - Counters are cumulative and never reset: a flush writes 'sum - flushed' and only advances
+ *   'flushed' once the UPDATE committed. An increment that races with a flush simply shows up in
+ *   the next delta, and a failed flush is retried, so no click is lost or counted twice.
+ * - A counter idle for 'idleFlushes' consecutive flushes is removed from the map, then flushed
+ *   once more on the following cycle to pick up any increment that was still in flight.
+ */
+@Slf4j
+@Component
+public class ClickCounters {
+
+    private final UrlMappingJdbcRepository urlMappingJdbcRepository;
+    private final int idleFlushes;
+
+    private final ConcurrentHashMap<Long, Counter> counters = new ConcurrentHashMap<>();
+    // Serializes flushes. A ReentrantLock rather than 'synchronized' because the flush does JDBC
+    // while holding it, which would pin the carrier thread when running on virtual threads.
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // Only touched while holding flushLock
+    private List<Map.Entry<Long, Counter>> retired = new ArrayList<>();
+
+    public ClickCounters(UrlMappingJdbcRepository urlMappingJdbcRepository,
+                         @Value("${shortner.clicks.counter-idle-flushes:3}") int idleFlushes) {
+        this.urlMappingJdbcRepository = urlMappingJdbcRepository;
+        this.idleFlushes = idleFlushes;
+    }
+
+    // Called on the redirect path: a map lookup plus a striped add, no locks and no DB access.
+    public void increment(Long urlMappingId) {
+        Counter counter = counters.get(urlMappingId);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(urlMappingId, id -> new Counter());
+        }
+        counter.adder.increment();
+    }
+
+    // Clicks counted in memory but not yet written to the database.
+    public long getPendingClicks() {
+        long pending = 0;
+        for (Counter counter : counters.values()) {
+            pending += counter.adder.sum() - counter.flushed;
+        }
+        return pending;
+    }
+
+    public int getTrackedLinks() {
+        return counters.size();
+    }
+
+    @Scheduled(fixedDelayString = "${shortner.clicks.counter-flush-interval:5s}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            // Click recording: on the redirect workload's pool, like the click writer
+            Workload.REDIRECT.run(this::flushLocked);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushLocked() {
+        Map<Long, Long> deltas = new HashMap<>();
+        Map<Counter, Long> observed = new HashMap<>();
+
+        // 1. Counters retired on the previous cycle get one last look, then are dropped
+        List<Map.Entry<Long, Counter>> lastLook = retired;
+        retired = new ArrayList<>();
+        for (Map.Entry<Long, Counter> entry : lastLook) {
+            collect(entry.getKey(), entry.getValue(), deltas, observed);
+        }
+
+        // 2. Live counters: collect deltas, retire the ones that stayed idle long enough
+        for (Map.Entry<Long, Counter> entry : counters.entrySet()) {
+            Counter counter = entry.getValue();
+            if (!collect(entry.getKey(), counter, deltas, observed) && ++counter.idleFlushes >= idleFlushes
+                    && counters.remove(entry.getKey(), counter)) {
+                retired.add(Map.entry(entry.getKey(), counter));
+            }
+        }
+
+        if (deltas.isEmpty()) {
+            return;
+        }
+        try {
+            urlMappingJdbcRepository.addClickCounts(deltas);
+            observed.forEach((counter, sum) -> counter.flushed = sum);
+        } catch (RuntimeException e) {
+            // 'flushed' is untouched, so the same deltas (plus new clicks) are retried next cycle.
+            // A retired counter that failed goes back to the retired list instead of being lost.
+            for (Map.Entry<Long, Counter> entry : lastLook) {
+                if (observed.containsKey(entry.getValue())) {
+                    retired.add(entry);
+                }
+            }
+            log.error("Failed to flush click counts for {} links", deltas.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+        flush();
+    }
+
+    private boolean collect(Long urlMappingId, Counter counter, Map<Long, Long> deltas, Map<Counter, Long> observed) {
+        long sum = counter.adder.sum();
+        long delta = sum - counter.flushed;
+        if (delta == 0) {
+            return false;
+        }
+        counter.idleFlushes = 0;
+        deltas.merge(urlMappingId, delta, Long::sum);
+        observed.put(counter, sum);
+        return true;
+    }
+
+    private static final class Counter {
+        final LongAdder adder = new LongAdder();
+        // Written by the flushing thread only
+        volatile long flushed;
+        int idleFlushes;
+    }
+}
@@ -0,0 +1,98 @@
+package com.url.shortner.clicks;
+
+import com.url.shortner.repository.ClickPartitionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Keeps the monthly partitions of click_event ahead of time and applies the retention policy.
+ * 1. Makes sure the current month and the next 'monthsAhead' months have a partition,
+ *    so inserts never depend on this job having run recently.
+ * 2. With 'retentionMonths' > 0, drops every partition older than that many months before the
+ *    current one. Per-day totals of dropped months stay available in daily_click_rollup.
+ * Runs on startup and daily on every instance; a named database lock lets one of them do the work
+ * at a time, and the others find the partitions in place. A failure is logged and the next run
+ * tries again. Only enabled once click_event was converted (see docs/click-partitioning.md).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shortner.clicks.partitioning.enabled", havingValue = "true")
+public class ClickPartitionManager {
+
+    private final ClickPartitionRepository clickPartitionRepository;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    public ClickPartitionManager(ClickPartitionRepository clickPartitionRepository,
+                                 @Value("${shortner.clicks.partitioning.months-ahead:3}") int monthsAhead,
+                                 @Value("${shortner.clicks.partitioning.retention-months:0}") int retentionMonths) {
+        this.clickPartitionRepository = clickPartitionRepository;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void maintainOnStartup() {
+        maintainLogged();
+    }
+
+    @Scheduled(cron = "${shortner.clicks.partitioning.cron:0 30 0 * * *}")
+    public void maintainDaily() {
+        maintainLogged();
+    }
+
+    private void maintainLogged() {
+        try {
+            maintain(YearMonth.now());
+        } catch (RuntimeException e) {
+            log.error("Failed to maintain the click_event partitions, the next run tries again", e);
+        }
+    }
+
+    void maintain(YearMonth currentMonth) {
+        if (!clickPartitionRepository.isSupported()) {
+            log.warn("Click partitioning is enabled but only supported on PostgreSQL and MySQL");
+            return;
+        }
+        if (!clickPartitionRepository.withMaintenanceLock(() -> maintainLocked(currentMonth))) {
+            log.info("Another instance is maintaining the click_event partitions");
+        }
+    }
+
+    // Reads the partitions under the lock, so they are what the previous holder left
+    private void maintainLocked(YearMonth currentMonth) {
+        List<YearMonth> existing = clickPartitionRepository.findPartitions();
+        if (existing.isEmpty()) {
+            log.warn("Click partitioning is enabled but click_event has no monthly partitions; "
+                    + "convert the table first (see docs/click-partitioning.md)");
+            return;
+        }
+
+        // 1. Upcoming months, oldest first
+        YearMonth last = existing.get(existing.size() - 1);
+        for (YearMonth month = currentMonth; !month.isAfter(currentMonth.plusMonths(monthsAhead)); month = month.plusMonths(1)) {
+            if (!existing.contains(month) && month.isAfter(last) && clickPartitionRepository.createPartition(month)) {
+                log.info("Created click_event partition for {}", month);
+            }
+        }
+
+        // 2. Retention
+        if (retentionMonths > 0) {
+            YearMonth oldestKept = currentMonth.minusMonths(retentionMonths);
+            for (YearMonth month : existing) {
+                if (month.isBefore(oldestKept)) {
+                    clickPartitionRepository.dropPartition(month);
+                    log.info("Dropped click_event partition for {} (retention {} months)", month, retentionMonths);
+                }
+            }
+        }
+    }
+}
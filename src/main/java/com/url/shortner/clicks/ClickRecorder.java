@@ -0,0 +1,187 @@
+package com.url.shortner.clicks;
+
+import com.url.shortner.analytics.UniqueVisitors;
+import com.url.shortner.bulkhead.Workload;
+import com.url.shortner.repository.ClickEventJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Takes click recording off the redirect path.
+ * 1. The request thread only puts a PendingClick into a bounded queue (no DB access).
+ * 2. A single background writer drains the queue in batches of up to 'batchSize',
+ *    or whatever has accumulated after 'flushInterval', and hands them to the JDBC batch insert.
+ * 3. When the queue is full the configured OverflowPolicy decides what gives.
+ * 4. Once a batch is written, its visitors are merged into the unique-visitor sketches.
+ * Writes run as the REDIRECT workload, on its connection pool, whichever thread does them.
+ * Started before and stopped after the web server (see SMART_LIFECYCLE_PHASE), so clicks of
+ * redirects that finish during a graceful shutdown still make it into the final flush.
+ */
+@Slf4j
+@Component
+public class ClickRecorder implements SmartLifecycle {
+
+    // Below the web server's phases (graceful shutdown at DEFAULT_PHASE - 1024, start/stop at
+    // DEFAULT_PHASE - 2048): lifecycles stop in descending phase order
+    public static final int SMART_LIFECYCLE_PHASE = SmartLifecycle.DEFAULT_PHASE - 2048 - 1;
+
+    private final ClickEventJdbcRepository clickEventJdbcRepository;
+    private final UniqueVisitors uniqueVisitors;
+    private final BlockingQueue<PendingClick> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final boolean virtualThreads;
+
+    private final AtomicLong droppedClicks = new AtomicLong();
+    private final AtomicLong failedClicks = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public ClickRecorder(ClickEventJdbcRepository clickEventJdbcRepository,
+                         UniqueVisitors uniqueVisitors,
+                         @Value("${shortner.clicks.queue-capacity:100000}") int queueCapacity,
+                         @Value("${shortner.clicks.batch-size:500}") int batchSize,
+                         @Value("${shortner.clicks.flush-interval:1s}") Duration flushInterval,
+                         @Value("${shortner.clicks.overflow-policy:DROP_NEWEST}") OverflowPolicy overflowPolicy,
+                         @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.clickEventJdbcRepository = clickEventJdbcRepository;
+        this.uniqueVisitors = uniqueVisitors;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.overflowPolicy = overflowPolicy;
+        this.virtualThreads = virtualThreads;
+    }
+
+    // Called on the redirect path: never blocks, and only touches the DB under CALLER_RUNS.
+    public void record(Long urlMappingId, LocalDateTime clickDate, Long visitorHash) {
+        PendingClick click = new PendingClick(urlMappingId, clickDate, visitorHash);
+        if (queue.offer(click)) {
+            return;
+        }
+        switch (overflowPolicy) {
+            case DROP_NEWEST -> droppedClicks.incrementAndGet();
+            case DROP_OLDEST -> {
+                if (queue.poll() != null) {
+                    droppedClicks.incrementAndGet();
+                }
+                if (!queue.offer(click)) {
+                    droppedClicks.incrementAndGet();
+                }
+            }
+            case CALLER_RUNS -> write(List.of(click));
+        }
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public long getDroppedClicks() {
+        return droppedClicks.get();
+    }
+
+    public long getFailedClicks() {
+        return failedClicks.get();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        // Follows the application's threading mode: the writer mostly waits on the queue and on JDBC,
+        // which is exactly what virtual threads are cheap at
+        Thread.Builder builder = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon(true);
+        writer = builder.name("click-recorder").start(this::drainLoop);
+    }
+
+    // Stops accepting new batches and flushes whatever is still queued before the DataSource goes away.
+    @Override
+    public void stop() {
+        running = false;
+        if (writer != null) {
+            try {
+                writer.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + 10_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return SMART_LIFECYCLE_PHASE;
+    }
+
+    private void drainLoop() {
+        List<PendingClick> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    // Waits up to one flush interval for the batch to fill; returns early once it's full.
+    private void fillBatch(List<PendingClick> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                return;
+            }
+            PendingClick click = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (click != null) {
+                batch.add(click);
+            }
+        }
+    }
+
+    // Writes everything that is currently queued, batch by batch, on the calling thread.
+    void flush() {
+        List<PendingClick> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<PendingClick> batch) {
+        Workload.REDIRECT.run(() -> {
+            try {
+                clickEventJdbcRepository.saveBatch(batch);
+            } catch (RuntimeException e) {
+                failedClicks.addAndGet(batch.size());
+                log.error("Failed to write a batch of {} click events", batch.size(), e);
+                return;
+            }
+            uniqueVisitors.record(batch);
+        });
+    }
+}
@@ -0,0 +1,14 @@
+package com.url.shortner.clicks;
+
+/**
+ * What ClickRecorder does when its in-memory queue is full, i.e. the database
+ * can't keep up with the incoming click rate.
+ */
+public enum OverflowPolicy {
+    // Discard the click that just arrived (redirect latency is never affected)
+    DROP_NEWEST,
+    // Evict the oldest queued click to make room for the new one
+    DROP_OLDEST,
+    // Write the click synchronously on the request thread (no data loss, backpressure on redirects)
+    CALLER_RUNS
+}
@@ -0,0 +1,10 @@
+package com.url.shortner.clicks;
+
+import java.time.LocalDateTime;
+
+/**
+ * A click that has been accepted on the redirect path but not yet written to click_event.
+ * 'visitorHash' is the VisitorKey of whoever clicked, null when visitors aren't counted.
+ */
+public record PendingClick(Long urlMappingId, LocalDateTime clickDate, Long visitorHash) {
+}
@@ -0,0 +1,117 @@
+package com.url.shortner.clicks;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Identifies a visitor for the unique-visitor counts: a 64-bit hash of client IP + User-Agent.
+ * Only the hash is stored (click_event.visitor_hash), never the IP itself.
+ * - Keyed: SipHash-2-4 with a 128-bit key derived from 'shortner.analytics.visitors.secret'. An
+ *   unkeyed hash could be reversed by hashing all IPv4 addresses with the common User-Agents; without
+ *   the secret a stored hash says nothing about the visitor.
+ * - SipHash's output is well mixed, which is what HyperLogLog relies on, and it is cheap enough for
+ *   the redirect path.
+ * - Every instance must use the same secret, and changing it changes every visitor's hash: unique
+ *   counts over a range spanning the change count the visitors of both sides twice.
+ * - With 'shortner.analytics.visitors.enabled=false' no secret is needed: there is no hash and clicks
+ *   are stored without one, like the clicks from before visitors were counted.
+ */
+@Component
+public class VisitorKey {
+
+    private final boolean enabled;
+    private final long k0;
+    private final long k1;
+
+    public VisitorKey(@Value("${shortner.analytics.visitors.enabled:true}") boolean enabled,
+                      @Value("${shortner.analytics.visitors.secret:}") String secret) {
+        this.enabled = enabled;
+        if (!enabled) {
+            this.k0 = 0;
+            this.k1 = 0;
+            return;
+        }
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalArgumentException(
+                    "shortner.analytics.visitors.secret (VISITOR_HASH_SECRET) must be set while visitors are enabled");
+        }
+        byte[] key = sha256(secret);
+        this.k0 = littleEndian(key, 0, 8);
+        this.k1 = littleEndian(key, 8, 8);
+    }
+
+    // null when visitors aren't counted
+    public Long hash(String remoteAddress, String userAgent) {
+        if (!enabled) {
+            return null;
+        }
+        byte[] address = remoteAddress == null ? new byte[0] : remoteAddress.getBytes(StandardCharsets.UTF_8);
+        byte[] agent = userAgent == null ? new byte[0] : userAgent.getBytes(StandardCharsets.UTF_8);
+        // 0xff never occurs in UTF-8, so ("1.2.3.4", "5x") and ("1.2.3.45", "x") don't collide
+        byte[] data = new byte[address.length + 1 + agent.length];
+        System.arraycopy(address, 0, data, 0, address.length);
+        data[address.length] = (byte) 0xff;
+        System.arraycopy(agent, 0, data, address.length + 1, agent.length);
+        return sipHash24(k0, k1, data);
+    }
+
+    // SipHash-2-4 (Aumasson and Bernstein): 2 rounds per 8-byte block, 4 to finalize
+    static long sipHash24(long k0, long k1, byte[] data) {
+        long[] v = {
+                k0 ^ 0x736f6d6570736575L,
+                k1 ^ 0x646f72616e646f6dL,
+                k0 ^ 0x6c7967656e657261L,
+                k1 ^ 0x7465646279746573L
+        };
+        int blocks = data.length & ~7;
+        for (int i = 0; i < blocks; i += 8) {
+            compress(v, littleEndian(data, i, 8), 2);
+        }
+        long last = ((long) data.length << 56) | littleEndian(data, blocks, data.length - blocks);
+        compress(v, last, 2);
+        v[2] ^= 0xff;
+        rounds(v, 4);
+        return v[0] ^ v[1] ^ v[2] ^ v[3];
+    }
+
+    private static void compress(long[] v, long block, int rounds) {
+        v[3] ^= block;
+        rounds(v, rounds);
+        v[0] ^= block;
+    }
+
+    private static void rounds(long[] v, int rounds) {
+        for (int i = 0; i < rounds; i++) {
+            v[0] += v[1];
+            v[1] = Long.rotateLeft(v[1], 13) ^ v[0];
+            v[0] = Long.rotateLeft(v[0], 32);
+            v[2] += v[3];
+            v[3] = Long.rotateLeft(v[3], 16) ^ v[2];
+            v[0] += v[3];
+            v[3] = Long.rotateLeft(v[3], 21) ^ v[0];
+            v[2] += v[1];
+            v[1] = Long.rotateLeft(v[1], 17) ^ v[2];
+            v[2] = Long.rotateLeft(v[2], 32);
+        }
+    }
+
+    private static long littleEndian(byte[] bytes, int offset, int length) {
+        long value = 0;
+        for (int i = length - 1; i >= 0; i--) {
+            value = (value << 8) | (bytes[offset + i] & 0xff);
+        }
+        return value;
+    }
+
+    private static byte[] sha256(String secret) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
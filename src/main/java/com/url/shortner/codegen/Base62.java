@@ -0,0 +1,34 @@
+package com.url.shortner.codegen;
+
+/**
+ * Fixed-width base62 encoding over the alphabet [A-Za-z0-9] used for short codes.
+ */
+public final class Base62 {
+
+    static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789".toCharArray();
+
+    private Base62() {
+    }
+
+    // Largest value (exclusive) that fits in 'width' base62 digits, i.e. 62^width
+    public static long capacity(int width) {
+        long capacity = 1;
+        for (int i = 0; i < width; i++) {
+            capacity = Math.multiplyExact(capacity, ALPHABET.length);
+        }
+        return capacity;
+    }
+
+    // Encodes 'value' as exactly 'width' digits, left-padded with the zero digit ('A')
+    public static String encode(long value, int width) {
+        if (value < 0 || value >= capacity(width)) {
+            throw new IllegalArgumentException("value " + value + " does not fit in " + width + " base62 digits");
+        }
+        char[] digits = new char[width];
+        for (int i = width - 1; i >= 0; i--) {
+            digits[i] = ALPHABET[(int) (value % ALPHABET.length)];
+            value /= ALPHABET.length;
+        }
+        return new String(digits);
+    }
+}
@@ -0,0 +1,24 @@
+package com.url.shortner.codegen;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The original strategy: 8 random base62 characters.
+ * Needs no coordination at all, but uniqueness is only probabilistic;
+ * a duplicate is rejected by the unique index on url_mapping.short_url.
+ */
+@Component
+@ConditionalOnProperty(name = "shortner.codegen.strategy", havingValue = "random")
+public class RandomShortCodeGenerator implements ShortCodeGenerator {
+
+    private static final int CODE_LENGTH = 8;
+    private static final long CODE_SPACE = Base62.capacity(CODE_LENGTH);
+
+    @Override
+    public String nextCode() {
+        return Base62.encode(ThreadLocalRandom.current().nextLong(CODE_SPACE), CODE_LENGTH);
+    }
+}
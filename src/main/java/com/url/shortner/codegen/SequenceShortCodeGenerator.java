@@ -0,0 +1,79 @@
+package com.url.shortner.codegen;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Default strategy: unique codes from a leased block of a global sequence.
+ * 1. Each instance leases 'blockSize' consecutive sequence values at a time
+ *    (one DB round trip per block, not per code).
+ * 2. Every value is mapped through a fixed bijection of [0, 62^8) so consecutive values
+ *    don't produce guessable, consecutive-looking codes.
+ * 3. The result is base62 encoded to 8 characters.
+ * Distinct sequence values always give distinct codes, so there is no collision check and no retry.
+ */
+@Component
+@ConditionalOnProperty(name = "shortner.codegen.strategy", havingValue = "sequence", matchIfMissing = true)
+public class SequenceShortCodeGenerator implements ShortCodeGenerator {
+
+    static final String SEQUENCE_NAME = "url_mapping";
+    private static final int CODE_LENGTH = 8;
+    private static final BigInteger CODE_SPACE = BigInteger.valueOf(Base62.capacity(CODE_LENGTH));
+    // 62^8 = 2^8 * 31^8, so any odd multiplier that isn't a multiple of 31 is invertible modulo 62^8
+    private static final BigInteger MULTIPLIER = BigInteger.valueOf(86_206_207_853_845L);
+    private static final BigInteger OFFSET = BigInteger.valueOf(20_018_936_533_021L);
+
+    private final ShortCodeBlockAllocator blockAllocator;
+    private final int blockSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private long next;
+    private long end;
+
+    public SequenceShortCodeGenerator(ShortCodeBlockAllocator blockAllocator,
+                                      @Value("${shortner.codegen.block-size:1000}") int blockSize) {
+        this.blockAllocator = blockAllocator;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public String nextCode() {
+        return Base62.encode(permute(nextValue()), CODE_LENGTH);
+    }
+
+    private long nextValue() {
+        lock.lock();
+        try {
+            if (next >= end) {
+                next = leaseBlock();
+                end = next + blockSize;
+            }
+            return next++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long leaseBlock() {
+        try {
+            return blockAllocator.leaseBlock(SEQUENCE_NAME, blockSize);
+        } catch (DataIntegrityViolationException e) {
+            // Lost the race to create the sequence row; it exists now
+            return blockAllocator.leaseBlock(SEQUENCE_NAME, blockSize);
+        }
+    }
+
+    // value -> (value * MULTIPLIER + OFFSET) mod 62^8, a bijection on the code space
+    static long permute(long value) {
+        BigInteger v = BigInteger.valueOf(value);
+        if (v.compareTo(CODE_SPACE) >= 0) {
+            throw new IllegalStateException("short code space exhausted");
+        }
+        return v.multiply(MULTIPLIER).add(OFFSET).mod(CODE_SPACE).longValue();
+    }
+}
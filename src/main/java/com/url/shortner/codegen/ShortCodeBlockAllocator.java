@@ -0,0 +1,36 @@
+package com.url.shortner.codegen;
+
+import com.url.shortner.models.ShortCodeSequence;
+import com.url.shortner.repository.ShortCodeSequenceRepository;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Hands out blocks of a cluster-wide sequence stored in the short_code_sequence table.
+ * Runs in its own short transaction so the row lock is never held for longer than one UPDATE,
+ * regardless of what the caller's transaction is doing.
+ */
+@Component
+@AllArgsConstructor
+public class ShortCodeBlockAllocator {
+
+    private ShortCodeSequenceRepository shortCodeSequenceRepository;
+
+    // Returns the first value of a block [start, start + blockSize) reserved for the caller
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public long leaseBlock(String sequenceName, int blockSize) {
+        ShortCodeSequence sequence = shortCodeSequenceRepository.lockByName(sequenceName)
+                .orElseGet(() -> {
+                    // First lease ever: if another instance creates the row at the same time,
+                    // this insert fails on the primary key and the caller simply leases again.
+                    ShortCodeSequence created = new ShortCodeSequence();
+                    created.setName(sequenceName);
+                    return shortCodeSequenceRepository.saveAndFlush(created);
+                });
+        long start = sequence.getNextValue();
+        sequence.setNextValue(start + blockSize);
+        return start;
+    }
+}
@@ -0,0 +1,11 @@
+package com.url.shortner.codegen;
+
+/**
+ * Strategy for producing the short code of a new UrlMapping.
+ * Selected with the 'shortner.codegen.strategy' property (sequence | random).
+ */
+public interface ShortCodeGenerator {
+
+    // Must be safe to call from many request threads at once
+    String nextCode();
+}
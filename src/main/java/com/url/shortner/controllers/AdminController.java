@@ -0,0 +1,119 @@
+package com.url.shortner.controllers;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.url.shortner.analytics.ClickRollupBackfill;
+import com.url.shortner.analytics.HotLinkWindow;
+import com.url.shortner.analytics.HotLinks;
+import com.url.shortner.cache.ShortCodeFilter;
+import com.url.shortner.cache.UrlResolutionCache;
+import com.url.shortner.dtos.CacheStatsDTO;
+import com.url.shortner.dtos.HotLinkDTO;
+import com.url.shortner.dtos.ShortCodeFilterStatsDTO;
+import com.url.shortner.services.UserService;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin")
+@AllArgsConstructor
+public class AdminController {
+
+    private UrlResolutionCache urlResolutionCache;
+    private ClickRollupBackfill clickRollupBackfill;
+    private UserService userService;
+    private HotLinks hotLinks;
+    private ShortCodeFilter shortCodeFilter;
+
+    /**
+     * Endpoint: GET /api/admin/cache/stats
+     * Process: Reports hit/miss counters of the redirect resolution cache since startup.
+     */
+    @GetMapping("/cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CacheStatsDTO> getCacheStats() {
+        CacheStats stats = urlResolutionCache.stats();
+        CacheStatsDTO cacheStatsDTO = new CacheStatsDTO();
+        cacheStatsDTO.setSize(urlResolutionCache.estimatedSize());
+        cacheStatsDTO.setHitCount(stats.hitCount());
+        cacheStatsDTO.setMissCount(stats.missCount());
+        cacheStatsDTO.setHitRate(stats.hitRate());
+        cacheStatsDTO.setEvictionCount(stats.evictionCount());
+        return ResponseEntity.ok(cacheStatsDTO);
+    }
+
+    /**
+     * Endpoint: GET /api/admin/bloom/stats
+     * Process: Reports the short code Bloom filter: codes, size, expected and observed false positive rate.
+     */
+    @GetMapping("/bloom/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ShortCodeFilterStatsDTO> getBloomStats() {
+        return ResponseEntity.ok(shortCodeFilter.stats());
+    }
+
+    /**
+     * Endpoint: POST /api/admin/bloom/rebuild
+     * Process: Rebuilds the short code Bloom filter from url_mapping; redirects use the old one meanwhile.
+     */
+    @PostMapping("/bloom/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ShortCodeFilterStatsDTO> rebuildBloomFilter() {
+        shortCodeFilter.rebuild();
+        return ResponseEntity.ok(shortCodeFilter.stats());
+    }
+
+    /**
+     * Endpoint: GET /api/admin/hot-links?window=minute|hour|day&limit=10
+     * Process: The most clicked links of all users over the last minute, hour or day (estimates, this instance only).
+     */
+    @GetMapping("/hot-links")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<HotLinkDTO>> getHotLinks(@RequestParam(value = "window", defaultValue = "hour") String window,
+                                                        @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        HotLinkWindow hotLinkWindow = HotLinkWindow.parse(window);
+        if (hotLinkWindow == null || limit < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(hotLinks.top(hotLinkWindow, limit));
+    }
+
+    /**
+     * Endpoint: POST /api/admin/rollup/backfill?startDate=2024-01-01&endDate=2024-12-31
+     * Process: Rebuilds the daily click rollup for the given days (inclusive, up to yesterday)
+     * from the raw click events, e.g. after the rollup was disabled for a while.
+     */
+    @PostMapping("/rollup/backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> backfillClickRollup(@RequestParam("startDate") String startDate,
+                                                 @RequestParam("endDate") String endDate) {
+        DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE;
+        int days = clickRollupBackfill.backfill(LocalDate.parse(startDate, formatter), LocalDate.parse(endDate, formatter));
+        return ResponseEntity.ok("rebuilt " + days + " days");
+    }
+
+    /**
+     * Endpoint: PUT /api/admin/users/{username}/role  body: { "role": "ROLE_ADMIN" }
+     * Process: Changes a user's role (ROLE_USER or ROLE_ADMIN, 400 otherwise). It is applied to the
+     * user's token at their next login.
+     */
+    @PutMapping("/users/{username}/role")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> changeUserRole(@PathVariable String username, @RequestBody Map<String, String> map) {
+        userService.changeRole(username, map.get("role"));
+        return ResponseEntity.ok("role updated successfully");
+    }
+}
@@ -1,48 +1,59 @@
 package com.url.shortner.controllers;
 
-import com.url.shortner.models.UrlMapping;
+import com.url.shortner.cache.ResolvedUrl;
+import com.url.shortner.cache.ShortCodeFilter;
+import com.url.shortner.clicks.VisitorKey;
+import com.url.shortner.metrics.ShortnerMetrics;
 import com.url.shortner.services.UrlMappingService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.AllArgsConstructor;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.net.URI;
-
 @RestController
 @AllArgsConstructor
 public class RedirectController {
 
     private UrlMappingService urlMappingService;
+    private ShortCodeFilter shortCodeFilter;
+    private ShortnerMetrics metrics;
+    private VisitorKey visitorKey;
 
     @GetMapping("/{shortUrl}")
-    public ResponseEntity<Void> redirect(@PathVariable String shortUrl) {
+    public void redirect(@PathVariable String shortUrl, HttpServletRequest request, HttpServletResponse response) {
+        // 0. Codes the Bloom filter has never seen don't exist: 404 without touching the cache or the DB
+        //    (timed as part of the lookup)
+        long start = System.nanoTime();
+        if (!shortCodeFilter.mightContain(shortUrl)) {
+            metrics.redirectLookup(start);
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
         // 1. Retrieve the mapping also
         //    increments the click count and saves a ClickEvent for analytics.
-        UrlMapping urlMapping = urlMappingService.getOriginalUrl(shortUrl);
-
-        if (urlMapping != null) {
-            String originalUrl = urlMapping.getOriginalUrl();
-
-            // 2. PROTOCOL VALIDATION:
-            // Browsers treat "www.google.com" as a relative path on your server.
-            // We check if it starts with a protocol; if not, we prepend "http://"
-            // to make it an absolute URL.
-            if (!originalUrl.startsWith("http://") && !originalUrl.startsWith("https://")) {
-                originalUrl = "http://" + originalUrl;
-            }
-
-            // 3. HTTP 302 (FOUND):
-            // We send a 302 status code and the "Location" header.
-            // URI.create() converts the string into a valid URI object for the header.
-            return ResponseEntity.status(302)
-                    .location(URI.create(originalUrl))
-                    .build();
+        //    The visitor is only kept as a keyed hash of IP + User-Agent, for the unique-visitor counts.
+        //    Behind a proxy, set server.forward-headers-strategy so getRemoteAddr() is the client's address.
+        //    The service times the lookup and the click recording separately.
+        Long visitorHash = visitorKey.hash(request.getRemoteAddr(), request.getHeader(HttpHeaders.USER_AGENT));
+        ResolvedUrl resolvedUrl = urlMappingService.getOriginalUrl(shortUrl, visitorHash);
+
+        start = System.nanoTime();
+        if (resolvedUrl != null) {
+            // 2. HTTP 302 (FOUND):
+            // The destination was normalized to a canonical absolute URL when the link was created,
+            // so it goes into the "Location" header as is: no prefix checks, no string
+            // concatenation, no URI parsing and no ResponseEntity/HttpHeaders per redirect.
+            response.setStatus(HttpServletResponse.SC_FOUND);
+            response.setHeader(HttpHeaders.LOCATION, resolvedUrl.originalUrl());
         } else {
-            // 4. ERROR HANDLING:
+            // 3. ERROR HANDLING:
             // If the shortUrl doesn't exist in our DB, return a 404 response.
-            return ResponseEntity.notFound().build();
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
         }
+        metrics.redirectResponse(start);
     }
-}
\ No newline at end of file
+}
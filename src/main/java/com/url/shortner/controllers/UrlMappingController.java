@@ -1,14 +1,29 @@
 package com.url.shortner.controllers;
 
+import com.url.shortner.analytics.ClickExporter;
+import com.url.shortner.analytics.ExportFormat;
+import com.url.shortner.analytics.HotLinkWindow;
+import com.url.shortner.analytics.HotLinks;
+import com.url.shortner.dtos.BulkShortenRequest;
+import com.url.shortner.dtos.BulkShortenResultDTO;
 import com.url.shortner.dtos.ClickEventDTO;
+import com.url.shortner.dtos.HotLinkDTO;
+import com.url.shortner.dtos.UniqueVisitorsDTO;
 import com.url.shortner.dtos.UrlMappingDTO;
+import com.url.shortner.dtos.UrlMappingPageDTO;
 import com.url.shortner.models.User;
+import com.url.shortner.ratelimit.BulkShortenLimiter;
+import com.url.shortner.ratelimit.RateLimiter;
+import com.url.shortner.services.BulkUrlShortener;
 import com.url.shortner.services.UrlMappingService;
 import com.url.shortner.services.UserService;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.security.Principal;
 import java.time.LocalDate;
@@ -24,6 +39,10 @@ public class UrlMappingController {
 
     private UrlMappingService urlMappingService;
     private UserService userService;
+    private ClickExporter clickExporter;
+    private BulkUrlShortener bulkUrlShortener;
+    private HotLinks hotLinks;
+    private BulkShortenLimiter bulkShortenLimiter;
 
     @PostMapping("/shorten")
     @PreAuthorize("hasRole('USER')")
@@ -35,6 +54,26 @@ public class UrlMappingController {
         return ResponseEntity.ok(urlMappingDTO);
     }
 
+    /**
+     * Endpoint: POST /api/urls/shorten/bulk   body: { "originalUrls": ["https://...", ...] }
+     * Process: Shortens every URL in one request. Results come back in input order; a URL that
+     * can't be shortened gets an 'error' instead of a 'shortUrl' without failing the others.
+     * Each URL costs a token of the user's bulk rate limit: 429 with Retry-After when they run out.
+     */
+    @PostMapping("/shorten/bulk")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<List<BulkShortenResultDTO>> bulkUrlShortener(@RequestBody BulkShortenRequest request, Principal principal) {
+        int urls = request.getOriginalUrls() == null ? 0 : request.getOriginalUrls().size();
+        long wait = bulkShortenLimiter.tryAcquire(principal.getName(), urls);
+        if (wait > 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(RateLimiter.retryAfterSeconds(wait)))
+                    .build();
+        }
+        User user = userService.getByUsername(principal.getName());
+        return ResponseEntity.ok(bulkUrlShortener.shorten(request.getOriginalUrls(), user));
+    }
+
     @GetMapping("/myurls")
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<List<UrlMappingDTO>> getAllUrls(Principal principal) {
@@ -43,6 +82,22 @@ public class UrlMappingController {
         return ResponseEntity.ok(urls);
     }
 
+    /**
+     * Endpoint: GET /api/urls/myurls/page?sort=created|clicks&limit=50&cursor=...
+     * Process: Returns one page of the user's links, newest (or most clicked) first.
+     * Pass the returned 'nextCursor' as 'cursor' to get the next page; it is null on the last page.
+     * Unlike /myurls, response time and memory depend on the page size, not on how many links the user owns.
+     */
+    @GetMapping("/myurls/page")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<UrlMappingPageDTO> getUrlPage(Principal principal,
+                                                        @RequestParam(value = "sort", defaultValue = "created") String sort,
+                                                        @RequestParam(value = "limit", defaultValue = "50") int limit,
+                                                        @RequestParam(value = "cursor", required = false) String cursor) {
+        User user = userService.getByUsername(principal.getName());
+        return ResponseEntity.ok(urlMappingService.getUrlPageByUser(user, sort, limit, cursor));
+    }
+
     @GetMapping("/analytics/{shortUrl}")
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<List<ClickEventDTO>> getUrlAnalytics(@PathVariable String shortUrl,
@@ -58,12 +113,32 @@ public class UrlMappingController {
         /*
             output format:-
             [
-              { "clickDate": "2023-10-01", "count": 15 },
-              { "clickDate": "2023-10-02", "count": 42 }
+              { "clickDate": "2023-10-01", "count": 15, "uniqueVisitors": 9 },
+              { "clickDate": "2023-10-02", "count": 42, "uniqueVisitors": 30 }
             ]
          */
     }
 
+    /**
+     * Endpoint: GET /api/urls/analytics/{shortUrl}/visitors?startDate=2023-10-01T00:00:00&endDate=2023-10-31T23:59:59
+     * Process: Approximate distinct visitors (IP + User-Agent) of one link over the whole range and per day.
+     * The range total counts a returning visitor once, so it is usually less than the sum of the days.
+     */
+    @GetMapping("/analytics/{shortUrl}/visitors")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<UniqueVisitorsDTO> getUrlVisitors(@PathVariable String shortUrl,
+                                                            @RequestParam("startDate") String startDate,
+                                                            @RequestParam("endDate") String endDate) {
+        DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+        LocalDateTime start = LocalDateTime.parse(startDate, formatter);
+        LocalDateTime end = LocalDateTime.parse(endDate, formatter);
+        return ResponseEntity.ok(urlMappingService.getUniqueVisitors(shortUrl, start, end));
+        /*
+            output format:-
+            { "uniqueVisitors": 35, "daily": { "2023-10-01": 9, "2023-10-02": 30 } }
+         */
+    }
+
 
     @GetMapping("/totalClicks")
     @PreAuthorize("hasRole('USER')")
@@ -89,4 +164,107 @@ public class UrlMappingController {
         }
         */
     }
-}
\ No newline at end of file
+
+    /**
+     * Endpoint: GET /api/urls/totalVisitors?startDate=2023-10-01&endDate=2023-10-31
+     * Process: Approximate distinct visitors across all of the user's links, over the range and per day.
+     * Someone who clicked several of the user's links counts once.
+     */
+    @GetMapping("/totalVisitors")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<UniqueVisitorsDTO> getTotalVisitors(Principal principal,
+                                                              @RequestParam("startDate") String startDate,
+                                                              @RequestParam("endDate") String endDate) {
+        User user = userService.getByUsername(principal.getName());
+        LocalDate start = LocalDate.parse(startDate, DateTimeFormatter.ISO_LOCAL_DATE);
+        LocalDate end = LocalDate.parse(endDate, DateTimeFormatter.ISO_LOCAL_DATE);
+        return ResponseEntity.ok(urlMappingService.getUniqueVisitorsByUser(user, start, end));
+    }
+
+    /**
+     * Endpoint: GET /api/urls/hot?window=minute|hour|day&limit=10
+     * Process: The user's most clicked links over the last minute, hour or day, from in-memory counters.
+     * Counts are estimates and only cover redirects served by this instance since it started.
+     */
+    @GetMapping("/hot")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<List<HotLinkDTO>> getHotUrls(Principal principal,
+                                                       @RequestParam(value = "window", defaultValue = "hour") String window,
+                                                       @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        HotLinkWindow hotLinkWindow = HotLinkWindow.parse(window);
+        if (hotLinkWindow == null || limit < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        User user = userService.getByUsername(principal.getName());
+        return ResponseEntity.ok(hotLinks.topByUser(user.getId(), hotLinkWindow, limit));
+        /*
+            output format:-
+            [
+              { "shortUrl": "aBcD1234", "clicks": 1520 },
+              { "shortUrl": "xYz98765", "clicks": 310 }
+            ]
+         */
+    }
+
+    /**
+     * Endpoint: GET /api/urls/export/{shortUrl}?format=ndjson|csv&startDate=2026-01-01&endDate=2026-12-31
+     * Process: Streams every raw click of one of the user's links (dates optional, inclusive).
+     */
+    @GetMapping("/export/{shortUrl}")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<StreamingResponseBody> exportUrlClicks(Principal principal,
+                                                                 @PathVariable String shortUrl,
+                                                                 @RequestParam(value = "format", defaultValue = "ndjson") String format,
+                                                                 @RequestParam(value = "startDate", required = false) String startDate,
+                                                                 @RequestParam(value = "endDate", required = false) String endDate) {
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        if (exportFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        User user = userService.getByUsername(principal.getName());
+        StreamingResponseBody body = clickExporter.exportLink(user, shortUrl,
+                exportStart(startDate), exportEnd(endDate), exportFormat);
+        if (body == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return exportResponse("clicks-" + shortUrl, exportFormat, body);
+    }
+
+    /**
+     * Endpoint: GET /api/urls/export?format=ndjson|csv&startDate=2026-01-01&endDate=2026-12-31
+     * Process: Streams every raw click of all the user's links (dates optional, inclusive).
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<StreamingResponseBody> exportAllClicks(Principal principal,
+                                                                 @RequestParam(value = "format", defaultValue = "ndjson") String format,
+                                                                 @RequestParam(value = "startDate", required = false) String startDate,
+                                                                 @RequestParam(value = "endDate", required = false) String endDate) {
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        if (exportFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        User user = userService.getByUsername(principal.getName());
+        StreamingResponseBody body = clickExporter.exportUser(user, exportStart(startDate), exportEnd(endDate), exportFormat);
+        return exportResponse("clicks", exportFormat, body);
+    }
+
+    private ResponseEntity<StreamingResponseBody> exportResponse(String fileName, ExportFormat format, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "." + format.getExtension() + "\"")
+                .body(body);
+    }
+
+    // No start date: from the beginning (a date before any click could have been recorded)
+    private LocalDateTime exportStart(String startDate) {
+        return startDate == null ? LocalDateTime.of(1970, 1, 1, 0, 0)
+                : LocalDate.parse(startDate, DateTimeFormatter.ISO_LOCAL_DATE).atStartOfDay();
+    }
+
+    // No end date: up to now. The end date itself is included, so the range ends at the next midnight.
+    private LocalDateTime exportEnd(String endDate) {
+        return endDate == null ? LocalDate.now().plusDays(1).atStartOfDay()
+                : LocalDate.parse(endDate, DateTimeFormatter.ISO_LOCAL_DATE).plusDays(1).atStartOfDay();
+    }
+}
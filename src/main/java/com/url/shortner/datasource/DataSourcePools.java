@@ -0,0 +1,60 @@
+package com.url.shortner.datasource;
+
+import com.url.shortner.bulkhead.Workload;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The Hikari pools behind the application's DataSource: one per Workload for the primary and, when
+ * configured, for the replica. Without per-workload pools every workload maps to the same pool.
+ * The pools aren't beans of their own, so their hikaricp_* metrics (tagged with the pool name:
+ * active, idle, pending, timeouts, acquire time) are bound here instead of by Spring Boot.
+ */
+class DataSourcePools implements MeterBinder, AutoCloseable {
+
+    private final Map<Workload, HikariDataSource> primary;
+    private final Map<Workload, HikariDataSource> replica;
+
+    DataSourcePools(Map<Workload, HikariDataSource> primary, Map<Workload, HikariDataSource> replica) {
+        this.primary = new EnumMap<>(primary);
+        this.replica = replica.isEmpty() ? Map.of() : new EnumMap<>(replica);
+    }
+
+    Map<Workload, HikariDataSource> primary() {
+        return primary;
+    }
+
+    // Empty without a replica
+    Map<Workload, HikariDataSource> replica() {
+        return replica;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (HikariDataSource pool : distinctPools()) {
+            // Allowed once, also after the pool has started
+            if (pool.getMetricRegistry() == null) {
+                pool.setMetricRegistry(registry);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        distinctPools().forEach(HikariDataSource::close);
+    }
+
+    private Set<HikariDataSource> distinctPools() {
+        Set<HikariDataSource> pools = Collections.newSetFromMap(new IdentityHashMap<>());
+        pools.addAll(primary.values());
+        pools.addAll(replica.values());
+        return pools;
+    }
+}
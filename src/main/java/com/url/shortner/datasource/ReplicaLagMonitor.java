@@ -0,0 +1,67 @@
+package com.url.shortner.datasource;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Measures the replica's replication lag every 'check-interval' and reports it to ReplicaRouting.
+ * - PostgreSQL: 0 once everything received has been replayed, otherwise the age of the last
+ *   replayed transaction (comparing LSNs first, so an idle primary doesn't look like lag).
+ * - MySQL: Seconds_Behind_Source of SHOW REPLICA STATUS; NULL (replication stopped) is a failure.
+ * - A server that isn't replicating at all (e.g. a second local instance) reports no lag.
+ */
+class ReplicaLagMonitor {
+
+    private static final String POSTGRESQL_LAG =
+            "select case when not pg_is_in_recovery() or pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0 "
+                    + "else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0) end";
+    private static final String MYSQL_LAG = "show replica status";
+
+    private final JdbcTemplate replica;
+    private final ReplicaRouting routing;
+
+    ReplicaLagMonitor(JdbcTemplate replica, ReplicaRouting routing) {
+        this.replica = replica;
+        this.routing = routing;
+    }
+
+    @Scheduled(fixedDelayString = "${shortner.datasource.replica.check-interval:5s}")
+    public void check() {
+        try {
+            routing.replicaLag(replica.execute((ConnectionCallback<Double>) this::lagSeconds));
+        } catch (RuntimeException e) {
+            routing.replicaFailed(e);
+        }
+    }
+
+    private double lagSeconds(Connection connection) throws SQLException {
+        String product = connection.getMetaData().getDatabaseProductName().toLowerCase();
+        try (Statement statement = connection.createStatement()) {
+            if (product.equals("postgresql")) {
+                try (ResultSet rs = statement.executeQuery(POSTGRESQL_LAG)) {
+                    rs.next();
+                    return rs.getDouble(1);
+                }
+            }
+            if (product.equals("mysql") || product.equals("mariadb")) {
+                try (ResultSet rs = statement.executeQuery(MYSQL_LAG)) {
+                    if (!rs.next()) {
+                        return 0;
+                    }
+                    long seconds = rs.getLong("Seconds_Behind_Source");
+                    if (rs.wasNull()) {
+                        throw new IllegalStateException("replication is not running");
+                    }
+                    return seconds;
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.url.shortner.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Decides where read-only transactions run when a read replica is configured
+ * (shortner.datasource.replica.url, see RoutingDataSourceConfig). Everything else always runs on
+ * the primary.
+ * - The replica is used while its last check succeeded with a lag of at most 'maxLag'
+ *   (ReplicaLagMonitor). Otherwise reads fall back to the primary until a check passes again.
+ * - onPrimary() forces the primary for one piece of work, for reads that must see the latest
+ *   writes (e.g. a code created a moment ago on another instance).
+ * Without a replica every method is a no-op and all connections come from the primary.
+ */
+@Slf4j
+@Component
+public class ReplicaRouting implements MeterBinder {
+
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    private final boolean replicaConfigured;
+    private final Duration maxLag;
+
+    private volatile boolean replicaUsable;
+    // Seconds, -1 until the first successful check
+    private volatile double lagSeconds = -1;
+
+    public ReplicaRouting(@Value("${shortner.datasource.replica.url:}") String replicaUrl,
+                          @Value("${shortner.datasource.replica.max-lag:5s}") Duration maxLag) {
+        this.replicaConfigured = !replicaUrl.isBlank();
+        this.maxLag = maxLag;
+    }
+
+    public boolean isReplicaConfigured() {
+        return replicaConfigured;
+    }
+
+    // Asked when a read-only transaction needs its connection
+    public boolean useReplica() {
+        return replicaConfigured && replicaUsable && FORCE_PRIMARY.get() == null;
+    }
+
+    // Runs 'work' with all its read-only transactions on the primary. A transaction that is already
+    // running keeps its connection, so call this outside of one.
+    public <T> T onPrimary(Supplier<T> work) {
+        if (!replicaConfigured || FORCE_PRIMARY.get() != null) {
+            return work.get();
+        }
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            FORCE_PRIMARY.remove();
+        }
+    }
+
+    // Result of a successful replica check
+    void replicaLag(double seconds) {
+        lagSeconds = seconds;
+        boolean usable = seconds <= maxLag.toMillis() / 1000.0;
+        if (usable != replicaUsable) {
+            if (usable) {
+                log.info("Read replica in use (lag {}s)", seconds);
+            } else {
+                log.warn("Read replica lags {}s behind, more than {}s: reading from the primary", seconds, maxLag.toSeconds());
+            }
+        }
+        replicaUsable = usable;
+    }
+
+    // The replica couldn't be checked (down, unreachable, replication stopped)
+    void replicaFailed(Exception e) {
+        if (replicaUsable) {
+            log.warn("Read replica unavailable, reading from the primary: {}", e.getMessage());
+        }
+        replicaUsable = false;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (replicaConfigured) {
+            Gauge.builder("shortner.datasource.replica.usable", this, r -> r.replicaUsable ? 1 : 0)
+                    .description("1 while read-only transactions go to the replica")
+                    .register(registry);
+            Gauge.builder("shortner.datasource.replica.lag", this, r -> r.lagSeconds)
+                    .description("Replication lag seen by the last check, in seconds")
+                    .baseUnit("seconds")
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.url.shortner.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+// The DataSource of read-only transactions: the replica while ReplicaRouting allows it, the primary otherwise
+class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica";
+
+    private final ReplicaRouting routing;
+
+    ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaRouting routing) {
+        this.routing = routing;
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return routing.useReplica() ? REPLICA : PRIMARY;
+    }
+}
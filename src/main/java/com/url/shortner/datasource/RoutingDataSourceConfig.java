@@ -0,0 +1,113 @@
+package com.url.shortner.datasource;
+
+import com.url.shortner.bulkhead.Workload;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Workload-isolated pools and read/write splitting. Active when shortner.datasource.pools.enabled
+ * is true or shortner.datasource.replica.url is set (otherwise Spring Boot's single DataSource is
+ * used as before).
+ * 1. With per-workload pools, each Workload (redirect, links, analytics) gets its own pool:
+ *    spring.datasource.hikari.* applies to all of them, shortner.datasource.pools.<workload>.*
+ *    (maximum-pool-size, connection-timeout, ...) overrides it per workload. Analytics exhausting
+ *    its pool then makes analytics wait, not redirects. Without them there is one pool, "primary".
+ * 2. The replica, if any, gets the same pools, configured from shortner.datasource.replica.hikari.*
+ *    and then shortner.datasource.pools.<workload>.*.
+ * 3. The DataSource everything uses (JPA, JdbcTemplate, transactions) hands out lazy connection
+ *    proxies: the real connection is only taken at the first statement, once the transaction
+ *    manager has marked it read-only or not. Read-only transactions (@Transactional(readOnly = true),
+ *    and Spring Data's own read methods) then get a connection from the replica, everything else
+ *    from the primary, in both cases from the pool of the current thread's Workload.
+ * 4. ReplicaRouting sends reads back to the primary while the replica lags or is down.
+ * See docs/bulkheads.md and docs/read-replicas.md.
+ */
+@Configuration
+@ConditionalOnExpression("${shortner.datasource.pools.enabled:false} or '${shortner.datasource.replica.url:}' != ''")
+public class RoutingDataSourceConfig {
+
+    @Bean
+    public DataSourcePools dataSourcePools(DataSourceProperties properties,
+                                           Environment environment,
+                                           @Value("${shortner.datasource.pools.enabled:false}") boolean perWorkload,
+                                           @Value("${shortner.datasource.replica.url:}") String replicaUrl,
+                                           @Value("${shortner.datasource.replica.username:${spring.datasource.username:}}") String replicaUsername,
+                                           @Value("${shortner.datasource.replica.password:${spring.datasource.password:}}") String replicaPassword) {
+        Binder binder = Binder.get(environment);
+        Map<Workload, HikariDataSource> primary = pools("primary", perWorkload, binder, "spring.datasource.hikari",
+                () -> properties.initializeDataSourceBuilder().type(HikariDataSource.class).build());
+        Map<Workload, HikariDataSource> replica = Map.of();
+        if (!replicaUrl.isBlank()) {
+            replica = pools("replica", perWorkload, binder, "shortner.datasource.replica.hikari",
+                    () -> DataSourceBuilder.create().type(HikariDataSource.class)
+                            .url(replicaUrl)
+                            .username(replicaUsername)
+                            .password(replicaPassword)
+                            .build());
+            // Nothing is ever written through these pools
+            replica.values().forEach(dataSource -> dataSource.setReadOnly(true));
+        }
+        return new DataSourcePools(primary, replica);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourcePools pools, ReplicaRouting routing) {
+        DataSource primary = new WorkloadRoutingDataSource(pools.primary());
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        if (!pools.replica().isEmpty()) {
+            DataSource replica = new WorkloadRoutingDataSource(pools.replica());
+            dataSource.setReadOnlyDataSource(new ReplicaRoutingDataSource(primary, replica, routing));
+        }
+        return dataSource;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "shortner.datasource.replica", name = "url")
+    public ReplicaLagMonitor replicaLagMonitor(DataSourcePools pools, ReplicaRouting routing) {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(new JdbcTemplate(pools.replica().get(Workload.LINKS)), routing);
+        // Decide before the first request instead of reading from the primary until the first check
+        monitor.check();
+        return monitor;
+    }
+
+    // One pool per workload named '<name>-<workload>', or a single pool '<name>' shared by all of them
+    private static Map<Workload, HikariDataSource> pools(String name, boolean perWorkload, Binder binder,
+                                                         String hikariPrefix, Supplier<HikariDataSource> newPool) {
+        Map<Workload, HikariDataSource> pools = new EnumMap<>(Workload.class);
+        if (!perWorkload) {
+            HikariDataSource shared = newPool.get();
+            binder.bind(hikariPrefix, Bindable.ofInstance(shared));
+            shared.setPoolName(name);
+            for (Workload workload : Workload.values()) {
+                pools.put(workload, shared);
+            }
+            return pools;
+        }
+        for (Workload workload : Workload.values()) {
+            HikariDataSource dataSource = newPool.get();
+            binder.bind(hikariPrefix, Bindable.ofInstance(dataSource));
+            binder.bind("shortner.datasource.pools." + workload.getKey(), Bindable.ofInstance(dataSource));
+            dataSource.setPoolName(name + "-" + workload.getKey());
+            pools.put(workload, dataSource);
+        }
+        return pools;
+    }
+}
@@ -0,0 +1,23 @@
+package com.url.shortner.datasource;
+
+import com.url.shortner.bulkhead.Workload;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+// One database's pools behind a single DataSource: connections come from the current thread's Workload's pool
+class WorkloadRoutingDataSource extends AbstractRoutingDataSource {
+
+    WorkloadRoutingDataSource(Map<Workload, ? extends DataSource> pools) {
+        setTargetDataSources(new HashMap<>(pools));
+        setDefaultTargetDataSource(pools.get(Workload.LINKS));
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return Workload.current();
+    }
+}
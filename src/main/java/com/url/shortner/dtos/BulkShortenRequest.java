@@ -0,0 +1,10 @@
+package com.url.shortner.dtos;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkShortenRequest {
+    private List<String> originalUrls;
+}
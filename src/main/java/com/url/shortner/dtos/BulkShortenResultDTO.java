@@ -0,0 +1,11 @@
+package com.url.shortner.dtos;
+
+import lombok.Data;
+
+@Data
+public class BulkShortenResultDTO {
+        private String originalUrl; // Canonical URL, or the submitted value when it was rejected
+        private String shortUrl;
+        private Long id;
+        private String error; // Why this URL was rejected; null when it was shortened
+}
@@ -0,0 +1,12 @@
+package com.url.shortner.dtos;
+
+import lombok.Data;
+
+@Data
+public class CacheStatsDTO {
+        private long size;
+        private long hitCount;
+        private long missCount;
+        private double hitRate;
+        private long evictionCount;
+}
@@ -1,11 +1,24 @@
 package com.url.shortner.dtos;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class ClickEventDTO {
         private LocalDate clickDate;
         private Long count;
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private Long uniqueVisitors; // Approximate (HyperLogLog), absent when visitor tracking is disabled
+
+        // used by the GROUP BY projections in ClickEventRepository
+        public ClickEventDTO(LocalDate clickDate, Long count) {
+                this.clickDate = clickDate;
+                this.count = count;
+        }
 }
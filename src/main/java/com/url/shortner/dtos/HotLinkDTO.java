@@ -0,0 +1,11 @@
+package com.url.shortner.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class HotLinkDTO {
+        private String shortUrl;
+        private long clicks; // Estimated clicks in the window (Space-Saving may overestimate, never underestimates)
+}
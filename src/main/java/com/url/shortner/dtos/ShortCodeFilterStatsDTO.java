@@ -0,0 +1,16 @@
+package com.url.shortner.dtos;
+
+import lombok.Data;
+
+@Data
+public class ShortCodeFilterStatsDTO {
+        private boolean ready; // false until the filter was built (every code is then looked up)
+        private long codes; // Short codes in the filter (approximate)
+        private long capacity; // Codes it was sized for; rebuilt larger once exceeded
+        private long bits;
+        private double expectedFpp; // False positive rate implied by the bits set
+        private long checks; // Redirect lookups checked against the filter
+        private long rejected; // ... answered 404 without touching the cache or database
+        private long falsePositives; // ... let through, but unknown to the database
+        private double observedFpp; // falsePositives / (rejected + falsePositives)
+}
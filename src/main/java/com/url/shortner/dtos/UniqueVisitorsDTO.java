@@ -0,0 +1,14 @@
+package com.url.shortner.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class UniqueVisitorsDTO {
+        private long uniqueVisitors; // Distinct visitors over the whole range: not the sum of the daily values
+        private Map<LocalDate, Long> daily; // Distinct visitors per day
+}
@@ -1,10 +1,12 @@
 package com.url.shortner.dtos;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
 public class UrlMappingDTO {
         private String originalUrl;
         private String shortUrl;
@@ -12,4 +14,15 @@ public class UrlMappingDTO {
         private Long id;
         private LocalDateTime createdTime;
         private String username;
+
+        // Used by the projection queries in UrlMappingRepository (select new ...UrlMappingDTO(...))
+        public UrlMappingDTO(Long id, String originalUrl, String shortUrl, int clickCount,
+                             LocalDateTime createdTime, String username) {
+                this.id = id;
+                this.originalUrl = originalUrl;
+                this.shortUrl = shortUrl;
+                this.clickCount = clickCount;
+                this.createdTime = createdTime;
+                this.username = username;
+        }
 }
@@ -0,0 +1,13 @@
+package com.url.shortner.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class UrlMappingPageDTO {
+        private List<UrlMappingDTO> items;
+        private String nextCursor; // Pass back as 'cursor' to get the next page; null on the last page
+}
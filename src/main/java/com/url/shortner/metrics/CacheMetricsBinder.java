@@ -0,0 +1,56 @@
+package com.url.shortner.metrics;
+
+import com.url.shortner.cache.SharedUrlCache;
+import com.url.shortner.cache.ShortCodeFilter;
+import com.url.shortner.cache.UrlResolutionCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exposes the counters the redirect caches already keep (see /api/admin/cache/stats and
+ * /api/admin/bloom/stats) as meters, read at scrape time, so nothing extra runs per redirect.
+ */
+@Component
+@AllArgsConstructor
+public class CacheMetricsBinder implements MeterBinder {
+
+    private UrlResolutionCache urlResolutionCache;
+    private ShortCodeFilter shortCodeFilter;
+    private SharedUrlCache sharedUrlCache;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // 1. Redirect resolution cache
+        FunctionCounter.builder("shortner.cache.resolution.requests", urlResolutionCache, cache -> cache.stats().hitCount())
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("shortner.cache.resolution.requests", urlResolutionCache, cache -> cache.stats().missCount())
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("shortner.cache.resolution.size", urlResolutionCache, UrlResolutionCache::estimatedSize)
+                .register(registry);
+
+        // 2. Short code Bloom filter: lookups it answered, codes it rejected, and codes it let
+        //    through that the database didn't have
+        FunctionCounter.builder("shortner.cache.bloom.checks", shortCodeFilter, ShortCodeFilter::getChecks)
+                .register(registry);
+        FunctionCounter.builder("shortner.cache.bloom.rejected", shortCodeFilter, ShortCodeFilter::getRejected)
+                .register(registry);
+        FunctionCounter.builder("shortner.cache.bloom.false.positives", shortCodeFilter, ShortCodeFilter::getFalsePositives)
+                .register(registry);
+
+        // 3. Shared cache tier (zero while disabled); errors are lookups that fell back to the database
+        FunctionCounter.builder("shortner.cache.shared.requests", sharedUrlCache, SharedUrlCache::getHits)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("shortner.cache.shared.requests", sharedUrlCache, SharedUrlCache::getMisses)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("shortner.cache.shared.errors", sharedUrlCache, SharedUrlCache::getErrors)
+                .register(registry);
+    }
+}
@@ -0,0 +1,116 @@
+package com.url.shortner.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers around the hot paths, scraped from /actuator/prometheus.
+ * - Callers take System.nanoTime() before the step and pass it in afterwards, so timing costs two
+ *   clock reads and no allocation (no Timer.Sample, no lambda) on the redirect path.
+ * - All timers are created once here; percentile histograms for every "shortner.*" timer are
+ *   switched on in application.properties (management.metrics.distribution.*), not in code.
+ * - A redirect is split into phases, so the dashboard shows which one the latency comes from:
+ *   lookup (Bloom filter, cache, DB on a miss), clicks (counters, click queue, hot links) and
+ *   response (status and Location header).
+ */
+@Component
+public class ShortnerMetrics {
+
+    private final Timer redirectLookup;
+    private final Timer redirectClicks;
+    private final Timer redirectResponse;
+    private final Timer shorten;
+    private final Timer analyticsLink;
+    private final Timer analyticsUser;
+    private final Timer jwtValidation;
+    private final Timer loginAuthenticate;
+    private final Timer loginToken;
+    private final Counter redirectRateLimited;
+    private final Counter shortenRateLimited;
+    private final Counter bulkRateLimited;
+
+    public ShortnerMetrics(MeterRegistry registry) {
+        redirectLookup = timer(registry, "shortner.redirect", "Resolving a short code", "phase", "lookup");
+        redirectClicks = timer(registry, "shortner.redirect", "Recording a click", "phase", "clicks");
+        redirectResponse = timer(registry, "shortner.redirect", "Writing the redirect response", "phase", "response");
+        shorten = timer(registry, "shortner.shorten", "Creating a short URL");
+        analyticsLink = timer(registry, "shortner.analytics", "Clicks per day of one link", "scope", "link");
+        analyticsUser = timer(registry, "shortner.analytics", "Clicks per day of all links of a user", "scope", "user");
+        jwtValidation = timer(registry, "shortner.jwt.validation", "Verifying a JWT and reading its claims");
+        loginAuthenticate = timer(registry, "shortner.login", "User lookup and BCrypt password check", "step", "authenticate");
+        loginToken = timer(registry, "shortner.login", "Signing the JWT", "step", "token");
+        redirectRateLimited = rejections(registry, "redirect");
+        shortenRateLimited = rejections(registry, "shorten");
+        bulkRateLimited = rejections(registry, "bulk");
+    }
+
+    private static Counter rejections(MeterRegistry registry, String limit) {
+        return Counter.builder("shortner.ratelimit.rejected")
+                .tag("limit", limit)
+                .description("Requests rejected with 429 by the rate limiter")
+                .register(registry);
+    }
+
+    private static Timer timer(MeterRegistry registry, String name, String description, String... tags) {
+        return Timer.builder(name)
+                .tags(tags)
+                .description(description)
+                .register(registry);
+    }
+
+    public void redirectLookup(long startNanos) {
+        record(redirectLookup, startNanos);
+    }
+
+    public void redirectClicks(long startNanos) {
+        record(redirectClicks, startNanos);
+    }
+
+    public void redirectResponse(long startNanos) {
+        record(redirectResponse, startNanos);
+    }
+
+    public void shorten(long startNanos) {
+        record(shorten, startNanos);
+    }
+
+    public void analyticsLink(long startNanos) {
+        record(analyticsLink, startNanos);
+    }
+
+    public void analyticsUser(long startNanos) {
+        record(analyticsUser, startNanos);
+    }
+
+    public void jwtValidation(long startNanos) {
+        record(jwtValidation, startNanos);
+    }
+
+    public void loginAuthenticate(long startNanos) {
+        record(loginAuthenticate, startNanos);
+    }
+
+    public void loginToken(long startNanos) {
+        record(loginToken, startNanos);
+    }
+
+    public void redirectRateLimited() {
+        redirectRateLimited.increment();
+    }
+
+    public void shortenRateLimited() {
+        shortenRateLimited.increment();
+    }
+
+    public void bulkRateLimited() {
+        bulkRateLimited.increment();
+    }
+
+    private static void record(Timer timer, long startNanos) {
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -7,11 +7,18 @@ import java.time.LocalDateTime;
 
 @Entity
 @Data
+// Raw click reads (partial days in analytics, exports) are "clicks of a link in a date range";
+// rollup rebuilds read "all clicks in a date range"
+@Table(indexes = {
+        @Index(name = "idx_click_event_url_mapping_date", columnList = "url_mapping_id, clickDate"),
+        @Index(name = "idx_click_event_date", columnList = "clickDate")
+})
 public class ClickEvent {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id; // Unique ID for each click event
     private LocalDateTime clickDate; // Date and time when the click occurred
+    private Long visitorHash; // Hash of the visitor's IP + User-Agent (see VisitorKey), null for older clicks
 
     @ManyToOne
     @JoinColumn(name = "url_mapping_id")
@@ -0,0 +1,36 @@
+package com.url.shortner.models;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Clicks per link per day, kept up to date as clicks are recorded (see ClickEventJdbcRepository).
+ * Analytics read this instead of click_event, so a year of data is at most 365 rows per link.
+ * Hibernate orders the primary key columns by name, (click_day, url_mapping_id), which serves the
+ * per-day rebuild; the per-link date range queries use the (url_mapping_id, click_day) index.
+ * Rows are only written through JDBC (upserts), the entity is here so the table gets created.
+ */
+@Entity
+@Data
+@IdClass(DailyClickRollup.Key.class)
+@Table(indexes = @Index(name = "idx_daily_click_rollup_link_day", columnList = "urlMappingId, clickDay"))
+public class DailyClickRollup {
+    @Id
+    private Long urlMappingId; // The link these clicks belong to
+    @Id
+    private LocalDate clickDay; // The day the clicks happened on
+    private long clickCount; // Number of clicks on that day
+
+    @Data
+    public static class Key implements Serializable {
+        private Long urlMappingId;
+        private LocalDate clickDay;
+    }
+}
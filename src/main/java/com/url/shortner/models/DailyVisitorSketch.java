@@ -0,0 +1,38 @@
+package com.url.shortner.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Distinct visitors per link per day, as a serialized HyperLogLog sketch.
+ * Sketches of any set of days (or links) merge into the distinct count of their union,
+ * so unique visitors over a range never need a COUNT(DISTINCT) over click_event.
+ * Rows are only written through JDBC (see DailyVisitorSketchRepository), the entity is here so the table gets created.
+ */
+@Entity
+@Data
+@IdClass(DailyVisitorSketch.Key.class)
+// Same layout as DailyClickRollup: primary key (visit_day, url_mapping_id) plus the per-link index
+@Table(indexes = @Index(name = "idx_daily_visitor_sketch_link_day", columnList = "urlMappingId, visitDay"))
+public class DailyVisitorSketch {
+    @Id
+    private Long urlMappingId; // The link these visitors clicked
+    @Id
+    private LocalDate visitDay; // The day of the visits
+    @Column(nullable = false, length = 4097) // A dense sketch: 1 format byte + 4096 registers
+    private byte[] sketch;
+
+    @Data
+    public static class Key implements Serializable {
+        private Long urlMappingId;
+        private LocalDate visitDay;
+    }
+}
@@ -0,0 +1,21 @@
+package com.url.shortner.models;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * How far the one-time history backfill of a rollup got (see ClickRollupBackfill).
+ * Only written by the backfill itself, so a rollup that already holds rows written live by the
+ * click recorder still gets its history. A second row records the last night the rollup was
+ * reconciled, which is how only one instance runs each night's reconcile.
+ */
+@Entity
+@Data
+public class RollupBackfillState {
+    @Id
+    private String name; // Rollup name, e.g. "daily_click_rollup", or "daily_click_rollup_reconcile"
+    private LocalDate doneThrough; // Last day rebuilt from click_event; every earlier day is done too (reconcile: last night it ran)
+}
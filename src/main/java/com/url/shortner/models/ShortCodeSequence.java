@@ -0,0 +1,17 @@
+package com.url.shortner.models;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Data;
+
+/**
+ * A named, cluster-wide counter. Each application instance leases a block of values
+ * from it at a time, so only one row update is needed per block of short codes.
+ */
+@Entity
+@Data
+public class ShortCodeSequence {
+    @Id
+    private String name; // Sequence name, e.g. "url_mapping"
+    private long nextValue; // First value not yet handed out to any instance
+}
@@ -8,12 +8,20 @@ import java.util.List;
 
 @Entity
 @Data
+@Table(indexes = {
+        // Keyset pagination of /api/urls/myurls/page, one per sort order
+        @Index(name = "idx_url_mapping_user_created", columnList = "user_id, createdDate, id"),
+        @Index(name = "idx_url_mapping_user_clicks", columnList = "user_id, clickCount, id"),
+        // Incremental sync of the short code Bloom filter (codes created since ...)
+        @Index(name = "idx_url_mapping_created", columnList = "createdDate")
+})
 public class UrlMapping {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id; // Unique ID for this URL mapping
     private String originalUrl; // The long URL provided by the user
-    private String shortUrl; // The generated short URL
+    @Column(unique = true)
+    private String shortUrl; // The generated short URL (unique index: also our lookup key)
     private int clickCount = 0; // Number of times the short URL has been clicked
     private LocalDateTime createdDate; // When this mapping was created
 
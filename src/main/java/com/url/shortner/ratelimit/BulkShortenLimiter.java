@@ -0,0 +1,42 @@
+package com.url.shortner.ratelimit;
+
+import com.url.shortner.metrics.ShortnerMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-user limit of POST /api/urls/shorten/bulk in URLs rather than requests. RateLimitFilter can
+ * only count requests, it runs before the body is read, so a bulk request of 100,000 URLs would cost
+ * the same single token as one URL. The controller charges the URL count here once it has the body,
+ * from a bucket of its own: a token per URL, so a user's bulk inserts are bounded in rows per second.
+ * The default burst is the largest request allowed (shortner.bulk.max-urls), so it can pass once.
+ */
+@Component
+public class BulkShortenLimiter {
+
+    private final ShortnerMetrics metrics;
+    private final boolean enabled;
+    private final RateLimiter limiter;
+
+    public BulkShortenLimiter(ShortnerMetrics metrics,
+                              @Value("${shortner.ratelimit.enabled:true}") boolean enabled,
+                              @Value("${shortner.ratelimit.bulk.urls-per-second:100}") double urlsPerSecond,
+                              @Value("${shortner.ratelimit.bulk.burst:${shortner.bulk.max-urls:100000}}") int burst,
+                              @Value("${shortner.ratelimit.max-keys:100000}") long maxKeys) {
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.limiter = new RateLimiter(urlsPerSecond, burst, maxKeys);
+    }
+
+    // 0 if the user may shorten 'urls' URLs now, otherwise how long (in nanoseconds) until they could
+    public long tryAcquire(String username, int urls) {
+        if (!enabled) {
+            return 0;
+        }
+        long wait = limiter.tryAcquire(username, urls);
+        if (wait > 0) {
+            metrics.bulkRateLimited();
+        }
+        return wait;
+    }
+}
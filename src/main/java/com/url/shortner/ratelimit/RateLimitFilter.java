@@ -0,0 +1,111 @@
+package com.url.shortner.ratelimit;
+
+import com.url.shortner.metrics.ShortnerMetrics;
+import com.url.shortner.security.jwt.JwtAuthenticationFilter;
+import com.url.shortner.security.jwt.JwtUtils;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Per-client rate limits, checked in the security chain before JwtAuthenticationFilter, so a
+ * rejected request never reaches the cache, the click queue or the database.
+ * 1. Redirects (GET /{shortUrl}) are anonymous: limited per client IP. Behind a proxy set
+ *    server.forward-headers-strategy, otherwise every client shares the proxy's address.
+ * 2. Shortening (POST /api/urls/shorten and /shorten/bulk) is limited per user. The username comes
+ *    from the verified JWT: an unverified 'sub' claim would let anyone drain another user's bucket.
+ *    The verified claims are handed on to JwtAuthenticationFilter, so the token is checked once.
+ *    Requests without a valid token are limited per IP; they get a 401 further down anyway.
+ *    A bulk request takes one token here like a single one; its URLs are charged separately once
+ *    the body has been read (BulkShortenLimiter).
+ * Registered only in the security chain (see WebSecurityConfig), not as a servlet filter of its own.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final JwtUtils jwtUtils;
+    private final ShortnerMetrics metrics;
+    private final boolean enabled;
+    private final RateLimiter redirectLimiter;
+    private final RateLimiter shortenLimiter;
+
+    public RateLimitFilter(JwtUtils jwtUtils,
+                           ShortnerMetrics metrics,
+                           @Value("${shortner.ratelimit.enabled:true}") boolean enabled,
+                           @Value("${shortner.ratelimit.redirect.permits-per-second:20}") double redirectRate,
+                           @Value("${shortner.ratelimit.redirect.burst:50}") int redirectBurst,
+                           @Value("${shortner.ratelimit.shorten.permits-per-second:1}") double shortenRate,
+                           @Value("${shortner.ratelimit.shorten.burst:20}") int shortenBurst,
+                           @Value("${shortner.ratelimit.max-keys:100000}") long maxKeys) {
+        this.jwtUtils = jwtUtils;
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.redirectLimiter = new RateLimiter(redirectRate, redirectBurst, maxKeys);
+        this.shortenLimiter = new RateLimiter(shortenRate, shortenBurst, maxKeys);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || (!isRedirect(request) && !isShorten(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long wait;
+        if (isShorten(request)) {
+            wait = shortenLimiter.tryAcquire(clientKey(request));
+            if (wait > 0) {
+                metrics.shortenRateLimited();
+            }
+        } else {
+            wait = redirectLimiter.tryAcquire(request.getRemoteAddr());
+            if (wait > 0) {
+                metrics.redirectRateLimited();
+            }
+        }
+
+        if (wait > 0) {
+            // 429 with the number of whole seconds until the next request would be let through
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(RateLimiter.retryAfterSeconds(wait)));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    // "user:<name>" for a valid token, "ip:<address>" otherwise, so the two can't collide
+    private String clientKey(HttpServletRequest request) {
+        String jwt = jwtUtils.getJwtFromHeader(request);
+        if (jwt != null) {
+            try {
+                Claims claims = jwtUtils.parseClaims(jwt);
+                request.setAttribute(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE, claims);
+                return "user:" + claims.getSubject();
+            } catch (JwtException | IllegalArgumentException e) {
+                // Invalid or expired: JwtAuthenticationFilter will leave the request unauthenticated
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    // A single path segment, e.g. /aBcD1234 (what the "/{shortUrl}" mapping accepts)
+    private static boolean isRedirect(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return "GET".equals(request.getMethod()) && path.length() > 1 && path.indexOf('/', 1) < 0;
+    }
+
+    private static boolean isShorten(HttpServletRequest request) {
+        return "POST".equals(request.getMethod()) && request.getRequestURI().startsWith("/api/urls/shorten");
+    }
+}
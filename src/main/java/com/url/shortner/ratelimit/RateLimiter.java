@@ -0,0 +1,79 @@
+package com.url.shortner.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket per key ('permitsPerSecond' refill, up to 'burst' tokens), kept as a single long:
+ * the time at which the bucket will be full again (GCRA, the "generic cell rate algorithm").
+ * - Taking a token moves that time forward by one refill interval (n intervals for n tokens); the
+ *   request is rejected when it would end up more than 'burst' intervals in the future. That is one
+ *   compare-and-set, no lock. More tokens than 'burst' are charged as 'burst', so they can pass once
+ *   the bucket is full instead of never.
+ * - Keys live in a Caffeine cache, which is striped internally. A key idle for the time a bucket
+ *   takes to refill completely is indistinguishable from a new one, so it expires after that;
+ *   'maxKeys' bounds memory when many clients show up at once. A key evicted early just starts
+ *   over with a full bucket.
+ */
+public class RateLimiter {
+
+    private final long intervalNanos;
+    private final int burst;
+    private final long toleranceNanos;
+    private final Cache<String, AtomicLong> buckets;
+    // nanoTime() may be negative; times are kept relative to this so 0 means "long ago"
+    private final long origin = System.nanoTime() - TimeUnit.DAYS.toNanos(1);
+
+    public RateLimiter(double permitsPerSecond, int burst, long maxKeys) {
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burst = burst;
+        this.toleranceNanos = intervalNanos * burst;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofNanos(Math.max(toleranceNanos, TimeUnit.SECONDS.toNanos(1))))
+                .build();
+    }
+
+    // 0 if the request may go ahead, otherwise how long (in nanoseconds) until it would be allowed
+    public long tryAcquire(String key) {
+        return tryAcquire(key, 1);
+    }
+
+    // Same for 'permits' tokens at once, e.g. one per URL of a bulk request
+    public long tryAcquire(String key, int permits) {
+        return tryAcquire(key, permits, System.nanoTime() - origin);
+    }
+
+    long tryAcquire(String key, long now) {
+        return tryAcquire(key, 1, now);
+    }
+
+    long tryAcquire(String key, int permits, long now) {
+        long cost = intervalNanos * Math.min(Math.max(permits, 1), burst);
+        AtomicLong bucket = buckets.get(key, k -> new AtomicLong());
+        while (true) {
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt, now) + cost;
+            long wait = next - now - toleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // A wait from tryAcquire as whole seconds for a Retry-After header, at least 1
+    public static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999));
+    }
+
+    public long estimatedKeys() {
+        return buckets.estimatedSize();
+    }
+}
@@ -0,0 +1,229 @@
+package com.url.shortner.repository;
+
+import com.url.shortner.analytics.ClickDay;
+import com.url.shortner.analytics.ExportedClick;
+import com.url.shortner.analytics.HyperLogLog;
+import com.url.shortner.analytics.RollupKey;
+import com.url.shortner.clicks.PendingClick;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Plain JDBC writes for the click pipeline.
+ * JPA can't batch inserts into click_event because its id is IDENTITY generated,
+ * so we go through JdbcTemplate.batchUpdate instead. With reWriteBatchedInserts=true (PostgreSQL)
+ * or rewriteBatchedStatements=true (MySQL) on the JDBC url the driver sends each batch
+ * as a single multi-row INSERT.
+ */
+@Repository
+public class ClickEventJdbcRepository {
+
+    private static final String INSERT_CLICK_EVENT =
+            "insert into click_event (click_date, url_mapping_id, visitor_hash) values (?, ?, ?)";
+    private static final String COUNT_CLICKS =
+            "select count(*) from click_event where url_mapping_id = ? and click_date >= ? and click_date < ?";
+    private static final String VISITOR_HASHES =
+            "select visitor_hash from click_event "
+                    + "where url_mapping_id = ? and click_date >= ? and click_date < ? and visitor_hash is not null";
+    private static final String EXPORT_LINK_CLICKS =
+            "select c.id, u.short_url, c.click_date from click_event c join url_mapping u on u.id = c.url_mapping_id "
+                    + "where c.url_mapping_id = ? and c.click_date >= ? and c.click_date < ? order by c.click_date";
+    private static final String EXPORT_USER_CLICKS =
+            "select c.id, u.short_url, c.click_date from click_event c join url_mapping u on u.id = c.url_mapping_id "
+                    + "where u.user_id = ? and c.click_date >= ? and c.click_date < ? order by c.url_mapping_id, c.click_date";
+
+    // The click_date range uses idx_click_event_date; the rows come sorted the way the rebuild
+    // consumes them, one day and within it one link at a time
+    private static final String CLICK_DAYS =
+            "select cast(click_date as date), url_mapping_id, visitor_hash from click_event "
+                    + "where click_date >= ? and click_date < ? order by cast(click_date as date), url_mapping_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DailyClickRollupRepository dailyClickRollupRepository;
+    private final boolean rollupEnabled;
+    private final int exportFetchSize;
+    private volatile DatabaseDialect dialect;
+
+    public ClickEventJdbcRepository(JdbcTemplate jdbcTemplate,
+                                    DailyClickRollupRepository dailyClickRollupRepository,
+                                    @Value("${shortner.analytics.rollup.enabled:true}") boolean rollupEnabled,
+                                    @Value("${shortner.export.fetch-size:1000}") int exportFetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dailyClickRollupRepository = dailyClickRollupRepository;
+        this.rollupEnabled = rollupEnabled;
+        this.exportFetchSize = exportFetchSize;
+    }
+
+    // Inserts the raw click rows and, in the same transaction, adds them to the daily rollup,
+    // so the two never disagree. The batch collapses to one upsert per link and day.
+    @Transactional
+    public void saveBatch(List<PendingClick> clicks) {
+        jdbcTemplate.batchUpdate(INSERT_CLICK_EVENT, clicks, clicks.size(), (ps, click) -> {
+            ps.setTimestamp(1, Timestamp.valueOf(click.clickDate()));
+            ps.setLong(2, click.urlMappingId());
+            ps.setObject(3, click.visitorHash(), Types.BIGINT);
+        });
+        if (rollupEnabled) {
+            Map<RollupKey, Long> clicksByDay = new HashMap<>();
+            for (PendingClick click : clicks) {
+                clicksByDay.merge(new RollupKey(click.urlMappingId(), click.clickDate().toLocalDate()), 1L, Long::sum);
+            }
+            dailyClickRollupRepository.addClicks(clicksByDay);
+        }
+    }
+
+    // Raw clicks of one link in [from, to). Used for the partial days at the edges of a range.
+    public long countClicks(Long urlMappingId, LocalDateTime from, LocalDateTime to) {
+        Long count = jdbcTemplate.queryForObject(COUNT_CLICKS, Long.class,
+                urlMappingId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+        return count == null ? 0 : count;
+    }
+
+    // Adds the visitors of one link's raw clicks in [from, to) to 'visitors'. Used for partial days, like countClicks.
+    public void collectVisitors(Long urlMappingId, LocalDateTime from, LocalDateTime to, HyperLogLog visitors) {
+        jdbcTemplate.query(VISITOR_HASHES, (RowCallbackHandler) rs -> visitors.add(rs.getLong(1)),
+                urlMappingId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    // Day of the oldest recorded click, or null when there are none yet. The first entry of idx_click_event_date.
+    public LocalDate findFirstClickDay() {
+        Timestamp first = jdbcTemplate.queryForObject("select min(click_date) from click_event", Timestamp.class);
+        return first == null ? null : first.toLocalDateTime().toLocalDate();
+    }
+
+    // Streams the raw clicks of one link in [from, to) to 'sink', in click order.
+    @Transactional(readOnly = true)
+    public void streamClicks(Long urlMappingId, LocalDateTime from, LocalDateTime to, Consumer<ExportedClick> sink) {
+        stream(EXPORT_LINK_CLICKS, urlMappingId, from, to, sink);
+    }
+
+    // Streams the raw clicks of all of a user's links in [from, to) to 'sink', link by link.
+    @Transactional(readOnly = true)
+    public void streamClicksByUser(Long userId, LocalDateTime from, LocalDateTime to, Consumer<ExportedClick> sink) {
+        stream(EXPORT_USER_CLICKS, userId, from, to, sink);
+    }
+
+    // Reads through a forward-only cursor, 'exportFetchSize' rows per round trip, so memory stays flat
+    // however many rows match. PostgreSQL only honours the fetch size inside a transaction (hence
+    // @Transactional above); MySQL needs Integer.MIN_VALUE to stream instead of buffering the result.
+    private void stream(String sql, Long id, LocalDateTime from, LocalDateTime to, Consumer<ExportedClick> sink) {
+        int fetchSize = dialect() == DatabaseDialect.MYSQL ? Integer.MIN_VALUE : exportFetchSize;
+        PreparedStatementCreator statement = con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setLong(1, id);
+            ps.setTimestamp(2, Timestamp.valueOf(from));
+            ps.setTimestamp(3, Timestamp.valueOf(to));
+            return ps;
+        };
+        jdbcTemplate.query(statement, (RowCallbackHandler) rs ->
+                sink.accept(new ExportedClick(rs.getLong(1), rs.getString(2), rs.getTimestamp(3).toLocalDateTime())));
+    }
+
+    // Streams the clicks of the days in [from, to) to 'sink', oldest day first, in one ordered pass over
+    // click_event: a rebuild of many days reads each row once instead of running a query per day and
+    // table. Only one link's sketch is built at a time. Days without clicks are skipped. 'sink' returns
+    // false to stop the pass.
+    @Transactional(readOnly = true)
+    public void streamClickDays(LocalDate from, LocalDate to, Predicate<ClickDay> sink) {
+        int fetchSize = dialect() == DatabaseDialect.MYSQL ? Integer.MIN_VALUE : exportFetchSize;
+        PreparedStatementCreator statement = con -> {
+            PreparedStatement ps = con.prepareStatement(CLICK_DAYS, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setTimestamp(1, Timestamp.valueOf(from.atStartOfDay()));
+            ps.setTimestamp(2, Timestamp.valueOf(to.atStartOfDay()));
+            return ps;
+        };
+        ClickDayReader reader = new ClickDayReader(sink);
+        try {
+            jdbcTemplate.query(statement, reader);
+            reader.endDay();
+        } catch (StopReading e) {
+            // The sink is done; closing the statement ends the pass
+        }
+    }
+
+    // Groups the sorted rows into ClickDays
+    private static final class ClickDayReader implements RowCallbackHandler {
+        private final Predicate<ClickDay> sink;
+        private LocalDate day;
+        private List<ClickDay.LinkClicks> links = new ArrayList<>();
+        private long link = -1;
+        private long clicks;
+        private HyperLogLog visitors;
+
+        ClickDayReader(Predicate<ClickDay> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            LocalDate rowDay = rs.getDate(1).toLocalDate();
+            long rowLink = rs.getLong(2);
+            if (!rowDay.equals(day)) {
+                endDay();
+                day = rowDay;
+            } else if (rowLink != link) {
+                endLink();
+            }
+            link = rowLink;
+            clicks++;
+            long visitorHash = rs.getLong(3);
+            if (!rs.wasNull()) {
+                if (visitors == null) {
+                    visitors = new HyperLogLog();
+                }
+                visitors.add(visitorHash);
+            }
+        }
+
+        private void endLink() {
+            if (clicks > 0) {
+                links.add(new ClickDay.LinkClicks(link, clicks, visitors == null ? null : visitors.toBytes()));
+            }
+            clicks = 0;
+            visitors = null;
+        }
+
+        void endDay() {
+            endLink();
+            if (day != null && !sink.test(new ClickDay(day, links))) {
+                throw new StopReading();
+            }
+            links = new ArrayList<>();
+        }
+    }
+
+    private static final class StopReading extends RuntimeException {
+        StopReading() {
+            super(null, null, false, false);
+        }
+    }
+
+    private DatabaseDialect dialect() {
+        DatabaseDialect current = dialect;
+        if (current == null) {
+            current = DatabaseDialect.detect(jdbcTemplate);
+            dialect = current;
+        }
+        return current;
+    }
+}
@@ -1,8 +1,12 @@
 package com.url.shortner.repository;
 
+import com.url.shortner.dtos.ClickEventDTO;
 import com.url.shortner.models.ClickEvent;
 import com.url.shortner.models.UrlMapping;
+import com.url.shortner.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -10,6 +14,20 @@ import java.util.List;
 
 @Repository
 public interface ClickEventRepository extends JpaRepository<ClickEvent,Long> {
-    List<ClickEvent> findByUrlMappingAndClickDateBetween(UrlMapping urlMapping, LocalDateTime start,LocalDateTime end);
-    List<ClickEvent> findByUrlMappingInAndClickDateBetween(List<UrlMapping> urlMappings, LocalDateTime localDateTime, LocalDateTime localDateTime1);
+    // Clicks per day counted by the database: returns one (date, count) row per day
+    // instead of one ClickEvent entity (plus its UrlMapping and User) per click
+    @Query("select new com.url.shortner.dtos.ClickEventDTO(cast(c.clickDate as LocalDate), count(c)) " +
+            "from ClickEvent c where c.urlMapping = :urlMapping and c.clickDate between :start and :end " +
+            "group by cast(c.clickDate as LocalDate)")
+    List<ClickEventDTO> countClicksPerDay(@Param("urlMapping") UrlMapping urlMapping,
+                                         @Param("start") LocalDateTime start,
+                                         @Param("end") LocalDateTime end);
+
+    // Same, summed over all links of a user (the join to url_mapping replaces loading them first)
+    @Query("select new com.url.shortner.dtos.ClickEventDTO(cast(c.clickDate as LocalDate), count(c)) " +
+            "from ClickEvent c where c.urlMapping.user = :user and c.clickDate between :start and :end " +
+            "group by cast(c.clickDate as LocalDate)")
+    List<ClickEventDTO> countClicksPerDayByUser(@Param("user") User user,
+                                                @Param("start") LocalDateTime start,
+                                                @Param("end") LocalDateTime end);
 }
@@ -0,0 +1,151 @@
+package com.url.shortner.repository;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Monthly range partitions of click_event, named click_event_pYYYYMM (PostgreSQL) or pYYYYMM (MySQL).
+ * The table itself has to be converted to a partitioned table once, with the scripts in docs/sql
+ * (Hibernate's ddl-auto can't create partitioned tables); this only adds and drops partitions.
+ * - PostgreSQL: declarative partitioning, each partition is a table attached to click_event.
+ * - MySQL: RANGE COLUMNS(click_date) with a trailing 'pmax' (MAXVALUE) partition that new months
+ *   are split off from, so an insert never fails for lack of a partition.
+ * Instances coordinate through a named lock (see withMaintenanceLock); creating a partition that
+ * exists by now is not an error.
+ */
+@Repository
+public class ClickPartitionRepository {
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String PG_PARTITIONS =
+            "select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid "
+                    + "join pg_class p on p.oid = i.inhparent where p.relname = 'click_event'";
+    private static final String MYSQL_PARTITIONS =
+            "select partition_name from information_schema.partitions "
+                    + "where table_schema = database() and table_name = 'click_event' and partition_name is not null";
+
+    // pg_advisory locks are keyed by a number, MySQL's by a name
+    private static final long PG_LOCK_KEY = 0x636c69636b5f7061L; // "click_pa"
+    private static final String MYSQL_LOCK_NAME = "shortner.click_event_partitions";
+
+    // ER_SAME_NAME_PARTITION
+    private static final int MYSQL_SAME_NAME_PARTITION = 1517;
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile DatabaseDialect dialect;
+
+    public ClickPartitionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public boolean isSupported() {
+        return dialect() != DatabaseDialect.OTHER;
+    }
+
+    // Months that currently have a partition. Empty when click_event isn't partitioned.
+    public List<YearMonth> findPartitions() {
+        String sql = dialect() == DatabaseDialect.POSTGRESQL ? PG_PARTITIONS : MYSQL_PARTITIONS;
+        return jdbcTemplate.queryForList(sql, String.class).stream()
+                .map(ClickPartitionRepository::parseMonth)
+                .filter(Objects::nonNull)
+                .sorted()
+                .toList();
+    }
+
+    // Runs 'work' holding a database-wide lock, on one connection, so that instances never change
+    // the partitions at the same time. Returns false, without running it, when another instance holds
+    // the lock. PostgreSQL releases the lock with the transaction; MySQL's is released explicitly,
+    // since its DDL commits on its own.
+    @Transactional
+    public boolean withMaintenanceLock(Runnable work) {
+        if (dialect() == DatabaseDialect.POSTGRESQL) {
+            if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject("select pg_try_advisory_xact_lock(?)", Boolean.class, PG_LOCK_KEY))) {
+                return false;
+            }
+            work.run();
+            return true;
+        }
+        Integer locked = jdbcTemplate.queryForObject("select get_lock(?, 0)", Integer.class, MYSQL_LOCK_NAME);
+        if (locked == null || locked != 1) {
+            return false;
+        }
+        try {
+            work.run();
+        } finally {
+            jdbcTemplate.queryForObject("select release_lock(?)", Integer.class, MYSQL_LOCK_NAME);
+        }
+        return true;
+    }
+
+    // Must be called in month order on MySQL (each new month is split off the end of the range).
+    // Returns false when MySQL reports that the partition already exists.
+    public boolean createPartition(YearMonth month) {
+        String from = month.atDay(1).toString();
+        String to = month.plusMonths(1).atDay(1).toString();
+        try {
+            if (dialect() == DatabaseDialect.POSTGRESQL) {
+                // "if not exists" rather than catching the error: a failed statement would abort the
+                // lock's transaction
+                jdbcTemplate.execute("create table if not exists click_event_p" + month.format(SUFFIX)
+                        + " partition of click_event for values from ('" + from + "') to ('" + to + "')");
+            } else {
+                jdbcTemplate.execute("alter table click_event reorganize partition pmax into ("
+                        + "partition p" + month.format(SUFFIX) + " values less than ('" + to + "'), "
+                        + "partition pmax values less than (maxvalue))");
+            }
+            return true;
+        } catch (DataAccessException e) {
+            if (alreadyExists(e)) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    // Drops a whole month of clicks at once: no row deletes, no index bloat, space returned immediately
+    public void dropPartition(YearMonth month) {
+        if (dialect() == DatabaseDialect.POSTGRESQL) {
+            jdbcTemplate.execute("drop table if exists click_event_p" + month.format(SUFFIX));
+        } else {
+            jdbcTemplate.execute("alter table click_event drop partition p" + month.format(SUFFIX));
+        }
+    }
+
+    private static boolean alreadyExists(DataAccessException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && sql.getErrorCode() == MYSQL_SAME_NAME_PARTITION) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // "click_event_p202604" / "p202604" -> 2026-04; anything else (e.g. MySQL's "pmax") -> null
+    static YearMonth parseMonth(String partitionName) {
+        String name = partitionName.toLowerCase();
+        int index = name.lastIndexOf('p');
+        String suffix = name.substring(index + 1);
+        if (index < 0 || suffix.length() != 6 || !suffix.chars().allMatch(Character::isDigit)) {
+            return null;
+        }
+        return YearMonth.parse(suffix, SUFFIX);
+    }
+
+    private DatabaseDialect dialect() {
+        DatabaseDialect current = dialect;
+        if (current == null) {
+            current = DatabaseDialect.detect(jdbcTemplate);
+            dialect = current;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,134 @@
+package com.url.shortner.repository;
+
+import com.url.shortner.analytics.ClickDay;
+import com.url.shortner.analytics.RollupKey;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reads and writes of the daily_click_rollup table (see DailyClickRollup).
+ * Increments are applied as upserts, which need vendor specific SQL, so the dialect is
+ * detected once from the connection metadata.
+ */
+@Slf4j
+@Repository
+public class DailyClickRollupRepository {
+
+    private static final String UPSERT_POSTGRESQL =
+            "insert into daily_click_rollup (url_mapping_id, click_day, click_count) values (?, ?, ?) "
+                    + "on conflict (url_mapping_id, click_day) "
+                    + "do update set click_count = daily_click_rollup.click_count + excluded.click_count";
+    private static final String UPSERT_MYSQL =
+            "insert into daily_click_rollup (url_mapping_id, click_day, click_count) values (?, ?, ?) "
+                    + "on duplicate key update click_count = click_count + values(click_count)";
+    private static final String ADD_CLICKS =
+            "update daily_click_rollup set click_count = click_count + ? where url_mapping_id = ? and click_day = ?";
+    private static final String INSERT_CLICKS =
+            "insert into daily_click_rollup (url_mapping_id, click_day, click_count) values (?, ?, ?)";
+
+    private static final String DELETE_DAY = "delete from daily_click_rollup where click_day = ?";
+
+    private static final String FIND_BY_LINK =
+            "select click_day, click_count from daily_click_rollup "
+                    + "where url_mapping_id = ? and click_day between ? and ?";
+    private static final String FIND_BY_USER =
+            "select r.click_day, sum(r.click_count) from daily_click_rollup r "
+                    + "join url_mapping u on u.id = r.url_mapping_id "
+                    + "where u.user_id = ? and r.click_day between ? and ? group by r.click_day";
+
+    private static final Comparator<RollupKey> LOCK_ORDER =
+            Comparator.comparing(RollupKey::urlMappingId).thenComparing(RollupKey::clickDay);
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile String upsertSql;
+
+    public DailyClickRollupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Adds click counts to the matching rows, creating them as needed.
+    // Joins the caller's transaction, so the rollup commits together with the raw click rows.
+    // Sorted so concurrent writers always lock rows in the same order.
+    @Transactional
+    public void addClicks(Map<RollupKey, Long> clicks) {
+        Map<RollupKey, Long> sorted = new TreeMap<>(LOCK_ORDER);
+        sorted.putAll(clicks);
+        String upsert = upsertSql();
+        if (upsert != null) {
+            jdbcTemplate.batchUpdate(upsert, new ArrayList<>(sorted.entrySet()), sorted.size(), (ps, entry) -> {
+                ps.setLong(1, entry.getKey().urlMappingId());
+                ps.setDate(2, Date.valueOf(entry.getKey().clickDay()));
+                ps.setLong(3, entry.getValue());
+            });
+            return;
+        }
+        // Any other database: update, then insert the rows that didn't exist yet
+        sorted.forEach((key, count) -> {
+            Date day = Date.valueOf(key.clickDay());
+            if (jdbcTemplate.update(ADD_CLICKS, count, key.urlMappingId(), day) == 0) {
+                jdbcTemplate.update(INSERT_CLICKS, key.urlMappingId(), day, count);
+            }
+        });
+    }
+
+    // Replaces one day of the rollup with the clicks read from click_event (see ClickRollupBackfill).
+    // Only safe for days that no longer receive clicks, i.e. before today.
+    @Transactional
+    public int replaceDay(ClickDay clickDay) {
+        Date day = Date.valueOf(clickDay.day());
+        jdbcTemplate.update(DELETE_DAY, day);
+        List<ClickDay.LinkClicks> links = clickDay.links();
+        jdbcTemplate.batchUpdate(INSERT_CLICKS, links, 1000, (ps, link) -> {
+            ps.setLong(1, link.urlMappingId());
+            ps.setDate(2, day);
+            ps.setLong(3, link.clicks());
+        });
+        return links.size();
+    }
+
+    // Clicks per day for one link, 'from' and 'to' inclusive. Days without clicks are absent.
+    public Map<LocalDate, Long> findDailyClicks(Long urlMappingId, LocalDate from, LocalDate to) {
+        return queryDailyClicks(FIND_BY_LINK, urlMappingId, from, to);
+    }
+
+    // Clicks per day summed over all links of a user, 'from' and 'to' inclusive.
+    public Map<LocalDate, Long> findDailyClicksByUser(Long userId, LocalDate from, LocalDate to) {
+        return queryDailyClicks(FIND_BY_USER, userId, from, to);
+    }
+
+    private Map<LocalDate, Long> queryDailyClicks(String sql, Long id, LocalDate from, LocalDate to) {
+        Map<LocalDate, Long> clicksByDay = new TreeMap<>();
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs ->
+                        clicksByDay.put(rs.getDate(1).toLocalDate(), rs.getLong(2)),
+                id, Date.valueOf(from), Date.valueOf(to));
+        return clicksByDay;
+    }
+
+    private String upsertSql() {
+        String sql = upsertSql;
+        if (sql == null) {
+            DatabaseDialect dialect = DatabaseDialect.detect(jdbcTemplate);
+            sql = switch (dialect) {
+                case POSTGRESQL -> UPSERT_POSTGRESQL;
+                case MYSQL -> UPSERT_MYSQL;
+                case OTHER -> {
+                    log.warn("No upsert statement for this database, falling back to update-then-insert");
+                    yield "";
+                }
+            };
+            upsertSql = sql;
+        }
+        return sql.isEmpty() ? null : sql;
+    }
+}
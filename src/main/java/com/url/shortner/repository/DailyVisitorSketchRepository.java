@@ -0,0 +1,141 @@
+package com.url.shortner.repository;
+
+import com.url.shortner.analytics.ClickDay;
+import com.url.shortner.analytics.HyperLogLog;
+import com.url.shortner.analytics.RollupKey;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reads and writes of the daily_visitor_sketch table (see DailyVisitorSketch).
+ * A HyperLogLog merge can't be expressed as an SQL upsert, so new visitors are merged in Java
+ * under a row lock (SELECT ... FOR UPDATE); rows are locked in key order so concurrent
+ * writers, e.g. two instances, can't deadlock.
+ */
+@Repository
+public class DailyVisitorSketchRepository {
+
+    private static final byte[] EMPTY = new HyperLogLog().toBytes();
+
+    private static final String INSERT_IF_ABSENT_POSTGRESQL =
+            "insert into daily_visitor_sketch (url_mapping_id, visit_day, sketch) values (?, ?, ?) on conflict do nothing";
+    private static final String INSERT_IF_ABSENT_MYSQL =
+            "insert ignore into daily_visitor_sketch (url_mapping_id, visit_day, sketch) values (?, ?, ?)";
+    private static final String INSERT =
+            "insert into daily_visitor_sketch (url_mapping_id, visit_day, sketch) values (?, ?, ?)";
+    private static final String EXISTS =
+            "select count(*) from daily_visitor_sketch where url_mapping_id = ? and visit_day = ?";
+    private static final String SELECT_FOR_UPDATE =
+            "select sketch from daily_visitor_sketch where url_mapping_id = ? and visit_day = ? for update";
+    private static final String UPDATE =
+            "update daily_visitor_sketch set sketch = ? where url_mapping_id = ? and visit_day = ?";
+
+    private static final String DELETE_DAY = "delete from daily_visitor_sketch where visit_day = ?";
+
+    private static final String FIND_BY_LINK =
+            "select visit_day, sketch from daily_visitor_sketch "
+                    + "where url_mapping_id = ? and visit_day between ? and ?";
+    private static final String FIND_BY_USER =
+            "select s.visit_day, s.sketch from daily_visitor_sketch s "
+                    + "join url_mapping u on u.id = s.url_mapping_id "
+                    + "where u.user_id = ? and s.visit_day between ? and ?";
+
+    private static final Comparator<RollupKey> LOCK_ORDER =
+            Comparator.comparing(RollupKey::urlMappingId).thenComparing(RollupKey::clickDay);
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile DatabaseDialect dialect;
+
+    public DailyVisitorSketchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Merges new visitors into the sketch of each link and day, creating rows as needed.
+    @Transactional
+    public void addVisitors(Map<RollupKey, HyperLogLog> visitors) {
+        List<RollupKey> keys = visitors.keySet().stream().sorted(LOCK_ORDER).toList();
+
+        // 1. Make sure every row exists, so that step 2 always has a row to lock
+        String insertIfAbsent = switch (dialect()) {
+            case POSTGRESQL -> INSERT_IF_ABSENT_POSTGRESQL;
+            case MYSQL -> INSERT_IF_ABSENT_MYSQL;
+            case OTHER -> null;
+        };
+        if (insertIfAbsent != null) {
+            jdbcTemplate.batchUpdate(insertIfAbsent, keys, keys.size(), (ps, key) -> {
+                ps.setLong(1, key.urlMappingId());
+                ps.setDate(2, Date.valueOf(key.clickDay()));
+                ps.setBytes(3, EMPTY);
+            });
+        } else {
+            for (RollupKey key : keys) {
+                Long count = jdbcTemplate.queryForObject(EXISTS, Long.class, key.urlMappingId(), Date.valueOf(key.clickDay()));
+                if (count == null || count == 0) {
+                    jdbcTemplate.update(INSERT, key.urlMappingId(), Date.valueOf(key.clickDay()), EMPTY);
+                }
+            }
+        }
+
+        // 2. Read, merge and write back under the row lock
+        List<Object[]> updates = new ArrayList<>(keys.size());
+        for (RollupKey key : keys) {
+            Date day = Date.valueOf(key.clickDay());
+            byte[] stored = jdbcTemplate.queryForObject(SELECT_FOR_UPDATE, byte[].class, key.urlMappingId(), day);
+            updates.add(new Object[]{HyperLogLog.fromBytes(stored).merge(visitors.get(key)).toBytes(), key.urlMappingId(), day});
+        }
+        jdbcTemplate.batchUpdate(UPDATE, updates);
+    }
+
+    // Replaces one day of sketches with the visitors read from click_event (see ClickRollupBackfill).
+    // Only safe for days that no longer receive clicks, i.e. before today.
+    @Transactional
+    public int replaceDay(ClickDay clickDay) {
+        Date day = Date.valueOf(clickDay.day());
+        jdbcTemplate.update(DELETE_DAY, day);
+        List<ClickDay.LinkClicks> links = clickDay.links().stream().filter(link -> link.visitors() != null).toList();
+        jdbcTemplate.batchUpdate(INSERT, links, 1000, (ps, link) -> {
+            ps.setLong(1, link.urlMappingId());
+            ps.setDate(2, day);
+            ps.setBytes(3, link.visitors());
+        });
+        return links.size();
+    }
+
+    // Visitor sketch per day for one link, 'from' and 'to' inclusive. Days without visitors are absent.
+    public Map<LocalDate, HyperLogLog> findDailySketches(Long urlMappingId, LocalDate from, LocalDate to) {
+        return queryDailySketches(FIND_BY_LINK, urlMappingId, from, to);
+    }
+
+    // Visitor sketch per day merged over all links of a user, 'from' and 'to' inclusive.
+    public Map<LocalDate, HyperLogLog> findDailySketchesByUser(Long userId, LocalDate from, LocalDate to) {
+        return queryDailySketches(FIND_BY_USER, userId, from, to);
+    }
+
+    // Merges while reading, so memory is one sketch per day however many links there are
+    private Map<LocalDate, HyperLogLog> queryDailySketches(String sql, Long id, LocalDate from, LocalDate to) {
+        Map<LocalDate, HyperLogLog> sketchesByDay = new TreeMap<>();
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs ->
+                        sketchesByDay.merge(rs.getDate(1).toLocalDate(), HyperLogLog.fromBytes(rs.getBytes(2)), HyperLogLog::merge),
+                id, Date.valueOf(from), Date.valueOf(to));
+        return sketchesByDay;
+    }
+
+    private DatabaseDialect dialect() {
+        DatabaseDialect current = dialect;
+        if (current == null) {
+            current = DatabaseDialect.detect(jdbcTemplate);
+            dialect = current;
+        }
+        return current;
+    }
+}
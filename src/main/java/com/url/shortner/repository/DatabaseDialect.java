@@ -0,0 +1,19 @@
+package com.url.shortner.repository;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// The databases we write vendor specific SQL or JDBC settings for; everything else is OTHER.
+public enum DatabaseDialect {
+    POSTGRESQL, MYSQL, OTHER;
+
+    // Reads the product name from the connection metadata (costs a connection checkout, so cache the result)
+    static DatabaseDialect detect(JdbcTemplate jdbcTemplate) {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        return switch (product == null ? "" : product.toLowerCase()) {
+            case "postgresql" -> POSTGRESQL;
+            case "mysql", "mariadb" -> MYSQL;
+            default -> OTHER;
+        };
+    }
+}
@@ -0,0 +1,23 @@
+package com.url.shortner.repository;
+
+import com.url.shortner.models.RollupBackfillState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+@Repository
+public interface RollupBackfillStateRepository extends JpaRepository<RollupBackfillState,String> {
+
+    // Moves the row's day forward to 'day' unless it is already there: 1 for the one caller that
+    // did, 0 for everyone after it. Used as a once-per-day lock across instances.
+    @Modifying
+    @Transactional
+    @Query("update RollupBackfillState s set s.doneThrough = :day "
+            + "where s.name = :name and (s.doneThrough is null or s.doneThrough < :day)")
+    int claim(@Param("name") String name, @Param("day") LocalDate day);
+}
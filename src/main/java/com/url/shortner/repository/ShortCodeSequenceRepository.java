@@ -0,0 +1,19 @@
+package com.url.shortner.repository;
+
+import com.url.shortner.models.ShortCodeSequence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ShortCodeSequenceRepository extends JpaRepository<ShortCodeSequence,String> {
+    // SELECT ... FOR UPDATE: concurrent leases from other instances wait for this transaction
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from ShortCodeSequence s where s.name = :name")
+    Optional<ShortCodeSequence> lockByName(@Param("name") String name);
+}
@@ -0,0 +1,103 @@
+package com.url.shortner.repository;
+
+import com.url.shortner.models.UrlMapping;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+@Repository
+public class UrlMappingJdbcRepository {
+
+    private static final String ADD_CLICK_COUNT =
+            "update url_mapping set click_count = click_count + ? where id = ?";
+    private static final String INSERT_URL_MAPPING =
+            "insert into url_mapping (short_url, original_url, click_count, created_date, user_id) values (?, ?, ?, ?, ?)";
+
+    private static final String SHORT_URLS_CREATED_SINCE =
+            "select short_url from url_mapping where created_date >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile DatabaseDialect dialect;
+
+    public UrlMappingJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Applies click count deltas atomically in the database (no read-modify-write in Java),
+    // one UPDATE per link. Sorted by id so concurrent flushes always lock rows in the same order.
+    @Transactional
+    public void addClickCounts(Map<Long, Long> deltas) {
+        Map<Long, Long> sorted = new TreeMap<>(deltas);
+        jdbcTemplate.batchUpdate(ADD_CLICK_COUNT, new ArrayList<>(sorted.entrySet()), sorted.size(), (ps, entry) -> {
+            ps.setLong(1, entry.getValue());
+            ps.setLong(2, entry.getKey());
+        });
+    }
+
+    // Inserts the mappings as one JDBC batch and sets their generated ids.
+    // The ids are read back by short code (unique) instead of through getGeneratedKeys:
+    // MySQL's driver derives batch keys from the first one, which is wrong under interleaved auto-increment.
+    @Transactional
+    public void insertBatch(List<UrlMapping> urlMappings) {
+        jdbcTemplate.batchUpdate(INSERT_URL_MAPPING, urlMappings, urlMappings.size(), (ps, urlMapping) -> {
+            ps.setString(1, urlMapping.getShortUrl());
+            ps.setString(2, urlMapping.getOriginalUrl());
+            ps.setInt(3, urlMapping.getClickCount());
+            ps.setTimestamp(4, Timestamp.valueOf(urlMapping.getCreatedDate()));
+            ps.setLong(5, urlMapping.getUser().getId());
+        });
+
+        Map<String, Long> ids = new HashMap<>();
+        String placeholders = String.join(", ", Collections.nCopies(urlMappings.size(), "?"));
+        jdbcTemplate.query("select id, short_url from url_mapping where short_url in (" + placeholders + ")",
+                (RowCallbackHandler) rs -> ids.put(rs.getString(2), rs.getLong(1)),
+                urlMappings.stream().map(UrlMapping::getShortUrl).toArray());
+        urlMappings.forEach(urlMapping -> urlMapping.setId(ids.get(urlMapping.getShortUrl())));
+    }
+
+    public long countShortUrls() {
+        Long count = jdbcTemplate.queryForObject("select count(*) from url_mapping", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    // Streams the short code of every mapping created at or after 'createdSince' (all of them when null)
+    // through a forward-only cursor, so memory stays flat however many links there are.
+    @Transactional(readOnly = true)
+    public void forEachShortUrl(LocalDateTime createdSince, Consumer<String> sink) {
+        // Same cursor settings as the click export: MySQL only streams with Integer.MIN_VALUE
+        int fetchSize = dialect() == DatabaseDialect.MYSQL ? Integer.MIN_VALUE : 1000;
+        PreparedStatementCreator statement = con -> {
+            PreparedStatement ps = con.prepareStatement(createdSince == null ? "select short_url from url_mapping" : SHORT_URLS_CREATED_SINCE,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            if (createdSince != null) {
+                ps.setTimestamp(1, Timestamp.valueOf(createdSince));
+            }
+            return ps;
+        };
+        jdbcTemplate.query(statement, (RowCallbackHandler) rs -> sink.accept(rs.getString(1)));
+    }
+
+    private DatabaseDialect dialect() {
+        DatabaseDialect current = dialect;
+        if (current == null) {
+            current = DatabaseDialect.detect(jdbcTemplate);
+            dialect = current;
+        }
+        return current;
+    }
+}
@@ -1,14 +1,46 @@
 package com.url.shortner.repository;
 
+import com.url.shortner.dtos.UrlMappingDTO;
 import com.url.shortner.models.UrlMapping;
 import com.url.shortner.models.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface UrlMappingRepository extends JpaRepository<UrlMapping,Long> {
+    // Read-only so the redirect lookup runs on the read replica when there is one. Query methods
+    // declared here don't inherit the read-only default of JpaRepository's own methods.
+    @Transactional(readOnly = true)
     UrlMapping findByShortUrl(String shortUrl);
     List<UrlMapping>findByUser(User user);
+
+    // Keyset pagination of a user's links, selecting straight into DTOs (no UrlMapping entities).
+    // Each query continues after the (sort value, id) of the last row of the previous page, so every
+    // page is one index range scan on (user_id, <sort column>, id) however deep the user pages.
+    // The Pageable only carries the page size: always pass page 0.
+    String SELECT_DTO = "select new com.url.shortner.dtos.UrlMappingDTO(u.id, u.originalUrl, u.shortUrl, " +
+            "u.clickCount, u.createdDate, u.user.username) from UrlMapping u ";
+
+    @Query(SELECT_DTO + "where u.user = :user order by u.createdDate desc, u.id desc")
+    List<UrlMappingDTO> findPageByCreatedDate(@Param("user") User user, Pageable page);
+
+    @Query(SELECT_DTO + "where u.user = :user and (u.createdDate < :createdDate " +
+            "or (u.createdDate = :createdDate and u.id < :id)) order by u.createdDate desc, u.id desc")
+    List<UrlMappingDTO> findPageByCreatedDateAfter(@Param("user") User user, @Param("createdDate") LocalDateTime createdDate,
+                                                   @Param("id") Long id, Pageable page);
+
+    @Query(SELECT_DTO + "where u.user = :user order by u.clickCount desc, u.id desc")
+    List<UrlMappingDTO> findPageByClickCount(@Param("user") User user, Pageable page);
+
+    @Query(SELECT_DTO + "where u.user = :user and (u.clickCount < :clickCount " +
+            "or (u.clickCount = :clickCount and u.id < :id)) order by u.clickCount desc, u.id desc")
+    List<UrlMappingDTO> findPageByClickCountAfter(@Param("user") User user, @Param("clickCount") int clickCount,
+                                                  @Param("id") Long id, Pageable page);
 }
@@ -1,13 +1,22 @@
 package com.url.shortner.security;
 
+import com.url.shortner.bulkhead.BulkheadFilter;
+import com.url.shortner.ratelimit.RateLimitFilter;
 import com.url.shortner.security.jwt.JwtAuthenticationFilter;
 import com.url.shortner.services.UserDetailsServiceImpl;
+import jakarta.servlet.DispatcherType;
 import lombok.AllArgsConstructor;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementPortType;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -16,6 +25,7 @@ import org.springframework.security.config.annotation.web.configurers.AbstractHt
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 /**
@@ -29,6 +39,9 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class WebSecurityConfig {
 
     private UserDetailsServiceImpl userDetailsService;
+    private RateLimitFilter rateLimitFilter;
+    private BulkheadFilter bulkheadFilter;
+    private Environment environment;
 
     // 1. Define our custom JWT Filter bean.
     // This filter will intercept every request to check for a valid token.
@@ -37,6 +50,23 @@ public class WebSecurityConfig {
         return new JwtAuthenticationFilter();
     }
 
+    // 1.1 The rate limiter is a Filter bean, which Spring Boot would also register as a servlet filter
+    // running outside (and in addition to) the security chain. It belongs only in the chain below.
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration() {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    // 1.2 Same for the bulkheads
+    @Bean
+    public FilterRegistrationBean<BulkheadFilter> bulkheadFilterRegistration() {
+        FilterRegistrationBean<BulkheadFilter> registration = new FilterRegistrationBean<>(bulkheadFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
     // 2. Define how to "hash" passwords.
     // We use BCrypt so we never store plain-text passwords in the database.
     @Bean
@@ -73,6 +103,19 @@ public class WebSecurityConfig {
                         // Allow browsers to send "Pre-flight" OPTIONS requests without a token
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
 
+                        // The dispatch that completes a streamed response (e.g. click exports): the request
+                        // was already authorized, and the stateless JWT isn't re-read on this dispatch
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
+                        // Public: health checks
+                        .requestMatchers("/actuator/health/**").permitAll()
+
+                        // The Prometheus scrape is only public on a management port of its own
+                        // (management.server.port, see application.properties), which isn't exposed
+                        // outside. Served on the application's port, the metrics need an admin.
+                        .requestMatchers("/actuator/prometheus").access(prometheusAccess())
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
+
                         // Public: Anyone can register or login
                         .requestMatchers("/api/auth/**").permitAll()
 
@@ -93,6 +136,19 @@ public class WebSecurityConfig {
         // This ensures we check for a token before Spring tries to look for a session.
         http.addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
 
+        // Rate limits come first, so a rejected request costs a map lookup and a CAS (see RateLimitFilter)
+        http.addFilterBefore(rateLimitFilter, JwtAuthenticationFilter.class);
+
+        // Then the workload bulkheads, so rate-limited requests never take a permit (see BulkheadFilter)
+        http.addFilterAfter(bulkheadFilter, RateLimitFilter.class);
+
         return http.build();
     }
+
+    private AuthorizationManager<RequestAuthorizationContext> prometheusAccess() {
+        if (ManagementPortType.get(environment) == ManagementPortType.DIFFERENT) {
+            return (authentication, context) -> new AuthorizationDecision(true);
+        }
+        return AuthorityAuthorizationManager.hasRole("ADMIN");
+    }
 }
\ No newline at end of file
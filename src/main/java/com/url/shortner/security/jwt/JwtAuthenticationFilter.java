@@ -1,5 +1,8 @@
 package com.url.shortner.security.jwt;
 
+import com.url.shortner.metrics.ShortnerMetrics;
+import com.url.shortner.services.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -7,8 +10,6 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -17,10 +18,14 @@ import java.io.IOException;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    // Claims already verified earlier in the chain (by RateLimitFilter), so the token isn't parsed twice
+    public static final String CLAIMS_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".claims";
+
     @Autowired
     private JwtUtils jwtTokenProvider;
     @Autowired
-    private UserDetailsService userDetailsService;
+    private ShortnerMetrics metrics;
 
     //In Spring Security, the OncePerRequestFilter acts as a security gatekeeper. It intercepts every incoming request to check for a valid "passport" (the JWT).
     @Override
@@ -30,24 +35,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             // 1. Calls the helper method in JwtUtils to extract the token string from the "Authorization" header
             String jwt = jwtTokenProvider.getJwtFromHeader(request);
 
-            // 2. Checks if the token exists and passes the cryptographic/expiration validation checks
-            if (jwt != null && jwtTokenProvider.validateToken(jwt)) {
-
-                // 3. Extracts the username (the 'subject') from the validated JWT payload
-                String username = jwtTokenProvider.getUserNameFromJwtToken(jwt);
+            // 2. Verifies the token (signature + expiration) and reads its payload in one pass
+            if (jwt != null) {
+                long start = System.nanoTime();
+                Claims claims = (Claims) request.getAttribute(CLAIMS_ATTRIBUTE);
+                if (claims == null) {
+                    claims = jwtTokenProvider.parseClaims(jwt);
+                }
 
-                // 4. Loads the full user details (password, roles, etc.) from the database using the username
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                // 3. Builds the user (username from the 'subject', roles from the 'roles' claim)
+                // straight from the verified token, so no database lookup is needed per request
+                UserDetailsImpl userDetails = jwtTokenProvider.getUserDetailsFromClaims(claims);
+                metrics.jwtValidation(start);
 
-                // 5. Creates an Authentication object—this represents the "logged-in" state in Spring Security.
+                // 4. Creates an Authentication object—this represents the "logged-in" state in Spring Security.
                 // We pass null for credentials because the user is already authenticated via the token.
                 UsernamePasswordAuthenticationToken authenticationToken =
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
 
-                // 6. Attaches extra web-related details (like the IP address or session ID) to the authentication object
+                // 5. Attaches extra web-related details (like the IP address or session ID) to the authentication object
                 authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                // 7. Stores the authentication object into the SecurityContext.
+                // 6. Stores the authentication object into the SecurityContext.
                 // This is crucial: it tells Spring "this user is officially logged in for the duration of this request."
                 SecurityContextHolder.getContext().setAuthentication(authenticationToken);
             }
@@ -56,7 +65,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             e.printStackTrace();
         }
 
-        // 8. CRITICAL: Continues the request through the remaining filters in the chain.
+        // 7. CRITICAL: Continues the request through the remaining filters in the chain.
         // Without this, the request would hang and never reach your Controller.
         filterChain.doFilter(request, response);
     }
@@ -1,17 +1,22 @@
 package com.url.shortner.security.jwt;
 
 import com.url.shortner.services.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
-import java.security.Key;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 import java.util.stream.Collectors;
 
 @Component
@@ -25,6 +30,19 @@ public class JwtUtils {
     @Value("${jwt.secret}")
     private String  jwtSecret;
 
+    // Built once from the secret: both are immutable and thread-safe, so every request shares them
+    private SecretKey key;
+    private JwtParser parser;
+
+    @PostConstruct
+    public void init() {
+        key = getkey();
+        parser = Jwts.parser()
+                // Provides the secret key used to verify that the token's signature is authentic
+                .verifyWith(key)
+                .build();
+    }
+
     // Extracts the JWT token from the Authorization header of the request
     // Authorization header format: "Bearer <TOKEN>"
     public String getJwtFromHeader(HttpServletRequest request) {
@@ -56,37 +74,42 @@ public class JwtUtils {
                 .issuedAt(new Date())
                 // Sets the "exp" (expiration) claim by adding the configured milliseconds to the current time
                 .expiration(new Date(new Date().getTime() + jwtExpiration))
-                // Signs the JWT using the HMAC-SHA algorithm and the secret key generated by getkey()
-                .signWith(getkey())
+                // Signs the JWT using the HMAC-SHA algorithm and the precomputed secret key
+                .signWith(key)
                 // Finalizes the construction and serializes the JWT into its compact, URL-safe string format
                 .compact();
     }
 
+    // Verifies the token (signature, expiration, 'not before') and returns its payload, in a single parse.
+    // Throws a JwtException if the token can't be trusted.
+    public Claims parseClaims(String token) {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+
+    // Builds the authenticated principal from verified claims, without a database lookup:
+    // the username is the 'sub' claim and the authorities come from the 'roles' claim.
+    // Role changes therefore take effect when the user next logs in (at most 'jwt.expiration' later).
+    public UserDetailsImpl getUserDetailsFromClaims(Claims claims) {
+        String roles = claims.get("roles", String.class);
+        List<GrantedAuthority> authorities = roles == null || roles.isEmpty()
+                ? List.of()
+                : Arrays.stream(roles.split(","))
+                        .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role))
+                        .toList();
+        // No id, email or password: the token doesn't carry them and nothing downstream needs them
+        return new UserDetailsImpl(null, null, claims.getSubject(), null, authorities);
+    }
+
     public String getUserNameFromJwtToken(String token) {
-        // Initializes the JWT parser builder
-        return Jwts.parser()
-                // Provides the secret key used to verify that the token's signature is authentic
-                .verifyWith((SecretKey) getkey())
-                // Builds the parser instance and uses it to parse the signed JWT string
-                // This will throw an exception if the signature is invalid or the token is expired
-                .build().parseSignedClaims(token)
-                // Accesses the 'Payload' (the middle part of the JWT)
-                .getPayload()
-                // Retrieves the 'Subject' field from the payload (the username we set during generation)
-                .getSubject();
+        // Retrieves the 'Subject' field from the payload (the username we set during generation)
+        return parseClaims(token).getSubject();
     }
 
     public boolean validateToken(String token) {
         try {
-            // Initializes the JWT parser builder
-            Jwts.parser()
-                    // Supplies the SecretKey required to check the cryptographic signature of the token
-                    .verifyWith((SecretKey) getkey())
-                    // Builds the parser instance based on the provided configuration
-                    .build()
-                    // Attempts to parse the token; this step performs the actual validation
-                    // (checks signature, expiration date, and 'not before' constraints)
-                    .parseSignedClaims(token);
+            // Attempts to parse the token; this step performs the actual validation
+            // (checks signature, expiration date, and 'not before' constraints)
+            parseClaims(token);
 
             // If the line above executes without throwing an exception, the token is valid
             return true;
@@ -99,7 +122,7 @@ public class JwtUtils {
         }
     }
 
-    private Key getkey() {
+    private SecretKey getkey() {
         // Decodes the Base64-encoded secret string from your properties file into a raw byte array
         byte[] keyBytes = Decoders.BASE64.decode(jwtSecret);
 
@@ -0,0 +1,12 @@
+package com.url.shortner.services;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Thrown when a bulk request carries more URLs than 'shortner.bulk.max-urls' (HTTP 413)
+@ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+public class BulkRequestTooLargeException extends RuntimeException {
+    public BulkRequestTooLargeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,113 @@
+package com.url.shortner.services;
+
+import com.url.shortner.cache.SharedUrlCache;
+import com.url.shortner.cache.ShortCodeFilter;
+import com.url.shortner.codegen.ShortCodeGenerator;
+import com.url.shortner.dtos.BulkShortenResultDTO;
+import com.url.shortner.models.UrlMapping;
+import com.url.shortner.models.User;
+import com.url.shortner.repository.UrlMappingJdbcRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shortens many URLs in one request (campaigns of tens of thousands of links).
+ * The mappings are inserted through JDBC batches of 'batchSize' rows rather than one JPA save each:
+ * with IDENTITY ids Hibernate can't batch inserts at all.
+ * Invalid URLs are reported per item and don't fail the request; everything valid is created
+ * in a single transaction, so a database failure creates nothing.
+ * The transaction is rolled back after shortner.bulk.transaction-timeout-seconds: the other
+ * instances' ShortCodeFilter syncs re-read that far back, so a slow bulk insert can't commit rows
+ * they have already passed (see ShortCodeFilter).
+ */
+@Service
+public class BulkUrlShortener {
+
+    private final UrlMappingJdbcRepository urlMappingJdbcRepository;
+    private final ShortCodeGenerator shortCodeGenerator;
+    private final ShortCodeFilter shortCodeFilter;
+    private final SharedUrlCache sharedUrlCache;
+    private final int maxUrls;
+    private final int batchSize;
+
+    public BulkUrlShortener(UrlMappingJdbcRepository urlMappingJdbcRepository,
+                            ShortCodeGenerator shortCodeGenerator,
+                            ShortCodeFilter shortCodeFilter,
+                            SharedUrlCache sharedUrlCache,
+                            @Value("${shortner.bulk.max-urls:100000}") int maxUrls,
+                            @Value("${shortner.bulk.batch-size:1000}") int batchSize) {
+        this.urlMappingJdbcRepository = urlMappingJdbcRepository;
+        this.shortCodeGenerator = shortCodeGenerator;
+        this.shortCodeFilter = shortCodeFilter;
+        this.sharedUrlCache = sharedUrlCache;
+        this.maxUrls = maxUrls;
+        this.batchSize = batchSize;
+    }
+
+    // Returns one result per submitted URL, in input order
+    @Transactional(timeoutString = "${shortner.bulk.transaction-timeout-seconds:60}")
+    public List<BulkShortenResultDTO> shorten(List<String> originalUrls, User user) {
+        if (originalUrls == null || originalUrls.isEmpty()) {
+            return List.of();
+        }
+        if (originalUrls.size() > maxUrls) {
+            throw new BulkRequestTooLargeException("At most " + maxUrls + " URLs per request, got " + originalUrls.size());
+        }
+
+        // 1. Validate and canonicalize each URL, and give every valid one a code
+        LocalDateTime now = LocalDateTime.now();
+        List<BulkShortenResultDTO> results = new ArrayList<>(originalUrls.size());
+        List<UrlMapping> mappings = new ArrayList<>(originalUrls.size());
+        List<BulkShortenResultDTO> created = new ArrayList<>(originalUrls.size());
+        for (String originalUrl : originalUrls) {
+            BulkShortenResultDTO result = new BulkShortenResultDTO();
+            results.add(result);
+            try {
+                result.setOriginalUrl(UrlNormalizer.normalize(originalUrl));
+            } catch (InvalidUrlException e) {
+                result.setOriginalUrl(originalUrl);
+                result.setError(e.getMessage());
+                continue;
+            }
+            result.setShortUrl(shortCodeGenerator.nextCode());
+            shortCodeFilter.put(result.getShortUrl());
+            UrlMapping urlMapping = new UrlMapping();
+            urlMapping.setShortUrl(result.getShortUrl());
+            urlMapping.setOriginalUrl(result.getOriginalUrl());
+            urlMapping.setUser(user);
+            urlMapping.setCreatedDate(now);
+            mappings.add(urlMapping);
+            created.add(result);
+        }
+
+        // 2. Insert them batch by batch; the repository fills in the generated ids
+        // (the redirect cache is not warmed here: a campaign's links aren't all clicked right away)
+        for (int from = 0; from < mappings.size(); from += batchSize) {
+            urlMappingJdbcRepository.insertBatch(mappings.subList(from, Math.min(from + batchSize, mappings.size())));
+        }
+        for (int i = 0; i < mappings.size(); i++) {
+            created.get(i).setId(mappings.get(i).getId());
+        }
+
+        // 3. Once committed, let the other instances forget that these codes were unknown
+        List<String> shortUrls = created.stream().map(BulkShortenResultDTO::getShortUrl).toList();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    sharedUrlCache.publishCreated(shortUrls);
+                }
+            });
+        } else {
+            sharedUrlCache.publishCreated(shortUrls);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,12 @@
+package com.url.shortner.services;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Thrown for an unknown sort order or a malformed/mismatched paging cursor (HTTP 400)
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidPageRequestException extends RuntimeException {
+    public InvalidPageRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.url.shortner.services;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Thrown when a role change names a role other than ROLE_USER or ROLE_ADMIN (HTTP 400)
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidRoleException extends RuntimeException {
+    public InvalidRoleException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.url.shortner.services;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Thrown when a URL submitted for shortening can't be turned into a valid redirect target (HTTP 400)
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidUrlException extends RuntimeException {
+    public InvalidUrlException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,49 @@
+package com.url.shortner.services;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset paging cursor: the sort order, plus the sort value and id of the last row of a page.
+ * Handed to clients as an opaque base64url string, e.g. "created|2026-04-27T10:00|42".
+ */
+record PageCursor(String sort, String value, Long id) {
+
+    static final String SORT_CREATED = "created";
+    static final String SORT_CLICKS = "clicks";
+
+    String encode() {
+        String raw = sort + "|" + value + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Rejects cursors that were tampered with or that belong to another sort order
+    static PageCursor decode(String cursor, String expectedSort) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 3 || !parts[0].equals(expectedSort)) {
+                throw new InvalidPageRequestException("Cursor does not belong to sort '" + expectedSort + "'");
+            }
+            PageCursor pageCursor = new PageCursor(parts[0], parts[1], Long.parseLong(parts[2]));
+            // Parse the value once here so a bad cursor is a 400, not a failure in the query
+            if (SORT_CREATED.equals(expectedSort)) {
+                pageCursor.createdDate();
+            } else {
+                pageCursor.clickCount();
+            }
+            return pageCursor;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidPageRequestException("Malformed cursor");
+        }
+    }
+
+    LocalDateTime createdDate() {
+        return LocalDateTime.parse(value);
+    }
+
+    int clickCount() {
+        return Integer.parseInt(value);
+    }
+}
@@ -1,42 +1,87 @@
 package com.url.shortner.services;
 
+import com.url.shortner.analytics.ClickRollups;
+import com.url.shortner.analytics.HotLinks;
+import com.url.shortner.analytics.HyperLogLog;
+import com.url.shortner.analytics.UniqueVisitors;
+import com.url.shortner.cache.ResolvedUrl;
+import com.url.shortner.cache.SharedUrlCache;
+import com.url.shortner.cache.ShortCodeFilter;
+import com.url.shortner.cache.UrlResolutionCache;
+import com.url.shortner.clicks.ClickCounters;
+import com.url.shortner.clicks.ClickRecorder;
+import com.url.shortner.codegen.ShortCodeGenerator;
+import com.url.shortner.datasource.ReplicaRouting;
 import com.url.shortner.dtos.ClickEventDTO;
+import com.url.shortner.dtos.UniqueVisitorsDTO;
 import com.url.shortner.dtos.UrlMappingDTO;
-import com.url.shortner.models.ClickEvent;
+import com.url.shortner.dtos.UrlMappingPageDTO;
+import com.url.shortner.metrics.ShortnerMetrics;
 import com.url.shortner.models.UrlMapping;
 import com.url.shortner.models.User;
 import com.url.shortner.repository.ClickEventRepository;
 import com.url.shortner.repository.UrlMappingRepository;
 import lombok.AllArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.Optional;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor
 public class UrlMappingService {
 
+    static final int MAX_PAGE_SIZE = 500;
+
     private UrlMappingRepository urlMappingRepository;
     private ClickEventRepository clickEventRepository;
+    private UrlResolutionCache urlResolutionCache;
+    private ClickRecorder clickRecorder;
+    private ClickCounters clickCounters;
+    private ShortCodeGenerator shortCodeGenerator;
+    private ClickRollups clickRollups;
+    private UniqueVisitors uniqueVisitors;
+    private HotLinks hotLinks;
+    private ShortCodeFilter shortCodeFilter;
+    private ShortnerMetrics metrics;
+    private SharedUrlCache sharedUrlCache;
+    private ReplicaRouting replicaRouting;
 
     public UrlMappingDTO convertToShortUrl(String originalUrl, User user) {
-        String shortUrl=generateUrl();
+        long start = System.nanoTime();
+        // Validate and canonicalize once here, so redirects can use the stored value as is
+        String canonicalUrl=UrlNormalizer.normalize(originalUrl);
+        String shortUrl=shortCodeGenerator.nextCode();
+        // Into the redirect's Bloom filter before the row exists, so the code is never rejected
+        shortCodeFilter.put(shortUrl);
         UrlMapping urlMapping=new UrlMapping();
         urlMapping.setShortUrl(shortUrl);
-        urlMapping.setOriginalUrl(originalUrl);
+        urlMapping.setOriginalUrl(canonicalUrl);
         urlMapping.setUser(user);
         urlMapping.setCreatedDate(LocalDateTime.now());
         urlMappingRepository.save(urlMapping);
-        return convertToDTO(urlMapping);
+        // Warm the redirect caches so the first clicks on a freshly shared link skip the DB lookup,
+        // and let the other instances forget that the code was unknown
+        ResolvedUrl resolvedUrl = toResolvedUrl(urlMapping);
+        urlResolutionCache.put(resolvedUrl);
+        sharedUrlCache.put(resolvedUrl);
+        sharedUrlCache.publishCreated(List.of(shortUrl));
+        UrlMappingDTO urlMappingDTO = convertToDTO(urlMapping);
+        metrics.shorten(start);
+        return urlMappingDTO;
     }
 
-    private UrlMappingDTO convertToDTO(UrlMapping urlMapping) {
+    // package-private so the JMH benchmarks in src/jmh can measure it directly
+    UrlMappingDTO convertToDTO(UrlMapping urlMapping) {
         UrlMappingDTO urlMappingDTO=new UrlMappingDTO();
         urlMappingDTO.setId(urlMapping.getId());
         urlMappingDTO.setOriginalUrl(urlMapping.getOriginalUrl());
@@ -47,16 +92,7 @@ public class UrlMappingService {
         return urlMappingDTO;
     }
 
-    private String generateUrl (){
-        String character="ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
-        Random random=new Random();
-        StringBuilder url=new StringBuilder(8);
-        for(int i=0;i<8;i++){
-            url.append(character.charAt(random.nextInt(character.length())));
-        }
-        return url.toString();
-    }
-
+    @Transactional(readOnly = true)
     public List<UrlMappingDTO> getAllUrlByUser(User user) {
         List<UrlMapping>urlMappings= urlMappingRepository.findByUser(user);
         List<UrlMappingDTO>urlMappingDTOS=new ArrayList<>();
@@ -66,74 +102,184 @@ public class UrlMappingService {
         return urlMappingDTOS;
     }
 
+    @Transactional(readOnly = true)
+    public UrlMappingPageDTO getUrlPageByUser(User user, String sort, int limit, String cursor) {
+        // 1. Clamp the page size, and fetch one extra row to find out whether another page follows
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        Pageable page = PageRequest.of(0, pageSize + 1);
+        if (!PageCursor.SORT_CREATED.equals(sort) && !PageCursor.SORT_CLICKS.equals(sort)) {
+            throw new InvalidPageRequestException("Unknown sort '" + sort + "', expected 'created' or 'clicks'");
+        }
+        PageCursor after = cursor == null || cursor.isBlank() ? null : PageCursor.decode(cursor, sort);
+
+        // 2. Seek past the last row of the previous page (DTO projection: no entities are loaded)
+        List<UrlMappingDTO> rows;
+        if (PageCursor.SORT_CREATED.equals(sort)) {
+            rows = after == null
+                    ? urlMappingRepository.findPageByCreatedDate(user, page)
+                    : urlMappingRepository.findPageByCreatedDateAfter(user, after.createdDate(), after.id(), page);
+        } else {
+            rows = after == null
+                    ? urlMappingRepository.findPageByClickCount(user, page)
+                    : urlMappingRepository.findPageByClickCountAfter(user, after.clickCount(), after.id(), page);
+        }
+        if (rows.size() <= pageSize) {
+            return new UrlMappingPageDTO(rows, null);
+        }
+
+        // 3. The cursor for the next page points at the last row we return
+        List<UrlMappingDTO> items = new ArrayList<>(rows.subList(0, pageSize));
+        UrlMappingDTO last = items.get(pageSize - 1);
+        String value = PageCursor.SORT_CREATED.equals(sort) ? last.getCreatedTime().toString() : String.valueOf(last.getClickCount());
+        return new UrlMappingPageDTO(items, new PageCursor(sort, value, last.getId()).encode());
+    }
+
+    @Transactional(readOnly = true)
     public List<ClickEventDTO> getClickEventsByDate(String shortUrl, LocalDateTime start, LocalDateTime end) {
+        long started = System.nanoTime();
+        try {
+            return clickEventsByDate(shortUrl, start, end);
+        } finally {
+            metrics.analyticsLink(started);
+        }
+    }
+
+    private List<ClickEventDTO> clickEventsByDate(String shortUrl, LocalDateTime start, LocalDateTime end) {
         // 1. Look up the metadata for the short URL (to get its primary key/ID)
         UrlMapping urlMapping = urlMappingRepository.findByShortUrl(shortUrl);
 
         if (urlMapping != null) {
-            // 2. Fetch all individual click records from the DB for this specific URL within the date range
-            // Note: This returns a List<ClickEvent>, where each object is a single click.
-            return clickEventRepository.findByUrlMappingAndClickDateBetween(urlMapping, start, end)
-                    .stream() // Convert list to a Stream for processing
-
-                    // 3. Grouping Logic:
-                    // Takes ClickEvent::getClickDate (LocalDateTime) -> converts to LocalDate (Year-Month-Day)
-                    // Collectors.counting() counts how many clicks exist for each unique LocalDate
-                    .collect(Collectors.groupingBy(
-                            clickEvent -> clickEvent.getClickDate().toLocalDate(),
-                            Collectors.counting()
-                    ))
-
-                    // 4. Mapping Logic:
-                    // Convert the resulting Map<LocalDate, Long> back into a List of DTOs
-                    .entrySet().stream()
-                    .map(entry -> {
-                        ClickEventDTO clickEventDTO = new ClickEventDTO();
-                        clickEventDTO.setClickDate(entry.getKey()); // The Date (e.g., 2023-10-27)
-                        clickEventDTO.setCount(entry.getValue());   // The Total Clicks for that date
-                        return clickEventDTO;
-                    })
-                    .collect(Collectors.toList()); // Terminal operation to return the final List
+            List<ClickEventDTO> clicksByDay;
+            if (clickRollups.isEnabled()) {
+                // 2. Read the per-day totals from the rollup table: one row per day instead of one per click
+                clicksByDay = clickRollups.getDailyClicks(urlMapping.getId(), start, end)
+                        .entrySet().stream()
+                        .map(entry -> new ClickEventDTO(entry.getKey(), entry.getValue()))
+                        .collect(Collectors.toList());
+            } else {
+                // 2. (Rollup disabled) Count the clicks per day in the database (GROUP BY on the date),
+                // so only one row per day comes back however many clicks the link has
+                clicksByDay = clickEventRepository.countClicksPerDay(urlMapping, start, end);
+            }
+
+            // 3. Unique visitors next to each day's clicks, from the per-day sketches
+            if (uniqueVisitors.isEnabled()) {
+                Map<LocalDate, HyperLogLog> visitorsByDay = uniqueVisitors.getDailyVisitors(urlMapping.getId(), start, end);
+                for (ClickEventDTO day : clicksByDay) {
+                    HyperLogLog visitors = visitorsByDay.get(day.getClickDate());
+                    day.setUniqueVisitors(visitors == null ? 0L : visitors.estimate());
+                }
+            }
+            return clicksByDay;
         }
 
         // Returns null if the shortUrl doesn't exist in the database
         return null;
     }
 
+    @Transactional(readOnly = true)
+    public UniqueVisitorsDTO getUniqueVisitors(String shortUrl, LocalDateTime start, LocalDateTime end) {
+        UrlMapping urlMapping = urlMappingRepository.findByShortUrl(shortUrl);
+        if (urlMapping == null) {
+            return null;
+        }
+        return toUniqueVisitorsDTO(uniqueVisitors.getDailyVisitors(urlMapping.getId(), start, end));
+    }
+
+    @Transactional(readOnly = true)
+    public UniqueVisitorsDTO getUniqueVisitorsByUser(User user, LocalDate start, LocalDate end) {
+        // Merged per day in memory from the sketches of all the user's links, without loading the links
+        return toUniqueVisitorsDTO(uniqueVisitors.getDailyVisitorsByUser(user.getId(), start, end));
+    }
+
+    // The range total merges the daily sketches, so a visitor seen on several days counts once
+    private UniqueVisitorsDTO toUniqueVisitorsDTO(Map<LocalDate, HyperLogLog> visitorsByDay) {
+        Map<LocalDate, Long> daily = new TreeMap<>();
+        visitorsByDay.forEach((day, visitors) -> daily.put(day, visitors.estimate()));
+        return new UniqueVisitorsDTO(UniqueVisitors.countDistinct(visitorsByDay.values()), daily);
+    }
+
+    @Transactional(readOnly = true)
     public Map<LocalDate, Long> getTotalClicksByUserAndDate(User user, LocalDate start, LocalDate end) {
-        // 1. Fetch all UrlMapping objects created by this specific user
-        List<UrlMapping> urlMappings = urlMappingRepository.findByUser(user);
+        long started = System.nanoTime();
+        try {
+            return totalClicksByUserAndDate(user, start, end);
+        } finally {
+            metrics.analyticsUser(started);
+        }
+    }
+
+    private Map<LocalDate, Long> totalClicksByUserAndDate(User user, LocalDate start, LocalDate end) {
+        if (clickRollups.isEnabled()) {
+            // Summed per day in the database from the rollup table, without loading the user's links
+            return clickRollups.getDailyClicksByUser(user.getId(), start, end);
+        }
 
-        // 2. Query the ClickEvent table for any click associated with the list of URLs above.
+        // (Rollup disabled) Count per day in the database across all of the user's URLs.
         // .atStartOfDay() converts LocalDate to 00:00:00 time
         // .plusDays(1) ensures the end date is inclusive of the entire final day
-        List<ClickEvent> clickEvents = clickEventRepository.findByUrlMappingInAndClickDateBetween(
-                urlMappings,
-                start.atStartOfDay(),
-                end.plusDays(1).atStartOfDay()
-        );
-
-        // 3. Flatten all clicks into a single stream and group by date
-        return clickEvents.stream()
-                .collect(Collectors.groupingBy(
-                        click -> click.getClickDate().toLocalDate(), // Strip time to group by Day
-                        Collectors.counting()                        // Aggregate count
-                ));
+        return clickEventRepository.countClicksPerDayByUser(user, start.atStartOfDay(), end.plusDays(1).atStartOfDay())
+                .stream()
+                .collect(Collectors.toMap(ClickEventDTO::getClickDate, ClickEventDTO::getCount));
     }
 
-    public UrlMapping getOriginalUrl(String shortUrl) {
+    // 'visitorHash' identifies who clicked, for the unique-visitor counts (see VisitorKey); null when not counted
+    public ResolvedUrl getOriginalUrl(String shortUrl, Long visitorHash) {
+        // Served from the in-process cache; only a miss (or an expired entry) reaches the database
+        long start = System.nanoTime();
+        ResolvedUrl resolvedUrl = urlResolutionCache.get(shortUrl, this::loadResolvedUrl).orElse(null);
+        metrics.redirectLookup(start);
+        if(resolvedUrl!=null){
+            start = System.nanoTime();
+
+            // update the click count for this short url (in memory, flushed to the DB periodically)
+            clickCounters.increment(resolvedUrl.id());
+
+            // Hand the click off to the background writer, which inserts ClickEvent rows
+            // in batches, so the redirect doesn't wait on the DB
+            clickRecorder.record(resolvedUrl.id(), LocalDateTime.now(), visitorHash);
+
+            // Feed the in-memory "hot right now" top lists
+            hotLinks.record(resolvedUrl);
+            metrics.redirectClicks(start);
+        }
+        return resolvedUrl;
+    }
+
+    private Optional<ResolvedUrl> loadResolvedUrl(String shortUrl) {
+        // Another instance may have loaded it already (shared cache tier, when enabled)
+        ResolvedUrl shared = sharedUrlCache.get(shortUrl);
+        if (shared != null) {
+            return Optional.of(shared);
+        }
+        // A read-only query, so it runs on the read replica when there is one
         UrlMapping urlMapping=urlMappingRepository.findByShortUrl(shortUrl);
-        if(urlMapping!=null){
-            //update the click count for this short url
-            urlMapping.setClickCount(urlMapping.getClickCount()+1);
-            urlMappingRepository.save(urlMapping);
-
-            //Record the click event
-            ClickEvent clickEvent=new ClickEvent();
-            clickEvent.setClickDate(LocalDateTime.now());
-            clickEvent.setUrlMapping(urlMapping);
-            clickEventRepository.save(clickEvent);
+        if(urlMapping==null && replicaRouting.isReplicaConfigured()){
+            // Maybe created a moment ago and not replicated yet: ask the primary before caching a 404
+            urlMapping=replicaRouting.onPrimary(() -> urlMappingRepository.findByShortUrl(shortUrl));
         }
-        return urlMapping;
+        if(urlMapping==null){
+            // Got past the Bloom filter in the redirect, but doesn't exist
+            shortCodeFilter.recordFalsePositive();
+            return Optional.empty();
+        }
+        try {
+            ResolvedUrl resolvedUrl = toResolvedUrl(urlMapping);
+            sharedUrlCache.put(resolvedUrl);
+            return Optional.of(resolvedUrl);
+        } catch (InvalidUrlException e) {
+            // A link stored before URLs were validated, which can't be redirected to
+            return Optional.empty();
+        }
+    }
+
+    private ResolvedUrl toResolvedUrl(UrlMapping urlMapping) {
+        return new ResolvedUrl(
+                urlMapping.getId(),
+                urlMapping.getShortUrl(),
+                // Already canonical for new links (a no-op then); fixes up links stored before
+                // normalization once per cache load instead of on every redirect
+                UrlNormalizer.normalize(urlMapping.getOriginalUrl()),
+                urlMapping.getUser() != null ? urlMapping.getUser().getId() : null);
     }
 }
@@ -0,0 +1,85 @@
+package com.url.shortner.services;
+
+import java.net.IDN;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.regex.Pattern;
+
+/**
+ * Turns user input into the canonical absolute URL we store and redirect to.
+ * Doing this once when a link is created means the redirect path can copy the stored
+ * value straight into the Location header, with no per-request checks or parsing.
+ */
+public final class UrlNormalizer {
+
+    // A hostname in ASCII form; unlike java.net.URI, underscores are accepted (common in real DNS names)
+    private static final Pattern ASCII_HOST = Pattern.compile("[A-Za-z0-9_-]+(\\.[A-Za-z0-9_-]+)*\\.?");
+
+    private UrlNormalizer() {
+    }
+
+    public static String normalize(String url) {
+        if (url == null || url.isBlank()) {
+            throw new InvalidUrlException("originalUrl is required");
+        }
+        String candidate = url.strip();
+
+        // Browsers treat "www.google.com" as a relative path on our server,
+        // so anything without a scheme gets "http://" (the historical redirect behaviour)
+        if (!candidate.regionMatches(true, 0, "http://", 0, 7)
+                && !candidate.regionMatches(true, 0, "https://", 0, 8)) {
+            if (candidate.contains("://")) {
+                throw new InvalidUrlException("only http and https URLs can be shortened");
+            }
+            candidate = "http://" + candidate;
+        }
+
+        URI uri;
+        try {
+            uri = new URI(candidate);
+        } catch (URISyntaxException e) {
+            throw new InvalidUrlException("not a valid URL: " + e.getReason());
+        }
+
+        // Lower-case scheme, non-ASCII characters percent-encoded: safe to emit as a header value as is
+        String ascii = uri.toASCIIString();
+        if (uri.getHost() == null) {
+            ascii = withAsciiHost(uri, ascii);
+        }
+        int schemeEnd = ascii.indexOf(':');
+        return ascii.substring(0, schemeEnd).toLowerCase() + ascii.substring(schemeEnd);
+    }
+
+    // java.net.URI only parses RFC 2396 hostnames, so it has no host for internationalized names
+    // (bücher.de) or names with underscores (my_host.example.com). Their host is taken from the
+    // authority instead and put in its ASCII form (IDNA: xn--bcher-kva.de) into 'ascii'.
+    private static String withAsciiHost(URI uri, String ascii) {
+        String authority = uri.getAuthority();
+        if (authority == null) {
+            throw new InvalidUrlException("URL has no valid host");
+        }
+        String hostAndPort = authority.substring(authority.lastIndexOf('@') + 1);
+        int colon = hostAndPort.lastIndexOf(':');
+        String host = colon < 0 ? hostAndPort : hostAndPort.substring(0, colon);
+        String port = colon < 0 ? "" : hostAndPort.substring(colon);
+        String asciiHost;
+        try {
+            asciiHost = IDN.toASCII(host);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidUrlException("URL has no valid host");
+        }
+        if (!ASCII_HOST.matcher(asciiHost).matches() || !port.chars().skip(1).allMatch(Character::isDigit)) {
+            throw new InvalidUrlException("URL has no valid host");
+        }
+
+        // Swap the percent-encoded host in the authority for the ASCII one, keeping user info and port
+        int start = ascii.indexOf("//") + 2;
+        int end = start;
+        while (end < ascii.length() && "/?#".indexOf(ascii.charAt(end)) < 0) {
+            end++;
+        }
+        int at = ascii.lastIndexOf('@', end - 1);
+        String userInfo = at < start ? "" : ascii.substring(start, at + 1);
+        return ascii.substring(0, start) + userInfo + asciiHost + port + ascii.substring(end);
+    }
+}
@@ -1,7 +1,7 @@
 package com.url.shortner.services;
 
+import com.url.shortner.cache.UserCache;
 import com.url.shortner.models.User;
-import com.url.shortner.repository.UserRepository;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -14,12 +14,13 @@ import org.springframework.stereotype.Service;
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
     @Autowired
-    UserRepository userRepository;
+    UserCache userCache;
 
     @Override
     @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
+        // Served from the user cache, shared with UserService
+        User user = userCache.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException(
                         "user with this username :- " + username + " not found in database"));
         return UserDetailsImpl.build(user);
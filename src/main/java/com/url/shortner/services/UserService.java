@@ -1,6 +1,8 @@
 package com.url.shortner.services;
 
+import com.url.shortner.cache.UserCache;
 import com.url.shortner.dtos.LoginRequest;
+import com.url.shortner.metrics.ShortnerMetrics;
 import com.url.shortner.models.User;
 import com.url.shortner.repository.UserRepository;
 import com.url.shortner.security.jwt.JwtAuthenticationResponse;
@@ -14,14 +16,21 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
 @AllArgsConstructor
 public class UserService {
 
+    // The roles a user can be given; the authorities checked by @PreAuthorize("hasRole(...)")
+    private static final List<String> ROLES = List.of("ROLE_USER", "ROLE_ADMIN");
+
     UserRepository userRepository;
     PasswordEncoder passwordEncoder;
     AuthenticationManager authenticationManager;
     JwtUtils jwtUtils;
+    UserCache userCache;
+    ShortnerMetrics metrics;
 
     /**
      * Registration Business Logic
@@ -34,6 +43,29 @@ public class UserService {
 
         // Step 4: Persistence
         userRepository.save(user);
+
+        // Step 5: Drop any cached entry for this username so the next lookup sees the saved user
+        userCache.invalidate(user.getUsername());
+    }
+
+    /**
+     * Role Change Business Logic
+     * Updates the stored role and evicts the cached user. The new role is put into the user's
+     * JWT at their next login; tokens issued before keep the old role until they expire.
+     * Only ROLE_USER and ROLE_ADMIN are accepted: any other value would be saved as is and lock the
+     * user out of every endpoint.
+     */
+    public void changeRole(String username, String role) {
+        if (role == null || !ROLES.contains(role)) {
+            throw new InvalidRoleException("Role must be one of " + ROLES + ", got " + role);
+        }
+        // Read from the database, not the cache: we're about to modify and save this entity
+        User user = userRepository.findByUsername(username).orElseThrow(
+                ()->new UsernameNotFoundException("User with this username:- "+username+" not found in database")
+        );
+        user.setRole(role);
+        userRepository.save(user);
+        userCache.invalidate(username);
     }
 
     /**
@@ -44,9 +76,12 @@ public class UserService {
         // Step 3: Internal Execution via AuthenticationManager
         // 1. Calls UserDetailsServiceImpl to fetch user from DB.
         // 2. DaoAuthenticationProvider compares the raw password vs hashed password.
+        //    Timed on its own: BCrypt is deliberately slow and dominates a login.
+        long start = System.nanoTime();
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword())
         );
+        metrics.loginAuthenticate(start);
 
         // Step 4.1: Update Security Context
         // This marks the user as "authenticated" for the current request thread.
@@ -57,14 +92,17 @@ public class UserService {
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
 
         // Signed with HS384 algorithm and secret key from application.properties
+        start = System.nanoTime();
         String jwt = jwtUtils.generateToken(userDetails);
+        metrics.loginToken(start);
 
         // Step 5: Wrap token in DTO for client response
         return new JwtAuthenticationResponse(jwt);
     }
 
+    // Called by every URL API endpoint; served from the user cache after the first call
     public User getByUsername(String name) {
-        return userRepository.findByUsername(name).orElseThrow(
+        return userCache.findByUsername(name).orElseThrow(
                 ()->new UsernameNotFoundException("User with this username:- "+name+" not found in database")
         );
     }
@@ -0,0 +1,65 @@
+-- The schema as spring.jpa.hibernate.ddl-auto=update created it for MySQL, constraint names included,
+-- so later migrations apply the same way to databases created by ddl-auto (baselined at version 1)
+-- and to databases created by this script.
+
+create table users (
+    id       bigint not null auto_increment,
+    email    varchar(255),
+    password varchar(255),
+    role     varchar(255),
+    username varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table url_mapping (
+    click_count  integer not null,
+    created_date datetime(6),
+    id           bigint not null auto_increment,
+    user_id      bigint,
+    original_url varchar(255),
+    short_url    varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table click_event (
+    click_date     datetime(6),
+    id             bigint not null auto_increment,
+    url_mapping_id bigint,
+    visitor_hash   bigint,
+    primary key (id)
+) engine=InnoDB;
+
+create table daily_click_rollup (
+    click_day      date not null,
+    click_count    bigint not null,
+    url_mapping_id bigint not null,
+    primary key (click_day, url_mapping_id)
+) engine=InnoDB;
+
+create table daily_visitor_sketch (
+    visit_day      date not null,
+    url_mapping_id bigint not null,
+    sketch         varbinary(4097) not null,
+    primary key (visit_day, url_mapping_id)
+) engine=InnoDB;
+
+create table short_code_sequence (
+    next_value bigint not null,
+    name       varchar(255) not null,
+    primary key (name)
+) engine=InnoDB;
+
+create index idx_click_event_url_mapping_date on click_event (url_mapping_id, click_date);
+create index idx_click_event_date on click_event (click_date);
+create index idx_daily_click_rollup_link_day on daily_click_rollup (url_mapping_id, click_day);
+create index idx_daily_visitor_sketch_link_day on daily_visitor_sketch (url_mapping_id, visit_day);
+create index idx_url_mapping_user_created on url_mapping (user_id, created_date, id);
+create index idx_url_mapping_user_clicks on url_mapping (user_id, click_count, id);
+create index idx_url_mapping_created on url_mapping (created_date);
+
+alter table url_mapping
+    add constraint UKluxssvi0fl5akdeuachjtgvgg unique (short_url);
+alter table click_event
+    add constraint FK569i4rsslbjh08ffdc4iumly2 foreign key (url_mapping_id) references url_mapping (id);
+alter table url_mapping
+    add constraint FKpd4vqdk4o6lis35i2b1vo96v0 foreign key (user_id) references users (id);
@@ -0,0 +1,7 @@
+-- Progress of the click rollup's history backfill (see ClickRollupBackfill). "if not exists": a database
+-- baselined at version 1 after ddl-auto=update ran the current version already has the table.
+create table if not exists rollup_backfill_state (
+    done_through date,
+    name         varchar(255) not null,
+    primary key (name)
+);
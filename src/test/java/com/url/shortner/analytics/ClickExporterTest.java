@@ -0,0 +1,124 @@
+package com.url.shortner.analytics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.url.shortner.models.UrlMapping;
+import com.url.shortner.models.User;
+import com.url.shortner.repository.ClickEventJdbcRepository;
+import com.url.shortner.repository.UrlMappingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ClickExporter Tests")
+class ClickExporterTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2027, 1, 1, 0, 0);
+
+    @Mock
+    private UrlMappingRepository urlMappingRepository;
+    @Mock
+    private ClickEventJdbcRepository clickEventJdbcRepository;
+
+    private ClickExporter clickExporter;
+    private User owner;
+    private UrlMapping urlMapping;
+
+    @BeforeEach
+    void setUp() {
+        clickExporter = new ClickExporter(urlMappingRepository, clickEventJdbcRepository, new ObjectMapper());
+        owner = new User();
+        owner.setId(1L);
+        urlMapping = new UrlMapping();
+        urlMapping.setId(10L);
+        urlMapping.setShortUrl("aBcD1234");
+        urlMapping.setUser(owner);
+    }
+
+    // Makes the mocked cursor emit two clicks
+    private void streamTwoClicks() {
+        doAnswer(i -> {
+            Consumer<ExportedClick> sink = i.getArgument(3);
+            sink.accept(new ExportedClick(1L, "aBcD1234", LocalDateTime.of(2026, 4, 27, 10, 0)));
+            sink.accept(new ExportedClick(2L, "aBcD1234", LocalDateTime.of(2026, 4, 27, 11, 30, 15)));
+            return null;
+        }).when(clickEventJdbcRepository).streamClicks(eq(10L), eq(FROM), eq(TO), any());
+    }
+
+    private String run(StreamingResponseBody body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Nested @DisplayName("exportLink()")
+    class ExportLink {
+        @Test @DisplayName("should write one JSON object per line")
+        void ndjson() throws IOException {
+            when(urlMappingRepository.findByShortUrl("aBcD1234")).thenReturn(urlMapping);
+            streamTwoClicks();
+            String out = run(clickExporter.exportLink(owner, "aBcD1234", FROM, TO, ExportFormat.NDJSON));
+            assertEquals("{\"id\":1,\"shortUrl\":\"aBcD1234\",\"clickDate\":\"2026-04-27T10:00\"}\n"
+                    + "{\"id\":2,\"shortUrl\":\"aBcD1234\",\"clickDate\":\"2026-04-27T11:30:15\"}\n", out);
+        }
+
+        @Test @DisplayName("should write a CSV header and one row per click")
+        void csv() throws IOException {
+            when(urlMappingRepository.findByShortUrl("aBcD1234")).thenReturn(urlMapping);
+            streamTwoClicks();
+            String out = run(clickExporter.exportLink(owner, "aBcD1234", FROM, TO, ExportFormat.CSV));
+            assertEquals("id,short_url,click_date\n1,aBcD1234,2026-04-27T10:00\n2,aBcD1234,2026-04-27T11:30:15\n", out);
+        }
+
+        @Test @DisplayName("should not export someone else's link")
+        void otherUsersLink() {
+            User other = new User();
+            other.setId(2L);
+            when(urlMappingRepository.findByShortUrl("aBcD1234")).thenReturn(urlMapping);
+            assertNull(clickExporter.exportLink(other, "aBcD1234", FROM, TO, ExportFormat.CSV));
+            verifyNoInteractions(clickEventJdbcRepository);
+        }
+
+        @Test @DisplayName("should surface a client disconnect as an IOException")
+        void clientGone() {
+            when(urlMappingRepository.findByShortUrl("aBcD1234")).thenReturn(urlMapping);
+            streamTwoClicks();
+            OutputStream broken = new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    throw new IOException("Broken pipe");
+                }
+            };
+            StreamingResponseBody body = clickExporter.exportLink(owner, "aBcD1234", FROM, TO, ExportFormat.NDJSON);
+            assertThrows(IOException.class, () -> body.writeTo(broken));
+        }
+    }
+
+    @Nested @DisplayName("ExportFormat.parse()")
+    class Parse {
+        @Test @DisplayName("should accept known formats in any case and reject others")
+        void parses() {
+            assertEquals(ExportFormat.CSV, ExportFormat.parse("CSV"));
+            assertEquals(ExportFormat.NDJSON, ExportFormat.parse("ndjson"));
+            assertNull(ExportFormat.parse("xml"));
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.url.shortner.analytics;
+
+import com.url.shortner.models.RollupBackfillState;
+import com.url.shortner.repository.ClickEventJdbcRepository;
+import com.url.shortner.repository.DailyClickRollupRepository;
+import com.url.shortner.repository.RollupBackfillStateRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ClickRollupBackfill Tests")
+class ClickRollupBackfillTest {
+
+    @Mock
+    private DailyClickRollupRepository dailyClickRollupRepository;
+    @Mock
+    private ClickEventJdbcRepository clickEventJdbcRepository;
+    @Mock
+    private UniqueVisitors uniqueVisitors;
+    @Mock
+    private RollupBackfillStateRepository rollupBackfillStateRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ClickRollupBackfill backfill(boolean enabled) {
+        return new ClickRollupBackfill(dailyClickRollupRepository, clickEventJdbcRepository, uniqueVisitors, rollupBackfillStateRepository,
+                transactionManager, enabled, true, 2, false, 0, false);
+    }
+
+    // click_event holds clicks on these days: the pass hands them to the sink in order until it says stop
+    private void clicksOn(LocalDate... days) {
+        doAnswer(i -> {
+            LocalDate from = i.getArgument(0);
+            LocalDate to = i.getArgument(1);
+            Predicate<ClickDay> sink = i.getArgument(2);
+            for (LocalDate day : days) {
+                if (!day.isBefore(from) && day.isBefore(to)
+                        && !sink.test(new ClickDay(day, List.of(new ClickDay.LinkClicks(1, 1, null))))) {
+                    return null;
+                }
+            }
+            return null;
+        }).when(clickEventJdbcRepository).streamClickDays(any(), any(), any());
+    }
+
+    // The days written to the rollup, in order; writing 'failing' throws
+    private List<LocalDate> rebuiltDays(LocalDate failing) {
+        List<LocalDate> rebuilt = new ArrayList<>();
+        when(dailyClickRollupRepository.replaceDay(any())).thenAnswer(i -> {
+            LocalDate day = i.<ClickDay>getArgument(0).day();
+            if (day.equals(failing)) {
+                throw new RuntimeException("deadlock");
+            }
+            rebuilt.add(day);
+            return 1;
+        });
+        return rebuilt;
+    }
+
+    private void reconcileClaimed(boolean claimed) {
+        when(rollupBackfillStateRepository.existsById("daily_click_rollup_reconcile")).thenReturn(true);
+        when(rollupBackfillStateRepository.claim("daily_click_rollup_reconcile", LocalDate.now())).thenReturn(claimed ? 1 : 0);
+    }
+
+    @Nested @DisplayName("backfill()")
+    class Backfill {
+        @Test @DisplayName("should rebuild each day up to yesterday in one pass, including days without clicks, never today")
+        void stopsBeforeToday() {
+            LocalDate today = LocalDate.now();
+            clicksOn(today.minusDays(3), today.minusDays(1));
+            List<LocalDate> rebuilt = rebuiltDays(null);
+            assertEquals(3, backfill(true).backfill(today.minusDays(3), today.plusDays(5)));
+            verify(clickEventJdbcRepository).streamClickDays(eq(today.minusDays(3)), eq(today), any());
+            assertEquals(List.of(today.minusDays(3), today.minusDays(2), today.minusDays(1)), rebuilt);
+            verify(uniqueVisitors, times(3)).replaceDay(any());
+        }
+
+        @Test @DisplayName("should keep going when one day fails")
+        void continuesAfterFailure() {
+            LocalDate day = LocalDate.now().minusDays(10);
+            clicksOn(day, day.plusDays(1));
+            List<LocalDate> rebuilt = rebuiltDays(day);
+            assertEquals(1, backfill(true).backfill(day, day.plusDays(1)));
+            assertEquals(List.of(day.plusDays(1)), rebuilt);
+        }
+
+        @Test @DisplayName("should skip days whose raw clicks were dropped by the retention policy")
+        void skipsDroppedPartitions() {
+            ClickRollupBackfill backfill = new ClickRollupBackfill(dailyClickRollupRepository, clickEventJdbcRepository, uniqueVisitors,
+                    rollupBackfillStateRepository, transactionManager, true, true, 2, true, 1, false);
+            LocalDate oldestKept = YearMonth.now().minusMonths(1).atDay(1);
+            backfill.backfill(oldestKept.minusDays(20), oldestKept);
+            verify(clickEventJdbcRepository).streamClickDays(eq(oldestKept), eq(oldestKept.plusDays(1)), any());
+            verify(dailyClickRollupRepository).replaceDay(new ClickDay(oldestKept, List.of()));
+        }
+    }
+
+    // The backfill progress as stored, null = no backfill has run yet
+    private void doneThrough(LocalDate day) {
+        if (day == null) {
+            when(rollupBackfillStateRepository.findById("daily_click_rollup")).thenReturn(Optional.empty());
+            return;
+        }
+        RollupBackfillState state = new RollupBackfillState();
+        state.setName("daily_click_rollup");
+        state.setDoneThrough(day);
+        when(rollupBackfillStateRepository.findById("daily_click_rollup")).thenReturn(Optional.of(state));
+    }
+
+    // doneThrough of every state saved, in order
+    private List<LocalDate> savedProgress() {
+        List<LocalDate> saved = new ArrayList<>();
+        when(rollupBackfillStateRepository.save(any())).thenAnswer(i -> {
+            saved.add(i.<RollupBackfillState>getArgument(0).getDoneThrough());
+            return i.getArgument(0);
+        });
+        return saved;
+    }
+
+    @Nested @DisplayName("backfillHistory()")
+    class BackfillHistory {
+        @Test @DisplayName("should backfill from the first click on the first start, although the rollup already has today's rows")
+        void backfillsHistory() {
+            LocalDate yesterday = LocalDate.now().minusDays(1);
+            doneThrough(null);
+            when(clickEventJdbcRepository.findFirstClickDay()).thenReturn(yesterday.minusDays(1));
+            clicksOn(yesterday.minusDays(1), yesterday);
+            List<LocalDate> rebuilt = rebuiltDays(null);
+            List<LocalDate> saved = savedProgress();
+            assertEquals(2, backfill(true).backfillHistory());
+            assertEquals(List.of(yesterday.minusDays(1), yesterday), rebuilt);
+            assertEquals(List.of(yesterday.minusDays(1), yesterday), saved);
+        }
+
+        @Test @DisplayName("should resume after the last day done, without looking for the first click")
+        void resumes() {
+            LocalDate yesterday = LocalDate.now().minusDays(1);
+            doneThrough(yesterday.minusDays(1));
+            clicksOn(yesterday);
+            List<LocalDate> rebuilt = rebuiltDays(null);
+            savedProgress();
+            assertEquals(1, backfill(true).backfillHistory());
+            assertEquals(List.of(yesterday), rebuilt);
+            verify(clickEventJdbcRepository, never()).findFirstClickDay();
+        }
+
+        @Test @DisplayName("should stop at a failed day and not record it as done")
+        void stopsAtFailure() {
+            LocalDate yesterday = LocalDate.now().minusDays(1);
+            doneThrough(yesterday.minusDays(3));
+            clicksOn(yesterday.minusDays(2), yesterday.minusDays(1), yesterday);
+            List<LocalDate> rebuilt = rebuiltDays(yesterday.minusDays(1));
+            List<LocalDate> saved = savedProgress();
+            assertEquals(1, backfill(true).backfillHistory());
+            assertEquals(List.of(yesterday.minusDays(2)), rebuilt);
+            assertEquals(List.of(yesterday.minusDays(2)), saved);
+        }
+
+        @Test @DisplayName("should only record the start when there are no clicks yet")
+        void noClicks() {
+            doneThrough(null);
+            List<LocalDate> saved = savedProgress();
+            assertEquals(0, backfill(true).backfillHistory());
+            verify(clickEventJdbcRepository, never()).streamClickDays(any(), any(), any());
+            assertEquals(List.of(LocalDate.now().minusDays(1)), saved);
+        }
+    }
+
+    @Nested @DisplayName("backfillOnStartup()")
+    class BackfillOnStartup {
+        @Test @DisplayName("should return at once and backfill on its own thread")
+        void runsInBackground() throws InterruptedException {
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicReference<String> thread = new AtomicReference<>();
+            when(rollupBackfillStateRepository.findById("daily_click_rollup")).thenAnswer(i -> {
+                thread.set(Thread.currentThread().getName());
+                release.await();
+                return Optional.empty();
+            });
+            ClickRollupBackfill backfill = backfill(true);
+            backfill.backfillOnStartup();
+            release.countDown();
+            verify(rollupBackfillStateRepository, timeout(2000)).save(any());
+            backfill.stop();
+            assertEquals("click-rollup-backfill", thread.get());
+        }
+
+        @Test @DisplayName("should do nothing when the rollup is disabled")
+        void skipsWhenDisabled() {
+            ClickRollupBackfill backfill = backfill(false);
+            backfill.backfillOnStartup();
+            backfill.stop();
+            verifyNoInteractions(dailyClickRollupRepository, clickEventJdbcRepository, rollupBackfillStateRepository);
+        }
+    }
+
+    @Nested @DisplayName("reconcile()")
+    class Reconcile {
+        @Test @DisplayName("should extend the history backfill it joins on to")
+        void advancesHistory() {
+            LocalDate yesterday = LocalDate.now().minusDays(1);
+            reconcileClaimed(true);
+            doneThrough(yesterday.minusDays(2));
+            List<LocalDate> saved = savedProgress();
+            backfill(true).reconcile();
+            assertEquals(List.of(yesterday), saved);
+        }
+
+        @Test @DisplayName("should leave a history backfill that is further behind to finish on the next start")
+        void leavesGap() {
+            reconcileClaimed(true);
+            doneThrough(LocalDate.now().minusDays(30));
+            backfill(true).reconcile();
+            verify(rollupBackfillStateRepository, never()).save(any());
+        }
+
+        @Test @DisplayName("should leave the night to the instance that claimed it first")
+        void oneInstancePerNight() {
+            reconcileClaimed(false);
+            backfill(true).reconcile();
+            verifyNoInteractions(clickEventJdbcRepository, dailyClickRollupRepository);
+        }
+
+        @Test @DisplayName("should create the reconcile row the first time")
+        void createsClaimRow() {
+            when(rollupBackfillStateRepository.existsById("daily_click_rollup_reconcile")).thenReturn(false);
+            List<LocalDate> saved = savedProgress();
+            assertFalse(backfill(true).claimReconcile(LocalDate.now()));
+            verify(rollupBackfillStateRepository).save(argThat(state -> state.getName().equals("daily_click_rollup_reconcile")));
+            assertEquals(1, saved.size());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.url.shortner.analytics;
+
+import com.url.shortner.repository.ClickEventJdbcRepository;
+import com.url.shortner.repository.DailyClickRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ClickRollups Tests")
+class ClickRollupsTest {
+
+    private static final LocalDate APR_1 = LocalDate.of(2026, 4, 1);
+    private static final LocalDate APR_30 = LocalDate.of(2026, 4, 30);
+
+    @Mock
+    private DailyClickRollupRepository dailyClickRollupRepository;
+    @Mock
+    private ClickEventJdbcRepository clickEventJdbcRepository;
+
+    private ClickRollups clickRollups;
+
+    @BeforeEach
+    void setUp() {
+        clickRollups = new ClickRollups(dailyClickRollupRepository, clickEventJdbcRepository, true);
+    }
+
+    @Nested @DisplayName("getDailyClicks()")
+    class GetDailyClicks {
+        @Test @DisplayName("should read whole days from the rollup only")
+        void wholeDays() {
+            when(dailyClickRollupRepository.findDailyClicks(1L, APR_1, APR_30)).thenReturn(Map.of(APR_1, 4L));
+            Map<LocalDate, Long> res = clickRollups.getDailyClicks(1L, APR_1.atStartOfDay(), APR_30.atTime(LocalTime.MAX));
+            assertEquals(Map.of(APR_1, 4L), res);
+            verifyNoInteractions(clickEventJdbcRepository);
+        }
+
+        @Test @DisplayName("should count partial days at both ends from the raw clicks")
+        void partialEdges() {
+            LocalDateTime start = APR_1.atTime(12, 0), end = APR_30.atTime(23, 59);
+            when(dailyClickRollupRepository.findDailyClicks(1L, APR_1.plusDays(1), APR_30.minusDays(1)))
+                    .thenReturn(new TreeMap<>(Map.of(LocalDate.of(2026, 4, 10), 5L)));
+            when(clickEventJdbcRepository.countClicks(1L, start, APR_1.plusDays(1).atStartOfDay())).thenReturn(2L);
+            when(clickEventJdbcRepository.countClicks(1L, APR_30.atStartOfDay(), end.plusNanos(1))).thenReturn(0L);
+            Map<LocalDate, Long> res = clickRollups.getDailyClicks(1L, start, end);
+            // Days without clicks are left out, like the raw GROUP BY
+            assertEquals(Map.of(APR_1, 2L, LocalDate.of(2026, 4, 10), 5L), res);
+        }
+
+        @Test @DisplayName("should count from the raw clicks when the range is shorter than a day")
+        void withinOneDay() {
+            LocalDateTime start = APR_1.atTime(9, 0), end = APR_1.atTime(17, 0);
+            when(clickEventJdbcRepository.countClicks(1L, start, end.plusNanos(1))).thenReturn(3L);
+            assertEquals(Map.of(APR_1, 3L), clickRollups.getDailyClicks(1L, start, end));
+            verifyNoInteractions(dailyClickRollupRepository);
+        }
+
+        @Test @DisplayName("should return nothing when the range is inverted")
+        void invertedRange() {
+            assertTrue(clickRollups.getDailyClicks(1L, APR_30.atStartOfDay(), APR_1.atStartOfDay()).isEmpty());
+            verify(clickEventJdbcRepository, never()).countClicks(any(), any(), any());
+        }
+    }
+}
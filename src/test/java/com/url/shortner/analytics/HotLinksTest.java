@@ -0,0 +1,96 @@
+package com.url.shortner.analytics;
+
+import com.url.shortner.dtos.HotLinkDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("HotLinks Tests")
+class HotLinksTest {
+
+    // Start of a day, so every window starts a fresh period here
+    private static final long T0 = 20_000 * 86_400_000L;
+    private static final long MINUTE = 60_000;
+
+    private final HotLinks hotLinks = new HotLinks(true, 10, 5, 100, 4);
+
+    private void click(String shortUrl, Long userId, long at, int times) {
+        for (int i = 0; i < times; i++) {
+            hotLinks.record(shortUrl, userId, at);
+        }
+    }
+
+    @Nested @DisplayName("top()")
+    class Top {
+        @Test @DisplayName("should rank links of all users by clicks")
+        void ranksGlobally() {
+            click("a", 1L, T0, 3);
+            click("b", 2L, T0, 5);
+            assertEquals(List.of(new HotLinkDTO("b", 5), new HotLinkDTO("a", 3)), hotLinks.top(HotLinkWindow.HOUR, 10, T0));
+            assertEquals(List.of(new HotLinkDTO("b", 5)), hotLinks.top(HotLinkWindow.HOUR, 1, T0));
+        }
+
+        @Test @DisplayName("should fade out the previous period as the window slides")
+        void slides() {
+            click("a", 1L, T0, 10);
+            click("b", 1L, T0 + MINUTE + 15_000, 2);
+            // 15 s into the next minute: 3/4 of the previous minute is still inside the window
+            assertEquals(List.of(new HotLinkDTO("a", 8), new HotLinkDTO("b", 2)),
+                    hotLinks.top(HotLinkWindow.MINUTE, 10, T0 + MINUTE + 15_000));
+            // Two minutes later nothing is left in the minute window, the hour still has both
+            assertEquals(List.of(), hotLinks.top(HotLinkWindow.MINUTE, 10, T0 + 3 * MINUTE));
+            assertEquals(12, hotLinks.top(HotLinkWindow.HOUR, 10, T0 + 3 * MINUTE).stream().mapToLong(HotLinkDTO::getClicks).sum());
+        }
+
+        @Test @DisplayName("should count every click recorded concurrently, whichever stripe took it")
+        void concurrentClicks() throws InterruptedException {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                String other = "other-" + t;
+                threads.add(Thread.ofPlatform().start(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int i = 0; i < 5_000; i++) {
+                        hotLinks.record("viral", 1L, T0);
+                        if (i % 10 == 0) {
+                            hotLinks.record(other, 1L, T0);
+                        }
+                    }
+                }));
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            List<HotLinkDTO> top = hotLinks.top(HotLinkWindow.DAY, 2, T0);
+            assertEquals(new HotLinkDTO("viral", 40_000), top.get(0));
+            assertEquals(500, top.get(1).getClicks());
+            // 9 links over the user's 5 counters: evictions can only add to the estimate
+            HotLinkDTO userTop = hotLinks.topByUser(1L, HotLinkWindow.DAY, 1, T0).get(0);
+            assertEquals("viral", userTop.getShortUrl());
+            assertTrue(userTop.getClicks() >= 40_000);
+        }
+    }
+
+    @Nested @DisplayName("topByUser()")
+    class TopByUser {
+        @Test @DisplayName("should only list the user's own links")
+        void perUser() {
+            click("a", 1L, T0, 3);
+            click("b", 2L, T0, 5);
+            assertEquals(List.of(new HotLinkDTO("a", 3)), hotLinks.topByUser(1L, HotLinkWindow.DAY, 10, T0));
+            assertEquals(List.of(), hotLinks.topByUser(3L, HotLinkWindow.DAY, 10, T0));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.url.shortner.analytics;
+
+import com.url.shortner.clicks.VisitorKey;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("HyperLogLog Tests")
+class HyperLogLogTest {
+
+    private static final VisitorKey VISITOR_KEY = new VisitorKey(true, "test-secret");
+
+    private static HyperLogLog visitors(int from, int to) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = from; i < to; i++) {
+            sketch.add(VISITOR_KEY.hash("10.0." + (i >> 8) + "." + (i & 0xff), "Mozilla/5.0"));
+        }
+        return sketch;
+    }
+
+    @Nested @DisplayName("estimate()")
+    class Estimate {
+        @Test @DisplayName("should be exact-ish for small counts and ignore repeat visitors")
+        void smallCounts() {
+            HyperLogLog sketch = visitors(0, 10);
+            sketch.merge(visitors(0, 10));
+            assertEquals(10, sketch.estimate());
+            assertEquals(0, new HyperLogLog().estimate());
+        }
+
+        @Test @DisplayName("should stay within a few percent for large counts")
+        void largeCounts() {
+            long estimate = visitors(0, 100_000).estimate();
+            assertEquals(100_000, estimate, 100_000 * 0.05);
+        }
+    }
+
+    @Nested @DisplayName("merge()")
+    class Merge {
+        @Test @DisplayName("should count the union of overlapping sketches")
+        void countsUnion() {
+            long estimate = visitors(0, 20_000).merge(visitors(10_000, 30_000)).estimate();
+            assertEquals(30_000, estimate, 30_000 * 0.05);
+        }
+    }
+
+    @Nested @DisplayName("toBytes() / fromBytes()")
+    class Serialization {
+        @Test @DisplayName("should store few visitors sparsely")
+        void sparse() {
+            HyperLogLog sketch = visitors(0, 5);
+            byte[] bytes = sketch.toBytes();
+            assertEquals(1 + 5 * 3, bytes.length);
+            assertEquals(5, HyperLogLog.fromBytes(bytes).estimate());
+        }
+
+        @Test @DisplayName("should switch to dense once that is smaller")
+        void dense() {
+            HyperLogLog sketch = visitors(0, 50_000);
+            byte[] bytes = sketch.toBytes();
+            assertEquals(1 + HyperLogLog.REGISTERS, bytes.length);
+            assertEquals(sketch.estimate(), HyperLogLog.fromBytes(bytes).estimate());
+        }
+
+        @Test @DisplayName("should reject an unknown format")
+        void rejectsGarbage() {
+            assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[]{9}));
+        }
+    }
+}
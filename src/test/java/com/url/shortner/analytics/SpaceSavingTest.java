@@ -0,0 +1,56 @@
+package com.url.shortner.analytics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("SpaceSaving Tests")
+class SpaceSavingTest {
+
+    @Test @DisplayName("should count exactly while there are free counters")
+    void exactBelowCapacity() {
+        SpaceSaving<String> summary = new SpaceSaving<>(3);
+        for (String key : List.of("a", "b", "a", "c", "a", "b")) {
+            summary.add(key);
+        }
+        assertEquals(List.of("a", "b", "c"), summary.keys());
+        assertEquals(3, summary.count("a"));
+        assertEquals(0, summary.count("d"));
+    }
+
+    @Test @DisplayName("should give a new key the smallest counter and its count + 1")
+    void replacesSmallest() {
+        SpaceSaving<String> summary = new SpaceSaving<>(2);
+        for (String key : List.of("a", "a", "a", "b", "c", "c")) {
+            summary.add(key);
+        }
+        // c took b's counter (1) and was added twice: 1 + 2
+        assertEquals(Set.of("a", "c"), Set.copyOf(summary.keys()));
+        assertEquals(3, summary.count("a"));
+        assertEquals(3, summary.count("c"));
+        assertEquals(0, summary.count("b"));
+    }
+
+    @Test @DisplayName("should keep the heavy hitters of a long tail and never underestimate them")
+    void keepsHeavyHitters() {
+        SpaceSaving<String> summary = new SpaceSaving<>(10);
+        for (int i = 0; i < 10_000; i++) {
+            summary.add("tail-" + i);
+            if (i % 4 == 0) {
+                summary.add("hot");
+            }
+            if (i % 5 == 0) {
+                summary.add("warm");
+            }
+        }
+        // 14,500 clicks over 10 counters: anything above 1,450 is guaranteed to be tracked
+        assertEquals("hot", summary.keys().get(0));
+        assertTrue(summary.keys().contains("warm"));
+        assertTrue(summary.count("hot") >= 2_500);
+        assertTrue(summary.count("warm") >= 2_000);
+    }
+}
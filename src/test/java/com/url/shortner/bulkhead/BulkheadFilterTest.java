@@ -0,0 +1,102 @@
+package com.url.shortner.bulkhead;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("BulkheadFilter Tests")
+class BulkheadFilterTest {
+
+    // One analytics request and one export at a time, no waiting; the other workloads unlimited
+    private final BulkheadFilter filter = new BulkheadFilter(0, Duration.ZERO, 0, Duration.ZERO, 1, Duration.ZERO, 1, Duration.ZERO);
+
+    private MockHttpServletResponse send(MockHttpServletRequest request, FilterChain chain) throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    @Nested @DisplayName("workloads")
+    class Workloads {
+        private Workload seenBy(String method, String path) throws Exception {
+            AtomicReference<Workload> seen = new AtomicReference<>();
+            send(new MockHttpServletRequest(method, path), (req, res) -> seen.set(Workload.current()));
+            return seen.get();
+        }
+
+        @Test @DisplayName("should run each request as the workload of its endpoint")
+        void classifies() throws Exception {
+            assertEquals(Workload.REDIRECT, seenBy("GET", "/aBcD1234"));
+            assertEquals(Workload.ANALYTICS, seenBy("GET", "/api/urls/analytics/aBcD1234"));
+            assertEquals(Workload.ANALYTICS, seenBy("GET", "/api/urls/totalClicks"));
+            assertEquals(Workload.ANALYTICS, seenBy("GET", "/api/urls/export/aBcD1234"));
+            assertEquals(Workload.ANALYTICS, seenBy("POST", "/api/admin/rollup/backfill"));
+            assertEquals(Workload.LINKS, seenBy("POST", "/api/urls/shorten"));
+            assertEquals(Workload.LINKS, seenBy("GET", "/api/urls/myurls"));
+        }
+
+        @Test @DisplayName("should restore the thread's workload after the request")
+        void restores() throws Exception {
+            seenBy("GET", "/api/urls/totalClicks");
+            assertEquals(Workload.LINKS, Workload.current());
+
+            Workload.REDIRECT.run(() -> assertEquals(Workload.ANALYTICS, Workload.ANALYTICS.call(Workload::current)));
+            assertEquals(Workload.LINKS, Workload.current());
+        }
+    }
+
+    @Nested @DisplayName("limits")
+    class Limits {
+        @Test @DisplayName("should reject a request over its workload's limit with 503 and Retry-After")
+        void rejectsOverLimit() throws Exception {
+            AtomicReference<MockHttpServletResponse> nested = new AtomicReference<>();
+            AtomicReference<MockHttpServletResponse> redirect = new AtomicReference<>();
+            // A second analytics request and a redirect arrive while the first analytics request runs
+            MockHttpServletResponse first = send(new MockHttpServletRequest("GET", "/api/urls/totalClicks"), (req, res) -> {
+                nested.set(send(new MockHttpServletRequest("GET", "/api/urls/totalVisitors"), (r, s) -> fail("over the limit")));
+                redirect.set(send(new MockHttpServletRequest("GET", "/aBcD1234"), (r, s) -> { }));
+            });
+
+            assertEquals(200, first.getStatus());
+            assertEquals(503, nested.get().getStatus());
+            assertEquals("1", nested.get().getHeader("Retry-After"));
+            assertEquals(200, redirect.get().getStatus());
+
+            // The slot is free again
+            assertEquals(200, send(new MockHttpServletRequest("GET", "/api/urls/totalVisitors"), (r, s) -> { }).getStatus());
+        }
+
+        @Test @DisplayName("should release the slot when the request fails")
+        void releasesOnFailure() {
+            assertThrows(IllegalStateException.class, () -> send(new MockHttpServletRequest("GET", "/api/urls/totalClicks"),
+                    (req, res) -> { throw new IllegalStateException("query failed"); }));
+            assertDoesNotThrow(() -> assertEquals(200,
+                    send(new MockHttpServletRequest("GET", "/api/urls/totalClicks"), (r, s) -> { }).getStatus()));
+        }
+
+        @Test @DisplayName("should hold an export's slot until its stream ends, apart from the other analytics requests")
+        void holdsExportUntilStreamEnds() throws Exception {
+            // The export returns its request thread and keeps streaming asynchronously
+            MockHttpServletRequest export = new MockHttpServletRequest("GET", "/api/urls/export/aBcD1234");
+            export.setAsyncSupported(true);
+            assertEquals(200, send(export, (req, res) -> req.startAsync()).getStatus());
+
+            assertEquals(503, send(new MockHttpServletRequest("GET", "/api/urls/export"), (r, s) -> fail("over the limit")).getStatus());
+            assertEquals(200, send(new MockHttpServletRequest("GET", "/api/urls/totalClicks"), (r, s) -> { }).getStatus());
+
+            // The stream ends
+            export.getAsyncContext().complete();
+            assertEquals(200, send(new MockHttpServletRequest("GET", "/api/urls/export"), (r, s) -> { }).getStatus());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.url.shortner.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("BloomFilter Tests")
+class BloomFilterTest {
+
+    @Test @DisplayName("should never report an added code as missing")
+    void noFalseNegatives() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("code" + i);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("code" + i));
+        }
+        assertEquals(10_000, filter.getInserted(), 50);
+    }
+
+    @Test @DisplayName("should keep false positives near the configured rate at capacity")
+    void falsePositiveRate() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("code" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other" + i)) {
+                falsePositives++;
+            }
+        }
+        assertEquals(0.01, falsePositives / 100_000.0, 0.005);
+        assertEquals(0.01, filter.expectedFpp(), 0.005);
+    }
+
+    @Test @DisplayName("should not count a re-added code again")
+    void idempotentPut() {
+        BloomFilter filter = BloomFilter.create(100, 0.01);
+        filter.put("aBcD1234");
+        filter.put("aBcD1234");
+        assertEquals(1, filter.getInserted());
+        assertFalse(BloomFilter.create(100, 0.01).mightContain("aBcD1234"));
+    }
+}
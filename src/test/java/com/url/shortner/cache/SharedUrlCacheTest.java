@@ -0,0 +1,224 @@
+package com.url.shortner.cache;
+
+import com.url.shortner.clicks.VisitorKey;
+import com.url.shortner.controllers.RedirectController;
+import com.url.shortner.metrics.ShortnerMetrics;
+import com.url.shortner.repository.UrlMappingJdbcRepository;
+import com.url.shortner.services.UrlMappingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Runs against a real Redis server (embedded-redis) on a free local port
+@DisplayName("SharedUrlCache Tests")
+class SharedUrlCacheTest {
+
+    private static RedisServer server;
+    private static LettuceConnectionFactory connectionFactory;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        int port = freePort();
+        server = new RedisServer(port);
+        server.start();
+        connectionFactory = connectionFactory(port);
+    }
+
+    @AfterAll
+    static void stopServer() throws IOException {
+        connectionFactory.destroy();
+        server.stop();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static LettuceConnectionFactory connectionFactory(int port) {
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port),
+                LettuceClientConfiguration.builder().commandTimeout(Duration.ofMillis(500)).build());
+        factory.afterPropertiesSet();
+        factory.start();
+        return factory;
+    }
+
+    private static UrlResolutionCache nearCache() {
+        return new UrlResolutionCache(100, Duration.ofMinutes(10), Duration.ofSeconds(30));
+    }
+
+    // An instance's Bloom filter, built from an empty url_mapping when 'built'
+    private static ShortCodeFilter shortCodeFilter(boolean built) {
+        ShortCodeFilter filter = new ShortCodeFilter(mock(UrlMappingJdbcRepository.class), true, 100, 0.01, Duration.ofMinutes(1), 60, false);
+        if (built) {
+            filter.rebuild();
+        }
+        return filter;
+    }
+
+    private static ShortCodeFilter shortCodeFilter() {
+        return shortCodeFilter(false);
+    }
+
+    private static SharedUrlCache sharedCache(LettuceConnectionFactory factory, UrlResolutionCache nearCache, boolean enabled) {
+        // A prefix per instance pair keeps the tests apart on the shared server
+        String prefix = "test:" + System.nanoTime() + ":";
+        return new SharedUrlCache(factory, nearCache, shortCodeFilter(), enabled, Duration.ofMinutes(1), prefix, prefix + "created", Duration.ofMinutes(1));
+    }
+
+    @Nested @DisplayName("get() / put()")
+    class GetPut {
+        @Test @DisplayName("should return what any instance stored, and null for unknown codes")
+        void roundTrip() {
+            SharedUrlCache cache = sharedCache(connectionFactory, nearCache(), true);
+            ResolvedUrl resolvedUrl = new ResolvedUrl(42L, "aBcD1234", "https://example.com/a?b=c", 7L);
+            cache.put(resolvedUrl);
+
+            assertEquals(resolvedUrl, cache.get("aBcD1234"));
+            assertNull(cache.get("unknown1"));
+            assertEquals(1, cache.getHits());
+            assertEquals(1, cache.getMisses());
+        }
+
+        @Test @DisplayName("should keep links without a user")
+        void withoutUser() {
+            ResolvedUrl resolvedUrl = new ResolvedUrl(1L, "x", "https://example.com", null);
+            assertEquals(resolvedUrl, SharedUrlCache.decode("x", SharedUrlCache.encode(resolvedUrl)));
+        }
+
+        @Test @DisplayName("should not touch the server while disabled")
+        void disabled() {
+            SharedUrlCache cache = sharedCache(connectionFactory, nearCache(), false);
+            cache.put(new ResolvedUrl(42L, "aBcD1234", "https://example.com", 7L));
+            assertNull(cache.get("aBcD1234"));
+            assertEquals(0, cache.getMisses());
+        }
+    }
+
+    @Nested @DisplayName("publishCreated()")
+    class PublishCreated {
+        @Test @DisplayName("should drop the codes from the other instances' near caches only")
+        void invalidatesOthers() throws InterruptedException {
+            String prefix = "test:" + System.nanoTime() + ":";
+            UrlResolutionCache nearA = nearCache();
+            UrlResolutionCache nearB = nearCache();
+            SharedUrlCache a = new SharedUrlCache(connectionFactory, nearA, shortCodeFilter(), true, Duration.ofMinutes(1), prefix, prefix + "created", Duration.ofMinutes(1));
+            SharedUrlCache b = new SharedUrlCache(connectionFactory, nearB, shortCodeFilter(), true, Duration.ofMinutes(1), prefix, prefix + "created", Duration.ofMinutes(1));
+            a.start();
+            b.start();
+            try {
+                // Both instances saw the code as unknown before it was created
+                nearA.get("newCode1", code -> Optional.empty());
+                nearB.get("newCode1", code -> Optional.empty());
+
+                a.publishCreated(List.of("newCode1"));
+
+                AtomicInteger loadsB = new AtomicInteger();
+                long deadline = System.currentTimeMillis() + 5000;
+                while (loadsB.get() == 0 && System.currentTimeMillis() < deadline) {
+                    nearB.get("newCode1", code -> {
+                        loadsB.incrementAndGet();
+                        return Optional.empty();
+                    });
+                    Thread.sleep(20);
+                }
+                assertEquals(1, loadsB.get());
+                AtomicInteger loadsA = new AtomicInteger();
+                nearA.get("newCode1", code -> {
+                    loadsA.incrementAndGet();
+                    return Optional.empty();
+                });
+                assertEquals(0, loadsA.get());
+            } finally {
+                a.stop();
+                b.stop();
+            }
+        }
+    }
+
+    @Nested @DisplayName("a link created on another instance")
+    class CreatedElsewhere {
+        @Test @DisplayName("should redirect on this instance right away, although its Bloom filter was built before")
+        void redirectsRightAway() throws InterruptedException {
+            String prefix = "test:" + System.nanoTime() + ":";
+            ShortCodeFilter filterB = shortCodeFilter(true);
+            SharedUrlCache a = new SharedUrlCache(connectionFactory, nearCache(), shortCodeFilter(true), true, Duration.ofMinutes(1), prefix, prefix + "created", Duration.ofMinutes(1));
+            SharedUrlCache b = new SharedUrlCache(connectionFactory, nearCache(), filterB, true, Duration.ofMinutes(1), prefix, prefix + "created", Duration.ofMinutes(1));
+            UrlMappingService urlMappingServiceB = mock(UrlMappingService.class);
+            when(urlMappingServiceB.getOriginalUrl(eq("newCode1"), anyLong()))
+                    .thenReturn(new ResolvedUrl(1L, "newCode1", "https://example.com", 7L));
+            RedirectController redirectB = new RedirectController(urlMappingServiceB, filterB, new ShortnerMetrics(new SimpleMeterRegistry()),
+                    new VisitorKey(true, "test-secret"));
+            a.start();
+            b.start();
+            try {
+                // Before it exists, B's filter turns the code away without a lookup
+                assertEquals(404, redirect(redirectB, "newCode1").getStatus());
+
+                // Created on A: A's filter got the code before the insert, then A announces it
+                a.publishCreated(List.of("newCode1"));
+
+                MockHttpServletResponse response = redirect(redirectB, "newCode1");
+                long deadline = System.currentTimeMillis() + 5000;
+                while (response.getStatus() != 302 && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(20);
+                    response = redirect(redirectB, "newCode1");
+                }
+                assertEquals(302, response.getStatus());
+                assertEquals("https://example.com", response.getHeader("Location"));
+            } finally {
+                a.stop();
+                b.stop();
+            }
+        }
+
+        private MockHttpServletResponse redirect(RedirectController controller, String shortUrl) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            controller.redirect(shortUrl, new MockHttpServletRequest("GET", "/" + shortUrl), response);
+            return response;
+        }
+    }
+
+    @Nested @DisplayName("when the server is down")
+    class Unavailable {
+        @Test @DisplayName("should fall back at once and stop trying for the retry period")
+        void fallsBack() throws IOException {
+            LettuceConnectionFactory deadFactory = connectionFactory(freePort());
+            try {
+                SharedUrlCache cache = sharedCache(deadFactory, nearCache(), true);
+                assertNull(cache.get("aBcD1234"));
+                assertEquals(1, cache.getErrors());
+
+                cache.put(new ResolvedUrl(42L, "aBcD1234", "https://example.com", 7L));
+                cache.publishCreated(List.of("aBcD1234"));
+                assertNull(cache.get("aBcD1234"));
+                assertEquals(1, cache.getErrors());
+            } finally {
+                deadFactory.destroy();
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.url.shortner.cache;
+
+import com.url.shortner.repository.UrlMappingJdbcRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ShortCodeFilter Tests")
+class ShortCodeFilterTest {
+
+    @Mock
+    private UrlMappingJdbcRepository urlMappingJdbcRepository;
+
+    private ShortCodeFilter filter(long expectedCodes) {
+        return new ShortCodeFilter(urlMappingJdbcRepository, true, expectedCodes, 0.01, Duration.ofMinutes(1), 60, false);
+    }
+
+    // Makes the repository stream 'codes' for a full scan (createdSince == null)
+    private void existingCodes(String... codes) {
+        doAnswer(i -> {
+            Consumer<String> sink = i.getArgument(1);
+            List.of(codes).forEach(sink);
+            return null;
+        }).when(urlMappingJdbcRepository).forEachShortUrl(isNull(), any());
+    }
+
+    @Nested @DisplayName("mightContain()")
+    class MightContain {
+        @Test @DisplayName("should let everything through until the filter is built")
+        void openUntilBuilt() {
+            ShortCodeFilter filter = filter(100);
+            assertTrue(filter.mightContain("anything"));
+            assertFalse(filter.stats().isReady());
+        }
+
+        @Test @DisplayName("should reject unknown codes once built and count it")
+        void rejectsUnknown() {
+            existingCodes("aBcD1234");
+            ShortCodeFilter filter = filter(100);
+            filter.rebuild();
+            assertTrue(filter.mightContain("aBcD1234"));
+            assertFalse(filter.mightContain("zzzzzzzz"));
+            assertEquals(2, filter.stats().getChecks());
+            assertEquals(1, filter.stats().getRejected());
+        }
+
+        @Test @DisplayName("should accept codes put after the build")
+        void acceptsNewCodes() {
+            existingCodes();
+            ShortCodeFilter filter = filter(100);
+            filter.rebuild();
+            filter.put("newCode1");
+            assertTrue(filter.mightContain("newCode1"));
+        }
+    }
+
+    @Nested @DisplayName("buildOnStartup()")
+    class BuildOnStartup {
+        @Test @DisplayName("should return at once and build on its own thread")
+        void buildsInBackground() throws InterruptedException {
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicReference<String> thread = new AtomicReference<>();
+            doAnswer(i -> {
+                thread.set(Thread.currentThread().getName());
+                release.await();
+                i.<Consumer<String>>getArgument(1).accept("aBcD1234");
+                return null;
+            }).when(urlMappingJdbcRepository).forEachShortUrl(isNull(), any());
+            ShortCodeFilter filter = filter(100);
+            filter.buildOnStartup();
+            assertFalse(filter.stats().isReady());
+            release.countDown();
+            for (int i = 0; i < 200 && !filter.stats().isReady(); i++) {
+                Thread.sleep(10);
+            }
+            assertTrue(filter.stats().isReady());
+            assertFalse(filter.mightContain("zzzzzzzz"));
+            assertEquals("short-code-filter-build", thread.get());
+        }
+
+        @Test @DisplayName("should log a failed build and keep letting every code through")
+        void survivesFailure() {
+            when(urlMappingJdbcRepository.countShortUrls()).thenThrow(new RuntimeException("connection refused"));
+            ShortCodeFilter filter = filter(100);
+            filter.buildOnStartup();
+            verify(urlMappingJdbcRepository, timeout(2000)).countShortUrls();
+            assertTrue(filter.mightContain("anything"));
+            assertFalse(filter.stats().isReady());
+        }
+    }
+
+    @Nested @DisplayName("sync()")
+    class Sync {
+        @Test @DisplayName("should add codes created elsewhere since the last sync, re-reading the overlap and the bulk transaction timeout")
+        void addsRecentCodes() {
+            existingCodes();
+            ShortCodeFilter filter = filter(100);
+            filter.rebuild();
+            LocalDateTime before = LocalDateTime.now();
+            doAnswer(i -> {
+                i.<Consumer<String>>getArgument(1).accept("remote01");
+                return null;
+            }).when(urlMappingJdbcRepository).forEachShortUrl(any(LocalDateTime.class), any());
+            filter.sync();
+            assertTrue(filter.mightContain("remote01"));
+            verify(urlMappingJdbcRepository).forEachShortUrl(argThat(since -> since != null && since.isBefore(before.minusSeconds(119))), any());
+        }
+
+        @Test @DisplayName("should rebuild larger once more codes were added than it was sized for")
+        void resizes() {
+            existingCodes();
+            ShortCodeFilter filter = filter(1000);
+            filter.rebuild();
+            for (int i = 0; i < 3000; i++) {
+                filter.put("code" + i);
+            }
+            when(urlMappingJdbcRepository.countShortUrls()).thenReturn(3000L);
+            doNothing().when(urlMappingJdbcRepository).forEachShortUrl(any(LocalDateTime.class), any());
+            existingCodes(IntStream.range(0, 3000).mapToObj(i -> "code" + i).toArray(String[]::new));
+            filter.sync();
+            assertEquals(6000, filter.stats().getCapacity());
+            assertTrue(filter.mightContain("code2999"));
+        }
+    }
+
+    @Test @DisplayName("should report the observed false positive rate")
+    void observedFpp() {
+        existingCodes();
+        ShortCodeFilter filter = filter(100);
+        filter.rebuild();
+        filter.mightContain("unknown1");
+        filter.recordFalsePositive();
+        assertEquals(0.5, filter.stats().getObservedFpp());
+    }
+}
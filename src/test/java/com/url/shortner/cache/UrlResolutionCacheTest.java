@@ -0,0 +1,79 @@
+package com.url.shortner.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("UrlResolutionCache Tests")
+class UrlResolutionCacheTest {
+
+    private static final ResolvedUrl RESOLVED = new ResolvedUrl(1L, "aBcD1234", "https://example.com", 7L);
+
+    private UrlResolutionCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new UrlResolutionCache(100, Duration.ofMinutes(10), Duration.ofSeconds(30));
+    }
+
+    @Test @DisplayName("should collapse concurrent misses into one load, on virtual threads too")
+    void singleFlight() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Optional<ResolvedUrl>>> results = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                results.add(pool.submit(() -> cache.get("aBcD1234", code -> {
+                    loads.incrementAndGet();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return Optional.of(RESOLVED);
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<Optional<ResolvedUrl>> result : results) {
+                assertEquals(RESOLVED, result.get().orElseThrow());
+            }
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test @DisplayName("should not cache a failed load")
+    void failedLoadIsNotCached() {
+        assertThrows(IllegalStateException.class,
+                () -> cache.get("aBcD1234", code -> { throw new IllegalStateException("db down"); }));
+        assertEquals(RESOLVED, cache.get("aBcD1234", code -> Optional.of(RESOLVED)).orElseThrow());
+    }
+
+    @Test @DisplayName("put should replace a negative entry")
+    void putReplacesNegativeEntry() {
+        assertTrue(cache.get("aBcD1234", code -> Optional.empty()).isEmpty());
+        cache.put(RESOLVED);
+        assertEquals(RESOLVED, cache.get("aBcD1234", code -> Optional.empty()).orElseThrow());
+    }
+
+    @Test @DisplayName("should count hits and misses")
+    void recordsStats() {
+        cache.get("aBcD1234", code -> Optional.of(RESOLVED));
+        cache.get("aBcD1234", code -> Optional.of(RESOLVED));
+        cache.get("aBcD1234", code -> Optional.of(RESOLVED));
+        assertEquals(1, cache.stats().missCount());
+        assertEquals(2, cache.stats().hitCount());
+    }
+}
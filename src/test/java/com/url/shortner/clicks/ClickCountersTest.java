@@ -0,0 +1,124 @@
+package com.url.shortner.clicks;
+
+import com.url.shortner.repository.UrlMappingJdbcRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ClickCounters Tests")
+class ClickCountersTest {
+
+    @Mock
+    private UrlMappingJdbcRepository urlMappingJdbcRepository;
+
+    private ClickCounters clickCounters;
+    private List<Map<Long, Long>> flushed;
+
+    @BeforeEach
+    void setUp() {
+        clickCounters = new ClickCounters(urlMappingJdbcRepository, 2);
+        flushed = new ArrayList<>();
+    }
+
+    private void captureFlushes() {
+        doAnswer(i -> flushed.add(new HashMap<>(i.<Map<Long, Long>>getArgument(0))))
+                .when(urlMappingJdbcRepository).addClickCounts(any());
+    }
+
+    @Test @DisplayName("should flush one delta per link")
+    void flushesDeltas() {
+        captureFlushes();
+        clickCounters.increment(1L);
+        clickCounters.increment(1L);
+        clickCounters.increment(2L);
+        clickCounters.flush();
+        assertEquals(Map.of(1L, 2L, 2L, 1L), flushed.get(0));
+        assertEquals(0, clickCounters.getPendingClicks());
+    }
+
+    @Test @DisplayName("should only write clicks counted since the last flush")
+    void writesOnlyNewClicks() {
+        captureFlushes();
+        clickCounters.increment(1L);
+        clickCounters.flush();
+        clickCounters.increment(1L);
+        clickCounters.increment(1L);
+        clickCounters.flush();
+        assertEquals(Map.of(1L, 2L), flushed.get(1));
+    }
+
+    @Test @DisplayName("should not touch the database when nothing was clicked")
+    void skipsEmptyFlush() {
+        clickCounters.flush();
+        verifyNoInteractions(urlMappingJdbcRepository);
+    }
+
+    @Test @DisplayName("should retry the same delta after a failed flush")
+    void retriesAfterFailure() {
+        doThrow(new RuntimeException("db down")).doAnswer(i -> flushed.add(new HashMap<>(i.<Map<Long, Long>>getArgument(0))))
+                .when(urlMappingJdbcRepository).addClickCounts(any());
+        clickCounters.increment(1L);
+        clickCounters.flush();
+        assertEquals(1, clickCounters.getPendingClicks());
+        clickCounters.increment(1L);
+        clickCounters.flush();
+        assertEquals(Map.of(1L, 2L), flushed.get(0));
+    }
+
+    @Test @DisplayName("should evict idle counters without losing late clicks")
+    void evictsIdleCounters() {
+        captureFlushes();
+        clickCounters.increment(1L);
+        clickCounters.flush();
+        clickCounters.flush();
+        clickCounters.flush();
+        assertEquals(0, clickCounters.getTrackedLinks());
+        clickCounters.increment(1L);
+        clickCounters.flush();
+        assertEquals(Map.of(1L, 1L), flushed.get(1));
+    }
+
+    @Test @DisplayName("should count exactly under concurrent increments")
+    void exactUnderContention() throws Exception {
+        captureFlushes();
+        int threads = 8, perThread = 10_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    clickCounters.increment(1L);
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        // Flush concurrently with the increments
+        for (int i = 0; i < 5; i++) {
+            clickCounters.flush();
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        clickCounters.flush();
+        long total = flushed.stream().mapToLong(m -> m.getOrDefault(1L, 0L)).sum();
+        assertEquals((long) threads * perThread, total);
+    }
+}
@@ -0,0 +1,105 @@
+package com.url.shortner.clicks;
+
+import com.url.shortner.repository.ClickPartitionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ClickPartitionManager Tests")
+class ClickPartitionManagerTest {
+
+    private static final YearMonth NOW = YearMonth.of(2026, 6);
+
+    @Mock
+    private ClickPartitionRepository clickPartitionRepository;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(clickPartitionRepository.isSupported()).thenReturn(true);
+        lenient().when(clickPartitionRepository.withMaintenanceLock(any())).thenAnswer(i -> {
+            i.<Runnable>getArgument(0).run();
+            return true;
+        });
+        lenient().when(clickPartitionRepository.createPartition(any())).thenReturn(true);
+    }
+
+    @Nested @DisplayName("upcoming partitions")
+    class Upcoming {
+        @Test @DisplayName("should create the missing months up to 'monthsAhead', oldest first")
+        void createsMissingMonths() {
+            when(clickPartitionRepository.findPartitions()).thenReturn(List.of(NOW.minusMonths(1), NOW));
+            new ClickPartitionManager(clickPartitionRepository, 2, 0).maintain(NOW);
+
+            InOrder inOrder = inOrder(clickPartitionRepository);
+            inOrder.verify(clickPartitionRepository).createPartition(NOW.plusMonths(1));
+            inOrder.verify(clickPartitionRepository).createPartition(NOW.plusMonths(2));
+            verify(clickPartitionRepository, never()).createPartition(NOW);
+            verify(clickPartitionRepository, never()).dropPartition(any());
+        }
+
+        @Test @DisplayName("should do nothing when click_event isn't partitioned")
+        void skipsPlainTable() {
+            when(clickPartitionRepository.findPartitions()).thenReturn(List.of());
+            new ClickPartitionManager(clickPartitionRepository, 2, 1).maintain(NOW);
+            verify(clickPartitionRepository, never()).createPartition(any());
+            verify(clickPartitionRepository, never()).dropPartition(any());
+        }
+
+        @Test @DisplayName("should do nothing on an unsupported database")
+        void skipsUnsupportedDatabase() {
+            when(clickPartitionRepository.isSupported()).thenReturn(false);
+            new ClickPartitionManager(clickPartitionRepository, 2, 1).maintain(NOW);
+            verify(clickPartitionRepository, never()).findPartitions();
+        }
+    }
+
+    @Nested @DisplayName("retention")
+    class Retention {
+        @Test @DisplayName("should drop only the partitions older than the retention window")
+        void dropsOldPartitions() {
+            when(clickPartitionRepository.findPartitions())
+                    .thenReturn(List.of(NOW.minusMonths(4), NOW.minusMonths(3), NOW.minusMonths(2), NOW));
+            new ClickPartitionManager(clickPartitionRepository, 0, 2).maintain(NOW);
+
+            verify(clickPartitionRepository).dropPartition(NOW.minusMonths(4));
+            verify(clickPartitionRepository).dropPartition(NOW.minusMonths(3));
+            verify(clickPartitionRepository, never()).dropPartition(NOW.minusMonths(2));
+        }
+
+        @Test @DisplayName("should keep everything when retention is 0")
+        void keepsEverything() {
+            when(clickPartitionRepository.findPartitions()).thenReturn(List.of(NOW.minusYears(5), NOW));
+            new ClickPartitionManager(clickPartitionRepository, 0, 0).maintain(NOW);
+            verify(clickPartitionRepository, never()).dropPartition(any());
+        }
+    }
+
+    @Nested @DisplayName("coordination")
+    class Coordination {
+        @Test @DisplayName("should leave the partitions to the instance holding the lock")
+        void skipsWhenLocked() {
+            doReturn(false).when(clickPartitionRepository).withMaintenanceLock(any());
+            new ClickPartitionManager(clickPartitionRepository, 2, 1).maintain(NOW);
+            verify(clickPartitionRepository, never()).findPartitions();
+        }
+
+        @Test @DisplayName("should log a failed startup run instead of failing the start")
+        void survivesFailure() {
+            when(clickPartitionRepository.findPartitions()).thenThrow(new RuntimeException("lock timeout"));
+            new ClickPartitionManager(clickPartitionRepository, 2, 1).maintainOnStartup();
+            verify(clickPartitionRepository, never()).createPartition(any());
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.url.shortner.clicks;
+
+import com.url.shortner.analytics.UniqueVisitors;
+import com.url.shortner.repository.ClickEventJdbcRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ClickRecorder Tests")
+class ClickRecorderTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 4, 27, 10, 0);
+
+    @Mock
+    private ClickEventJdbcRepository clickEventJdbcRepository;
+    @Mock
+    private UniqueVisitors uniqueVisitors;
+
+    private ClickRecorder recorder(int capacity, int batchSize, OverflowPolicy policy) {
+        return new ClickRecorder(clickEventJdbcRepository, uniqueVisitors, capacity, batchSize, Duration.ofMillis(50), policy, false);
+    }
+
+    // Mockito captures the list reference, which the recorder clears and reuses, so snapshot it.
+    private List<List<PendingClick>> captureBatches() {
+        List<List<PendingClick>> batches = new ArrayList<>();
+        doAnswer(i -> batches.add(List.copyOf(i.<List<PendingClick>>getArgument(0))))
+                .when(clickEventJdbcRepository).saveBatch(any());
+        return batches;
+    }
+
+    @Nested @DisplayName("record()")
+    class Record {
+        @Test @DisplayName("should queue clicks without touching the database")
+        void queuesClicks() {
+            ClickRecorder recorder = recorder(10, 5, OverflowPolicy.DROP_NEWEST);
+            recorder.record(1L, NOW, 0L);
+            recorder.record(2L, NOW, 0L);
+            assertEquals(2, recorder.getQueueSize());
+            verifyNoInteractions(clickEventJdbcRepository);
+        }
+
+        @Test @DisplayName("DROP_NEWEST should discard the incoming click when full")
+        void dropNewest() {
+            List<List<PendingClick>> batches = captureBatches();
+            ClickRecorder recorder = recorder(2, 5, OverflowPolicy.DROP_NEWEST);
+            recorder.record(1L, NOW, 0L);
+            recorder.record(2L, NOW, 0L);
+            recorder.record(3L, NOW, 0L);
+            assertEquals(1, recorder.getDroppedClicks());
+            recorder.flush();
+            assertEquals(List.of(1L, 2L), batches.get(0).stream().map(PendingClick::urlMappingId).toList());
+        }
+
+        @Test @DisplayName("DROP_OLDEST should evict the head of the queue when full")
+        void dropOldest() {
+            List<List<PendingClick>> batches = captureBatches();
+            ClickRecorder recorder = recorder(2, 5, OverflowPolicy.DROP_OLDEST);
+            recorder.record(1L, NOW, 0L);
+            recorder.record(2L, NOW, 0L);
+            recorder.record(3L, NOW, 0L);
+            assertEquals(1, recorder.getDroppedClicks());
+            recorder.flush();
+            assertEquals(List.of(2L, 3L), batches.get(0).stream().map(PendingClick::urlMappingId).toList());
+        }
+
+        @Test @DisplayName("CALLER_RUNS should write the overflowing click synchronously")
+        void callerRuns() {
+            List<List<PendingClick>> batches = captureBatches();
+            ClickRecorder recorder = recorder(1, 5, OverflowPolicy.CALLER_RUNS);
+            recorder.record(1L, NOW, 0L);
+            recorder.record(2L, NOW, 0L);
+            assertEquals(0, recorder.getDroppedClicks());
+            assertEquals(1, batches.size());
+            assertEquals(2L, batches.get(0).get(0).urlMappingId());
+        }
+    }
+
+    @Nested @DisplayName("flush()")
+    class Flush {
+        @Test @DisplayName("should split queued clicks into batches of batchSize")
+        void splitsIntoBatches() {
+            List<List<PendingClick>> batches = captureBatches();
+            ClickRecorder recorder = recorder(100, 4, OverflowPolicy.DROP_NEWEST);
+            for (long i = 0; i < 10; i++) {
+                recorder.record(i, NOW, 0L);
+            }
+            recorder.flush();
+            assertEquals(List.of(4, 4, 2), batches.stream().map(List::size).toList());
+        }
+
+        @Test @DisplayName("should count clicks of a failed batch and keep going")
+        void countsFailures() {
+            doThrow(new RuntimeException("db down")).when(clickEventJdbcRepository).saveBatch(any());
+            ClickRecorder recorder = recorder(100, 2, OverflowPolicy.DROP_NEWEST);
+            recorder.record(1L, NOW, 0L);
+            recorder.record(2L, NOW, 0L);
+            recorder.record(3L, NOW, 0L);
+            recorder.flush();
+            assertEquals(3, recorder.getFailedClicks());
+            verify(clickEventJdbcRepository, times(2)).saveBatch(any());
+            verify(uniqueVisitors, never()).record(any());
+        }
+
+        @Test @DisplayName("should hand each written batch to the visitor sketches")
+        void recordsVisitors() {
+            List<List<PendingClick>> recorded = new ArrayList<>();
+            doAnswer(i -> recorded.add(List.copyOf(i.<List<PendingClick>>getArgument(0)))).when(uniqueVisitors).record(any());
+            ClickRecorder recorder = recorder(100, 10, OverflowPolicy.DROP_NEWEST);
+            recorder.record(1L, NOW, 42L);
+            recorder.flush();
+            assertEquals(List.of(List.of(new PendingClick(1L, NOW, 42L))), recorded);
+        }
+    }
+
+    @Nested @DisplayName("lifecycle")
+    class Lifecycle {
+        @Test @DisplayName("background writer should drain the queue and stop() should flush the rest")
+        void drainsInBackground() {
+            ArgumentCaptor<List<PendingClick>> cap = ArgumentCaptor.captor();
+            ClickRecorder recorder = recorder(100, 50, OverflowPolicy.DROP_NEWEST);
+            recorder.start();
+            recorder.record(1L, NOW, 0L);
+            verify(clickEventJdbcRepository, timeout(2000)).saveBatch(any());
+            recorder.record(2L, NOW, 0L);
+            recorder.stop();
+            assertFalse(recorder.isRunning());
+            assertEquals(0, recorder.getQueueSize());
+            verify(clickEventJdbcRepository, times(2)).saveBatch(cap.capture());
+        }
+
+        @Test @DisplayName("should run the writer on a virtual thread when virtual threads are enabled")
+        void virtualThreadWriter() {
+            AtomicReference<Thread> writerThread = new AtomicReference<>();
+            doAnswer(i -> {
+                writerThread.set(Thread.currentThread());
+                return null;
+            }).when(clickEventJdbcRepository).saveBatch(any());
+            ClickRecorder recorder = new ClickRecorder(clickEventJdbcRepository, uniqueVisitors, 10, 10, Duration.ofMillis(20),
+                    OverflowPolicy.DROP_NEWEST, true);
+            recorder.start();
+            recorder.record(1L, NOW, 0L);
+            verify(clickEventJdbcRepository, timeout(2000)).saveBatch(any());
+            recorder.stop();
+            assertTrue(writerThread.get().isVirtual());
+        }
+
+        @Test @DisplayName("should still write clicks recorded while the web server drains its requests")
+        void recordsDuringShutdown() {
+            List<List<PendingClick>> batches = captureBatches();
+            ClickRecorder recorder = recorder(100, 50, OverflowPolicy.DROP_NEWEST);
+            try (GenericApplicationContext context = new GenericApplicationContext()) {
+                context.registerBean("clickRecorder", ClickRecorder.class, () -> recorder);
+                context.registerBean("webServer", DrainingWebServer.class, () -> new DrainingWebServer(recorder));
+                context.refresh();
+            }
+            assertEquals(List.of(new PendingClick(1L, NOW, 0L)), batches.stream().flatMap(List::stream).toList());
+            assertEquals(0, recorder.getQueueSize());
+        }
+    }
+
+    // Stands in for the web server's graceful shutdown: a redirect still in flight records its click
+    static class DrainingWebServer implements SmartLifecycle {
+        private final ClickRecorder recorder;
+        private volatile boolean running;
+
+        DrainingWebServer(ClickRecorder recorder) {
+            this.recorder = recorder;
+        }
+
+        @Override
+        public void start() {
+            running = true;
+        }
+
+        @Override
+        public void stop() {
+            recorder.record(1L, NOW, 0L);
+            running = false;
+        }
+
+        @Override
+        public boolean isRunning() {
+            return running;
+        }
+
+        @Override
+        public int getPhase() {
+            return WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE;
+        }
+    }
+}
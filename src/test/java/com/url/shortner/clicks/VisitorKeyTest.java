@@ -0,0 +1,43 @@
+package com.url.shortner.clicks;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("VisitorKey Tests")
+class VisitorKeyTest {
+
+    @Test @DisplayName("should compute SipHash-2-4 as in the paper's test vector")
+    void sipHashTestVector() {
+        // Key 00 01 .. 0f, message 00 01 .. 0e (SipHash paper, appendix A)
+        byte[] message = new byte[15];
+        for (int i = 0; i < message.length; i++) {
+            message[i] = (byte) i;
+        }
+        assertEquals(0xa129ca6149be45e5L, VisitorKey.sipHash24(0x0706050403020100L, 0x0f0e0d0c0b0a0908L, message));
+    }
+
+    @Test @DisplayName("should give the same visitor the same hash under one secret and another under a different one")
+    void keyed() {
+        VisitorKey key = new VisitorKey(true, "secret-a");
+        long hash = key.hash("1.2.3.4", "Mozilla/5.0");
+
+        assertEquals(hash, new VisitorKey(true, "secret-a").hash("1.2.3.4", "Mozilla/5.0"));
+        assertNotEquals(hash, new VisitorKey(true, "secret-b").hash("1.2.3.4", "Mozilla/5.0"));
+        assertNotEquals(hash, key.hash("1.2.3.5", "Mozilla/5.0"));
+        // The separator keeps the boundary between address and User-Agent
+        assertNotEquals(key.hash("1.2.3.4", "5x"), key.hash("1.2.3.45", "x"));
+    }
+
+    @Test @DisplayName("should refuse to start without a secret while visitors are enabled")
+    void requiresSecret() {
+        assertThrows(IllegalArgumentException.class, () -> new VisitorKey(true, ""));
+        assertThrows(IllegalArgumentException.class, () -> new VisitorKey(true, null));
+    }
+
+    @Test @DisplayName("should need no secret and give no hash when visitors are disabled")
+    void disabled() {
+        assertNull(new VisitorKey(false, "").hash("1.2.3.4", "Mozilla/5.0"));
+    }
+}
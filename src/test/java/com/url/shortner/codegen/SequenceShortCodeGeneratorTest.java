@@ -0,0 +1,98 @@
+package com.url.shortner.codegen;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SequenceShortCodeGenerator Tests")
+class SequenceShortCodeGeneratorTest {
+
+    @Mock
+    private ShortCodeBlockAllocator blockAllocator;
+
+    @Test @DisplayName("should produce 8 base62 characters")
+    void producesBase62Codes() {
+        when(blockAllocator.leaseBlock(eq("url_mapping"), anyInt())).thenReturn(0L);
+        String code = new SequenceShortCodeGenerator(blockAllocator, 10).nextCode();
+        assertTrue(code.matches("[A-Za-z0-9]{8}"));
+    }
+
+    @Test @DisplayName("should lease a new block only when the current one is used up")
+    void leasesPerBlock() {
+        when(blockAllocator.leaseBlock("url_mapping", 3)).thenReturn(0L, 3L);
+        SequenceShortCodeGenerator generator = new SequenceShortCodeGenerator(blockAllocator, 3);
+        for (int i = 0; i < 6; i++) {
+            generator.nextCode();
+        }
+        verify(blockAllocator, times(2)).leaseBlock("url_mapping", 3);
+    }
+
+    @Test @DisplayName("should lease again when creating the sequence row lost a race")
+    void retriesFirstLease() {
+        when(blockAllocator.leaseBlock("url_mapping", 5))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"))
+                .thenReturn(100L);
+        assertNotNull(new SequenceShortCodeGenerator(blockAllocator, 5).nextCode());
+    }
+
+    @Test @DisplayName("should map distinct sequence values to distinct codes")
+    void permutationIsInjective() {
+        Set<Long> seen = new HashSet<>();
+        long space = Base62.capacity(8);
+        for (long v = 0; v < 200_000; v++) {
+            long p = SequenceShortCodeGenerator.permute(v);
+            assertTrue(p >= 0 && p < space);
+            assertTrue(seen.add(p));
+        }
+        // Values at the far end of the space are fine too
+        assertTrue(seen.add(SequenceShortCodeGenerator.permute(space - 1)));
+        assertThrows(IllegalStateException.class, () -> SequenceShortCodeGenerator.permute(space));
+    }
+
+    @Test @DisplayName("should never hand out the same code to concurrent callers")
+    void uniqueUnderConcurrency() throws Exception {
+        AtomicLong sequence = new AtomicLong();
+        when(blockAllocator.leaseBlock("url_mapping", 64)).thenAnswer(i -> sequence.getAndAdd(64));
+        SequenceShortCodeGenerator generator = new SequenceShortCodeGenerator(blockAllocator, 64);
+        Set<String> codes = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Object>> futures = pool.invokeAll(Collections.nCopies(8, () -> {
+            for (int i = 0; i < 5_000; i++) {
+                codes.add(generator.nextCode());
+            }
+            return null;
+        }));
+        for (Future<?> f : futures) {
+            f.get();
+        }
+        pool.shutdown();
+        assertEquals(40_000, codes.size());
+    }
+
+    @Test @DisplayName("Base62 should left-pad to the requested width")
+    void base62Padding() {
+        assertEquals("AAAAAAAA", Base62.encode(0, 8));
+        assertEquals("AAAAAAAB", Base62.encode(1, 8));
+        assertEquals("99999999", Base62.encode(Base62.capacity(8) - 1, 8));
+        assertThrows(IllegalArgumentException.class, () -> Base62.encode(Base62.capacity(8), 8));
+    }
+}
@@ -0,0 +1,114 @@
+package com.url.shortner.datasource;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Read replica routing Tests")
+class ReplicaRoutingTest {
+
+    @Mock
+    private DataSource primary;
+    @Mock
+    private DataSource replica;
+    @Mock
+    private Connection primaryConnection;
+    @Mock
+    private Connection replicaConnection;
+
+    private ReplicaRouting routing() {
+        return new ReplicaRouting("jdbc:postgresql://replica/shortner", Duration.ofSeconds(5));
+    }
+
+    @Nested @DisplayName("ReplicaRouting")
+    class Routing {
+        @Test @DisplayName("should use the replica only after a check within the lag limit")
+        void lagLimit() {
+            ReplicaRouting routing = routing();
+            assertFalse(routing.useReplica());
+            routing.replicaLag(0.5);
+            assertTrue(routing.useReplica());
+            routing.replicaLag(30);
+            assertFalse(routing.useReplica());
+            routing.replicaLag(5);
+            assertTrue(routing.useReplica());
+            routing.replicaFailed(new IllegalStateException("connection refused"));
+            assertFalse(routing.useReplica());
+        }
+
+        @Test @DisplayName("should force the primary inside onPrimary() only")
+        void onPrimary() {
+            ReplicaRouting routing = routing();
+            routing.replicaLag(0);
+            assertFalse(routing.onPrimary(routing::useReplica));
+            assertTrue(routing.useReplica());
+        }
+
+        @Test @DisplayName("should never route to a replica that isn't configured")
+        void notConfigured() {
+            ReplicaRouting routing = new ReplicaRouting("", Duration.ofSeconds(5));
+            routing.replicaLag(0);
+            assertFalse(routing.isReplicaConfigured());
+            assertFalse(routing.useReplica());
+            assertEquals("x", routing.onPrimary(() -> "x"));
+        }
+    }
+
+    @Nested @DisplayName("read-only connections")
+    class Connections {
+        // The DataSource RoutingDataSourceConfig builds, over mocked pools
+        private DataSource dataSource(ReplicaRouting routing) throws SQLException {
+            lenient().when(primary.getConnection()).thenReturn(primaryConnection);
+            lenient().when(replica.getConnection()).thenReturn(replicaConnection);
+            lenient().when(primaryConnection.getAutoCommit()).thenReturn(true);
+            LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+            dataSource.setReadOnlyDataSource(new ReplicaRoutingDataSource(primary, replica, routing));
+            return dataSource;
+        }
+
+        @Test @DisplayName("should take read-only connections from the replica and others from the primary")
+        void routesByReadOnlyFlag() throws SQLException {
+            ReplicaRouting routing = routing();
+            routing.replicaLag(0);
+            DataSource dataSource = dataSource(routing);
+
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setReadOnly(true);
+                connection.createStatement();
+            }
+            verify(replicaConnection).createStatement();
+
+            try (Connection connection = dataSource.getConnection()) {
+                connection.createStatement();
+            }
+            verify(primaryConnection).createStatement();
+        }
+
+        @Test @DisplayName("should take read-only connections from the primary while the replica lags")
+        void fallsBack() throws SQLException {
+            ReplicaRouting routing = routing();
+            routing.replicaLag(60);
+            DataSource dataSource = dataSource(routing);
+
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setReadOnly(true);
+                connection.createStatement();
+            }
+            verify(primaryConnection).createStatement();
+            verifyNoInteractions(replica);
+        }
+    }
+}
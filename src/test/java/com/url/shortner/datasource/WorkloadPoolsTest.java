@@ -0,0 +1,102 @@
+package com.url.shortner.datasource;
+
+import com.url.shortner.bulkhead.Workload;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.mock.env.MockEnvironment;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Workload pools Tests")
+class WorkloadPoolsTest {
+
+    @Mock
+    private DataSource redirectPool;
+    @Mock
+    private DataSource linksPool;
+    @Mock
+    private DataSource analyticsPool;
+    @Mock
+    private Connection connection;
+
+    @Nested @DisplayName("routing")
+    class Routing {
+        @Test @DisplayName("should take connections from the pool of the current thread's workload")
+        void routesByWorkload() throws SQLException {
+            lenient().when(redirectPool.getConnection()).thenReturn(connection);
+            lenient().when(analyticsPool.getConnection()).thenReturn(connection);
+            lenient().when(linksPool.getConnection()).thenReturn(connection);
+            DataSource dataSource = new WorkloadRoutingDataSource(Map.of(
+                    Workload.REDIRECT, redirectPool, Workload.LINKS, linksPool, Workload.ANALYTICS, analyticsPool));
+
+            Workload.ANALYTICS.call(() -> assertDoesNotThrow(() -> dataSource.getConnection()));
+            verify(analyticsPool).getConnection();
+
+            Workload.REDIRECT.call(() -> assertDoesNotThrow(() -> dataSource.getConnection()));
+            verify(redirectPool).getConnection();
+
+            // No workload set: link management
+            dataSource.getConnection();
+            verify(linksPool).getConnection();
+        }
+    }
+
+    @Nested @DisplayName("configuration")
+    class Configuration {
+        private DataSourcePools pools(MockEnvironment environment, boolean perWorkload, String replicaUrl) throws Exception {
+            DataSourceProperties properties = new DataSourceProperties();
+            properties.setUrl("jdbc:postgresql://localhost:5432/shortner");
+            properties.afterPropertiesSet();
+            return new RoutingDataSourceConfig().dataSourcePools(properties, environment, perWorkload, replicaUrl, "user", "secret");
+        }
+
+        @Test @DisplayName("should size each workload's pool on top of the shared Hikari settings")
+        void perWorkload() throws Exception {
+            MockEnvironment environment = new MockEnvironment()
+                    .withProperty("spring.datasource.hikari.maximum-pool-size", "7")
+                    .withProperty("spring.datasource.hikari.connection-timeout", "3000")
+                    .withProperty("shortner.datasource.pools.redirect.connection-timeout", "500")
+                    .withProperty("shortner.datasource.pools.analytics.maximum-pool-size", "2");
+            try (DataSourcePools pools = pools(environment, true, "")) {
+                HikariDataSource redirect = pools.primary().get(Workload.REDIRECT);
+                HikariDataSource links = pools.primary().get(Workload.LINKS);
+                HikariDataSource analytics = pools.primary().get(Workload.ANALYTICS);
+
+                assertEquals("primary-redirect", redirect.getPoolName());
+                assertEquals(500, redirect.getConnectionTimeout());
+                assertEquals(7, redirect.getMaximumPoolSize());
+                assertEquals(3000, links.getConnectionTimeout());
+                assertEquals(2, analytics.getMaximumPoolSize());
+                assertNotSame(redirect, analytics);
+                assertTrue(pools.replica().isEmpty());
+            }
+        }
+
+        @Test @DisplayName("should share one pool per database without per-workload pools")
+        void shared() throws Exception {
+            try (DataSourcePools pools = pools(new MockEnvironment(), false, "jdbc:postgresql://replica:5432/shortner")) {
+                assertSame(pools.primary().get(Workload.REDIRECT), pools.primary().get(Workload.ANALYTICS));
+                assertEquals("primary", pools.primary().get(Workload.LINKS).getPoolName());
+
+                HikariDataSource replica = pools.replica().get(Workload.ANALYTICS);
+                assertEquals("replica", replica.getPoolName());
+                assertEquals("jdbc:postgresql://replica:5432/shortner", replica.getJdbcUrl());
+                assertEquals("user", replica.getUsername());
+                assertTrue(replica.isReadOnly());
+            }
+        }
+    }
+}
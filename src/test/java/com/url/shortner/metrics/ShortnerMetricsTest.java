@@ -0,0 +1,47 @@
+package com.url.shortner.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ShortnerMetrics Tests")
+class ShortnerMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private ShortnerMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new ShortnerMetrics(registry);
+    }
+
+    @Test @DisplayName("should record each redirect phase under its own tag")
+    void redirectPhases() {
+        long start = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(3);
+        metrics.redirectLookup(start);
+        metrics.redirectLookup(start);
+        metrics.redirectClicks(start);
+
+        Timer lookup = registry.get("shortner.redirect").tag("phase", "lookup").timer();
+        assertEquals(2, lookup.count());
+        assertTrue(lookup.totalTime(TimeUnit.MILLISECONDS) >= 6);
+        assertEquals(1, registry.get("shortner.redirect").tag("phase", "clicks").timer().count());
+        assertEquals(0, registry.get("shortner.redirect").tag("phase", "response").timer().count());
+    }
+
+    @Test @DisplayName("should register every timer up front, so dashboards see them before the first call")
+    void registeredUpFront() {
+        assertEquals(3, registry.get("shortner.redirect").timers().size());
+        assertEquals(2, registry.get("shortner.analytics").timers().size());
+        assertEquals(2, registry.get("shortner.login").timers().size());
+        assertNotNull(registry.get("shortner.shorten").timer());
+        assertNotNull(registry.get("shortner.jwt.validation").timer());
+    }
+}
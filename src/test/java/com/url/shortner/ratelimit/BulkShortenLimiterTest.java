@@ -0,0 +1,42 @@
+package com.url.shortner.ratelimit;
+
+import com.url.shortner.metrics.ShortnerMetrics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BulkShortenLimiter Tests")
+class BulkShortenLimiterTest {
+
+    @Mock
+    private ShortnerMetrics metrics;
+
+    @Test @DisplayName("should charge a bulk request one token per URL")
+    void chargesPerUrl() {
+        // 1,000 URLs of burst and a refill rate too low to matter during a test
+        BulkShortenLimiter limiter = new BulkShortenLimiter(metrics, true, 0.001, 1000, 100);
+
+        assertEquals(0, limiter.tryAcquire("alice", 600));
+        assertTrue(limiter.tryAcquire("alice", 600) > 0);
+        assertEquals(0, limiter.tryAcquire("alice", 400));
+        assertTrue(limiter.tryAcquire("alice", 1) > 0);
+        verify(metrics, times(2)).bulkRateLimited();
+        // Another user has a bucket of their own
+        assertEquals(0, limiter.tryAcquire("bob", 1000));
+    }
+
+    @Test @DisplayName("should let everything through when rate limiting is off")
+    void disabled() {
+        BulkShortenLimiter limiter = new BulkShortenLimiter(metrics, false, 0.001, 10, 100);
+
+        assertEquals(0, limiter.tryAcquire("alice", 100_000));
+        assertEquals(0, limiter.tryAcquire("alice", 100_000));
+        verifyNoInteractions(metrics);
+    }
+}
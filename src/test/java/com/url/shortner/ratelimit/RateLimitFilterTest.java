@@ -0,0 +1,119 @@
+package com.url.shortner.ratelimit;
+
+import com.url.shortner.metrics.ShortnerMetrics;
+import com.url.shortner.security.jwt.JwtAuthenticationFilter;
+import com.url.shortner.security.jwt.JwtUtils;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RateLimitFilter Tests")
+class RateLimitFilterTest {
+
+    @Mock
+    private JwtUtils jwtUtils;
+    @Mock
+    private ShortnerMetrics metrics;
+    @Mock
+    private FilterChain filterChain;
+    @Mock
+    private Claims claims;
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        // Bursts of 2 and a refill rate too low to matter during a test
+        filter = new RateLimitFilter(jwtUtils, metrics, true, 0.001, 2, 0.001, 2, 1000);
+    }
+
+    private MockHttpServletResponse send(MockHttpServletRequest request) throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, filterChain);
+        return response;
+    }
+
+    private static MockHttpServletRequest redirect(String ip) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/aBcD1234");
+        request.setRemoteAddr(ip);
+        return request;
+    }
+
+    private static MockHttpServletRequest shorten(String ip) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/urls/shorten");
+        request.setRemoteAddr(ip);
+        return request;
+    }
+
+    @Nested @DisplayName("redirects")
+    class Redirects {
+        @Test @DisplayName("should reject a client over its burst with 429 and Retry-After")
+        void rejectsOverBurst() throws Exception {
+            assertEquals(200, send(redirect("1.2.3.4")).getStatus());
+            assertEquals(200, send(redirect("1.2.3.4")).getStatus());
+            MockHttpServletResponse rejected = send(redirect("1.2.3.4"));
+
+            assertEquals(429, rejected.getStatus());
+            assertNotNull(rejected.getHeader("Retry-After"));
+            verify(filterChain, times(2)).doFilter(any(), any());
+            verify(metrics).redirectRateLimited();
+            // Other clients are unaffected
+            assertEquals(200, send(redirect("5.6.7.8")).getStatus());
+        }
+
+        @Test @DisplayName("should not limit other endpoints")
+        void ignoresOtherPaths() throws Exception {
+            for (int i = 0; i < 5; i++) {
+                send(new MockHttpServletRequest("GET", "/api/urls/myurls"));
+            }
+            verify(filterChain, times(5)).doFilter(any(), any());
+        }
+    }
+
+    @Nested @DisplayName("shortening")
+    class Shortening {
+        @Test @DisplayName("should limit per user from the verified token and pass the claims on")
+        void perUser() throws Exception {
+            when(jwtUtils.getJwtFromHeader(any(HttpServletRequest.class))).thenReturn("token");
+            when(jwtUtils.parseClaims("token")).thenReturn(claims);
+            when(claims.getSubject()).thenReturn("alice");
+
+            MockHttpServletRequest first = shorten("1.1.1.1");
+            send(first);
+            assertSame(claims, first.getAttribute(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE));
+            send(shorten("2.2.2.2"));
+            // Same user from a third address: still over the user's burst
+            assertEquals(429, send(shorten("3.3.3.3")).getStatus());
+            verify(metrics).shortenRateLimited();
+        }
+
+        @Test @DisplayName("should fall back to the client IP when the token is invalid")
+        void invalidToken() throws Exception {
+            when(jwtUtils.getJwtFromHeader(any(HttpServletRequest.class))).thenReturn("token");
+            when(jwtUtils.parseClaims("token")).thenThrow(new ExpiredJwtException(null, null, "expired"));
+
+            send(shorten("1.1.1.1"));
+            send(shorten("1.1.1.1"));
+            assertEquals(429, send(shorten("1.1.1.1")).getStatus());
+            assertEquals(200, send(shorten("2.2.2.2")).getStatus());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.url.shortner.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RateLimiter Tests")
+class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test @DisplayName("should allow a full burst, then reject with the time until the next token")
+    void burstThenReject() {
+        RateLimiter limiter = new RateLimiter(10, 5, 100);
+        long now = 100 * SECOND;
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("1.2.3.4", now));
+        }
+        assertEquals(SECOND / 10, limiter.tryAcquire("1.2.3.4", now));
+        // Another client has its own bucket
+        assertEquals(0, limiter.tryAcquire("5.6.7.8", now));
+    }
+
+    @Test @DisplayName("should refill at the configured rate")
+    void refills() {
+        RateLimiter limiter = new RateLimiter(10, 5, 100);
+        long now = 100 * SECOND;
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire("client", now);
+        }
+        assertTrue(limiter.tryAcquire("client", now + SECOND / 20) > 0);
+        assertEquals(0, limiter.tryAcquire("client", now + SECOND / 10));
+        assertTrue(limiter.tryAcquire("client", now + SECOND / 10) > 0);
+        // Idle long enough to refill completely: a whole burst again
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("client", now + 10 * SECOND));
+        }
+    }
+
+    @Test @DisplayName("should charge several permits at once and cap a charge at the burst")
+    void permits() {
+        RateLimiter limiter = new RateLimiter(10, 5, 100);
+        long now = 100 * SECOND;
+        assertEquals(0, limiter.tryAcquire("client", 3, now));
+        // 2 tokens left: 3 more are one refill interval away
+        assertEquals(SECOND / 10, limiter.tryAcquire("client", 3, now));
+        assertEquals(0, limiter.tryAcquire("client", 2, now));
+        // More than the burst passes once the bucket is full again, and empties it
+        assertEquals(0, limiter.tryAcquire("other", 50, now));
+        assertTrue(limiter.tryAcquire("other", now) > 0);
+    }
+
+    @Test @DisplayName("should hand out exactly the burst to concurrent callers")
+    void concurrent() throws InterruptedException {
+        // A rate this low refills nothing while the test runs
+        RateLimiter limiter = new RateLimiter(0.001, 100, 100);
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 50; i++) {
+                    if (limiter.tryAcquire("client") == 0) {
+                        allowed.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(100, allowed.get());
+    }
+}
@@ -0,0 +1,88 @@
+package com.url.shortner.security.jwt;
+
+import com.url.shortner.services.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("JwtUtils Tests")
+class JwtUtilsTest {
+
+    private JwtUtils jwtUtils;
+
+    private JwtUtils jwtUtils(String secret, int expiration) {
+        JwtUtils utils = new JwtUtils();
+        ReflectionTestUtils.setField(utils, "jwtSecret", secret);
+        ReflectionTestUtils.setField(utils, "jwtExpiration", expiration);
+        utils.init();
+        return utils;
+    }
+
+    private static String secret(char fill) {
+        return Base64.getEncoder().encodeToString(String.valueOf(fill).repeat(48).getBytes());
+    }
+
+    private String tokenFor(JwtUtils utils, String... roles) {
+        List<GrantedAuthority> authorities = Arrays.stream(roles)
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role)).toList();
+        return utils.generateToken(new UserDetailsImpl(1L, "test@example.com", "testuser", "hashed", authorities));
+    }
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = jwtUtils(secret('a'), 3_600_000);
+    }
+
+    @Nested @DisplayName("parseClaims()")
+    class ParseClaims {
+        @Test @DisplayName("should return the subject and roles of a valid token")
+        void validToken() {
+            Claims claims = jwtUtils.parseClaims(tokenFor(jwtUtils, "ROLE_USER"));
+            assertEquals("testuser", claims.getSubject());
+            assertEquals("ROLE_USER", claims.get("roles", String.class));
+        }
+
+        @Test @DisplayName("should reject a token signed with another key")
+        void wrongKey() {
+            String token = tokenFor(jwtUtils(secret('b'), 3_600_000), "ROLE_USER");
+            assertThrows(JwtException.class, () -> jwtUtils.parseClaims(token));
+        }
+
+        @Test @DisplayName("should reject an expired token")
+        void expired() {
+            String token = tokenFor(jwtUtils(secret('a'), -1_000), "ROLE_USER");
+            assertThrows(JwtException.class, () -> jwtUtils.parseClaims(token));
+        }
+    }
+
+    @Nested @DisplayName("getUserDetailsFromClaims()")
+    class GetUserDetailsFromClaims {
+        @Test @DisplayName("should build the principal from the token alone")
+        void buildsPrincipal() {
+            UserDetailsImpl user = jwtUtils.getUserDetailsFromClaims(
+                    jwtUtils.parseClaims(tokenFor(jwtUtils, "ROLE_USER", "ROLE_ADMIN")));
+            assertEquals("testuser", user.getUsername());
+            assertNull(user.getPassword());
+            assertEquals(List.of("ROLE_USER", "ROLE_ADMIN"),
+                    user.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+        }
+
+        @Test @DisplayName("should give no authorities when the token has no roles")
+        void noRoles() {
+            UserDetailsImpl user = jwtUtils.getUserDetailsFromClaims(jwtUtils.parseClaims(tokenFor(jwtUtils)));
+            assertTrue(user.getAuthorities().isEmpty());
+        }
+    }
+}
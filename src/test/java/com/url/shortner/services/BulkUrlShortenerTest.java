@@ -0,0 +1,112 @@
+package com.url.shortner.services;
+
+import com.url.shortner.cache.SharedUrlCache;
+import com.url.shortner.cache.ShortCodeFilter;
+import com.url.shortner.codegen.RandomShortCodeGenerator;
+import com.url.shortner.dtos.BulkShortenResultDTO;
+import com.url.shortner.models.UrlMapping;
+import com.url.shortner.models.User;
+import com.url.shortner.repository.UrlMappingJdbcRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BulkUrlShortener Tests")
+class BulkUrlShortenerTest {
+
+    @Mock
+    private UrlMappingJdbcRepository urlMappingJdbcRepository;
+    @Mock
+    private ShortCodeFilter shortCodeFilter;
+    @Mock
+    private SharedUrlCache sharedUrlCache;
+
+    private BulkUrlShortener bulkUrlShortener;
+    private User testUser;
+    private List<Integer> batchSizes;
+
+    @BeforeEach
+    void setUp() {
+        bulkUrlShortener = new BulkUrlShortener(urlMappingJdbcRepository, new RandomShortCodeGenerator(), shortCodeFilter, sharedUrlCache, 5, 2);
+        testUser = new User();
+        testUser.setId(1L);
+        testUser.setUsername("testuser");
+    }
+
+    // Stands in for the database: records each batch and assigns increasing ids
+    private void assignIds() {
+        batchSizes = new ArrayList<>();
+        AtomicLong ids = new AtomicLong(100);
+        lenient().doAnswer(i -> {
+            List<UrlMapping> batch = i.getArgument(0);
+            batchSizes.add(batch.size());
+            batch.forEach(m -> m.setId(ids.incrementAndGet()));
+            return null;
+        }).when(urlMappingJdbcRepository).insertBatch(any());
+    }
+
+    @Nested @DisplayName("shorten()")
+    class Shorten {
+        @Test @DisplayName("should create every URL in JDBC batches and keep input order")
+        void batchesInOrder() {
+            assignIds();
+            List<BulkShortenResultDTO> results = bulkUrlShortener.shorten(
+                    List.of("https://a.com", "b.com/x", "https://c.com"), testUser);
+            assertEquals(List.of(2, 1), batchSizes);
+            assertEquals(List.of("https://a.com", "http://b.com/x", "https://c.com"),
+                    results.stream().map(BulkShortenResultDTO::getOriginalUrl).toList());
+            assertEquals(List.of(101L, 102L, 103L), results.stream().map(BulkShortenResultDTO::getId).toList());
+            results.forEach(r -> {
+                assertEquals(8, r.getShortUrl().length());
+                assertNull(r.getError());
+            });
+        }
+
+        @Test @DisplayName("should report invalid URLs in place without failing the others")
+        void invalidUrls() {
+            assignIds();
+            List<BulkShortenResultDTO> results = bulkUrlShortener.shorten(
+                    List.of("https://a.com", "ftp://files.example.com", "https://c.com"), testUser);
+            assertEquals(List.of(2), batchSizes);
+            BulkShortenResultDTO rejected = results.get(1);
+            assertEquals("ftp://files.example.com", rejected.getOriginalUrl());
+            assertNotNull(rejected.getError());
+            assertNull(rejected.getShortUrl());
+            assertNull(rejected.getId());
+            assertEquals(102L, results.get(2).getId());
+            // Only the created codes go into the redirect's Bloom filter
+            verify(shortCodeFilter).put(results.get(0).getShortUrl());
+            verify(shortCodeFilter).put(results.get(2).getShortUrl());
+            verifyNoMoreInteractions(shortCodeFilter);
+            // ...and are announced to the other instances
+            verify(sharedUrlCache).publishCreated(List.of(results.get(0).getShortUrl(), results.get(2).getShortUrl()));
+        }
+
+        @Test @DisplayName("should reject requests over the configured limit")
+        void tooLarge() {
+            assertThrows(BulkRequestTooLargeException.class, () -> bulkUrlShortener.shorten(
+                    List.of("a.com", "b.com", "c.com", "d.com", "e.com", "f.com"), testUser));
+            verifyNoInteractions(urlMappingJdbcRepository);
+        }
+
+        @Test @DisplayName("should return an empty list for an empty request")
+        void empty() {
+            assertTrue(bulkUrlShortener.shorten(List.of(), testUser).isEmpty());
+            assertTrue(bulkUrlShortener.shorten(null, testUser).isEmpty());
+            verifyNoInteractions(urlMappingJdbcRepository);
+        }
+    }
+}
@@ -1,8 +1,24 @@
 package com.url.shortner.services;
 
+import com.url.shortner.analytics.ClickRollups;
+import com.url.shortner.analytics.HotLinks;
+import com.url.shortner.analytics.HyperLogLog;
+import com.url.shortner.analytics.UniqueVisitors;
+import com.url.shortner.cache.ResolvedUrl;
+import com.url.shortner.cache.SharedUrlCache;
+import com.url.shortner.cache.ShortCodeFilter;
+import com.url.shortner.cache.UrlResolutionCache;
+import com.url.shortner.clicks.ClickCounters;
+import com.url.shortner.clicks.ClickRecorder;
+import com.url.shortner.clicks.VisitorKey;
+import com.url.shortner.codegen.RandomShortCodeGenerator;
+import com.url.shortner.codegen.ShortCodeGenerator;
+import com.url.shortner.datasource.ReplicaRouting;
 import com.url.shortner.dtos.ClickEventDTO;
+import com.url.shortner.dtos.UniqueVisitorsDTO;
 import com.url.shortner.dtos.UrlMappingDTO;
-import com.url.shortner.models.ClickEvent;
+import com.url.shortner.dtos.UrlMappingPageDTO;
+import com.url.shortner.metrics.ShortnerMetrics;
 import com.url.shortner.models.UrlMapping;
 import com.url.shortner.models.User;
 import com.url.shortner.repository.ClickEventRepository;
@@ -13,29 +29,59 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayName("UrlMappingService Tests")
 class UrlMappingServiceTest {
 
+    private static final VisitorKey VISITOR_KEY = new VisitorKey(true, "test-secret");
+
     @Mock
     private UrlMappingRepository urlMappingRepository;
     @Mock
     private ClickEventRepository clickEventRepository;
+    @Mock
+    private ClickRecorder clickRecorder;
+    @Mock
+    private ClickCounters clickCounters;
+    @Mock
+    private ClickRollups clickRollups;
+    @Mock
+    private UniqueVisitors uniqueVisitors;
+    @Mock
+    private HotLinks hotLinks;
+    @Mock
+    private ShortCodeFilter shortCodeFilter;
+    @Mock
+    private ShortnerMetrics metrics;
+    @Mock
+    private SharedUrlCache sharedUrlCache;
+    @Mock
+    private ReplicaRouting replicaRouting;
+    @Spy
+    private UrlResolutionCache urlResolutionCache = new UrlResolutionCache(100, Duration.ofMinutes(10), Duration.ofSeconds(30));
+    @Spy
+    private ShortCodeGenerator shortCodeGenerator = new RandomShortCodeGenerator();
     @InjectMocks
     private UrlMappingService urlMappingService;
 
@@ -66,12 +112,6 @@ class UrlMappingServiceTest {
         return m;
     }
 
-    private ClickEvent makeClick(Long id, LocalDateTime date, UrlMapping mapping) {
-        ClickEvent c = new ClickEvent();
-        c.setId(id); c.setClickDate(date); c.setUrlMapping(mapping);
-        return c;
-    }
-
     // --- convertToShortUrl ---
     @Nested @DisplayName("convertToShortUrl()")
     class ConvertToShortUrl {
@@ -104,6 +144,45 @@ class UrlMappingServiceTest {
             verify(urlMappingRepository).save(cap.capture());
             assertEquals(testUser, cap.getValue().getUser());
         }
+
+        @Test @DisplayName("should store the canonical absolute URL")
+        void normalizesUrl() {
+            when(urlMappingRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+            UrlMappingDTO dto = urlMappingService.convertToShortUrl("  www.example.com/path ", testUser);
+            assertEquals("http://www.example.com/path", dto.getOriginalUrl());
+        }
+
+        @Test @DisplayName("should reject an invalid URL without saving")
+        void rejectsInvalidUrl() {
+            assertThrows(InvalidUrlException.class, () -> urlMappingService.convertToShortUrl("http://exa mple.com", testUser));
+            verify(urlMappingRepository, never()).save(any());
+        }
+
+        @Test @DisplayName("should warm the resolution cache with the new mapping")
+        void warmsCache() {
+            when(urlMappingRepository.save(any())).thenAnswer(i -> { ((UrlMapping)i.getArgument(0)).setId(9L); return i.getArgument(0); });
+            UrlMappingDTO dto = urlMappingService.convertToShortUrl("https://example.com", testUser);
+            ResolvedUrl res = urlMappingService.getOriginalUrl(dto.getShortUrl(), 7L);
+            assertEquals(9L, res.id());
+            assertEquals("https://example.com", res.originalUrl());
+            verify(urlMappingRepository, never()).findByShortUrl(any());
+        }
+
+        @Test @DisplayName("should store the new mapping in the shared cache and announce the code")
+        void announcesCode() {
+            when(urlMappingRepository.save(any(UrlMapping.class))).thenAnswer(i -> i.getArgument(0));
+            UrlMappingDTO dto = urlMappingService.convertToShortUrl("https://www.example.com", testUser);
+            verify(sharedUrlCache).put(argThat(r -> r.shortUrl().equals(dto.getShortUrl())));
+            verify(sharedUrlCache).publishCreated(List.of(dto.getShortUrl()));
+        }
+
+        @Test @DisplayName("should add the new code to the redirect's Bloom filter before saving")
+        void addsToFilter() {
+            UrlMappingDTO dto = urlMappingService.convertToShortUrl("https://example.com", testUser);
+            InOrder inOrder = inOrder(shortCodeFilter, urlMappingRepository);
+            inOrder.verify(shortCodeFilter).put(dto.getShortUrl());
+            inOrder.verify(urlMappingRepository).save(any());
+        }
     }
 
     // --- getAllUrlByUser ---
@@ -127,18 +206,72 @@ class UrlMappingServiceTest {
         }
     }
 
+    // --- getUrlPageByUser ---
+    @Nested @DisplayName("getUrlPageByUser()")
+    class GetUrlPageByUser {
+        private UrlMappingDTO row(long id, int clicks, LocalDateTime created) {
+            return new UrlMappingDTO(id, "https://example.com/" + id, "s" + id, clicks, created, "testuser");
+        }
+
+        @Test @DisplayName("should return a full page with a cursor when more rows follow")
+        void firstPage() {
+            LocalDateTime t = LocalDateTime.of(2026,4,27,10,0);
+            when(urlMappingRepository.findPageByCreatedDate(testUser, PageRequest.of(0, 3)))
+                .thenReturn(List.of(row(9, 0, t), row(8, 0, t.minusHours(1)), row(7, 0, t.minusHours(2))));
+            UrlMappingPageDTO page = urlMappingService.getUrlPageByUser(testUser, "created", 2, null);
+            assertEquals(List.of(9L, 8L), page.getItems().stream().map(UrlMappingDTO::getId).toList());
+            assertNotNull(page.getNextCursor());
+
+            // The cursor seeks past the last returned row
+            urlMappingService.getUrlPageByUser(testUser, "created", 2, page.getNextCursor());
+            verify(urlMappingRepository).findPageByCreatedDateAfter(testUser, t.minusHours(1), 8L, PageRequest.of(0, 3));
+        }
+
+        @Test @DisplayName("should return no cursor on the last page")
+        void lastPage() {
+            when(urlMappingRepository.findPageByClickCount(testUser, PageRequest.of(0, 51)))
+                .thenReturn(List.of(row(1, 5, LocalDateTime.now())));
+            UrlMappingPageDTO page = urlMappingService.getUrlPageByUser(testUser, "clicks", 50, null);
+            assertEquals(1, page.getItems().size());
+            assertNull(page.getNextCursor());
+        }
+
+        @Test @DisplayName("should page by click count using the cursor's count and id")
+        void clicksCursor() {
+            when(urlMappingRepository.findPageByClickCount(testUser, PageRequest.of(0, 2)))
+                .thenReturn(List.of(row(4, 10, LocalDateTime.now()), row(3, 7, LocalDateTime.now())));
+            String cursor = urlMappingService.getUrlPageByUser(testUser, "clicks", 1, null).getNextCursor();
+            urlMappingService.getUrlPageByUser(testUser, "clicks", 1, cursor);
+            verify(urlMappingRepository).findPageByClickCountAfter(testUser, 10, 4L, PageRequest.of(0, 2));
+        }
+
+        @Test @DisplayName("should clamp the page size")
+        void clampsLimit() {
+            urlMappingService.getUrlPageByUser(testUser, "created", 100_000, null);
+            verify(urlMappingRepository).findPageByCreatedDate(testUser, PageRequest.of(0, UrlMappingService.MAX_PAGE_SIZE + 1));
+        }
+
+        @Test @DisplayName("should reject an unknown sort, a malformed cursor and a cursor of another sort")
+        void rejectsBadRequests() {
+            assertThrows(InvalidPageRequestException.class, () -> urlMappingService.getUrlPageByUser(testUser, "name", 10, null));
+            assertThrows(InvalidPageRequestException.class, () -> urlMappingService.getUrlPageByUser(testUser, "created", 10, "not a cursor!"));
+            String clicksCursor = new PageCursor("clicks", "3", 1L).encode();
+            assertThrows(InvalidPageRequestException.class, () -> urlMappingService.getUrlPageByUser(testUser, "created", 10, clicksCursor));
+            verifyNoInteractions(urlMappingRepository);
+        }
+    }
+
     // --- getClickEventsByDate ---
     @Nested @DisplayName("getClickEventsByDate()")
     class GetClickEventsByDate {
-        @Test @DisplayName("should group clicks by date")
+        @Test @DisplayName("should return the per-day counts from the database")
         void groupsByDate() {
             LocalDateTime s = LocalDateTime.of(2026,4,1,0,0), e = LocalDateTime.of(2026,4,30,23,59);
             when(urlMappingRepository.findByShortUrl("aBcD1234")).thenReturn(testUrlMapping);
-            when(clickEventRepository.findByUrlMappingAndClickDateBetween(testUrlMapping, s, e))
+            when(clickEventRepository.countClicksPerDay(testUrlMapping, s, e))
                 .thenReturn(List.of(
-                    makeClick(1L, LocalDateTime.of(2026,4,10,14,0), testUrlMapping),
-                    makeClick(2L, LocalDateTime.of(2026,4,10,16,0), testUrlMapping),
-                    makeClick(3L, LocalDateTime.of(2026,4,15,9,0), testUrlMapping)));
+                    new ClickEventDTO(LocalDate.of(2026,4,10), 2L),
+                    new ClickEventDTO(LocalDate.of(2026,4,15), 1L)));
             List<ClickEventDTO> res = urlMappingService.getClickEventsByDate("aBcD1234", s, e);
             assertEquals(2, res.size());
             Map<LocalDate,Long> map = res.stream().collect(Collectors.toMap(ClickEventDTO::getClickDate, ClickEventDTO::getCount));
@@ -150,16 +283,73 @@ class UrlMappingServiceTest {
         void returnsNull() {
             when(urlMappingRepository.findByShortUrl("bad")).thenReturn(null);
             assertNull(urlMappingService.getClickEventsByDate("bad", LocalDateTime.now(), LocalDateTime.now()));
-            verify(clickEventRepository, never()).findByUrlMappingAndClickDateBetween(any(), any(), any());
+            verify(clickEventRepository, never()).countClicksPerDay(any(), any(), any());
         }
 
         @Test @DisplayName("should return empty list when no clicks in range")
         void returnsEmpty() {
             LocalDateTime s = LocalDateTime.of(2026,4,1,0,0), e = LocalDateTime.of(2026,4,30,23,59);
             when(urlMappingRepository.findByShortUrl("aBcD1234")).thenReturn(testUrlMapping);
-            when(clickEventRepository.findByUrlMappingAndClickDateBetween(testUrlMapping, s, e)).thenReturn(Collections.emptyList());
+            when(clickEventRepository.countClicksPerDay(testUrlMapping, s, e)).thenReturn(Collections.emptyList());
             assertTrue(urlMappingService.getClickEventsByDate("aBcD1234", s, e).isEmpty());
         }
+
+        @Test @DisplayName("should serve from the daily rollup when enabled")
+        void servesFromRollup() {
+            LocalDateTime s = LocalDateTime.of(2026,4,1,0,0), e = LocalDateTime.of(2026,4,30,23,59);
+            when(clickRollups.isEnabled()).thenReturn(true);
+            when(urlMappingRepository.findByShortUrl("aBcD1234")).thenReturn(testUrlMapping);
+            when(clickRollups.getDailyClicks(1L, s, e)).thenReturn(Map.of(LocalDate.of(2026,4,10), 7L));
+            List<ClickEventDTO> res = urlMappingService.getClickEventsByDate("aBcD1234", s, e);
+            assertEquals(1, res.size());
+            assertEquals(LocalDate.of(2026,4,10), res.get(0).getClickDate());
+            assertEquals(7L, res.get(0).getCount());
+            verifyNoInteractions(clickEventRepository);
+        }
+
+        @Test @DisplayName("should add each day's unique visitors when visitor tracking is enabled")
+        void addsUniqueVisitors() {
+            LocalDateTime s = LocalDateTime.of(2026,4,1,0,0), e = LocalDateTime.of(2026,4,30,23,59);
+            when(clickRollups.isEnabled()).thenReturn(true);
+            when(uniqueVisitors.isEnabled()).thenReturn(true);
+            when(urlMappingRepository.findByShortUrl("aBcD1234")).thenReturn(testUrlMapping);
+            when(clickRollups.getDailyClicks(1L, s, e))
+                .thenReturn(Map.of(LocalDate.of(2026,4,10), 7L, LocalDate.of(2026,4,11), 1L));
+            when(uniqueVisitors.getDailyVisitors(1L, s, e)).thenReturn(Map.of(LocalDate.of(2026,4,10), sketchOf(1, 2, 3)));
+            Map<LocalDate, Long> visitors = urlMappingService.getClickEventsByDate("aBcD1234", s, e).stream()
+                .collect(Collectors.toMap(ClickEventDTO::getClickDate, ClickEventDTO::getUniqueVisitors));
+            assertEquals(Map.of(LocalDate.of(2026,4,10), 3L, LocalDate.of(2026,4,11), 0L), visitors);
+        }
+    }
+
+    // --- getUniqueVisitors ---
+    @Nested @DisplayName("getUniqueVisitors()")
+    class GetUniqueVisitors {
+        @Test @DisplayName("should count a visitor seen on several days once over the range")
+        void mergesDays() {
+            LocalDateTime s = LocalDateTime.of(2026,4,1,0,0), e = LocalDateTime.of(2026,4,30,23,59);
+            when(urlMappingRepository.findByShortUrl("aBcD1234")).thenReturn(testUrlMapping);
+            when(uniqueVisitors.getDailyVisitors(1L, s, e))
+                .thenReturn(Map.of(LocalDate.of(2026,4,10), sketchOf(1, 2), LocalDate.of(2026,4,11), sketchOf(2, 3)));
+            UniqueVisitorsDTO res = urlMappingService.getUniqueVisitors("aBcD1234", s, e);
+            assertEquals(3, res.getUniqueVisitors());
+            assertEquals(Map.of(LocalDate.of(2026,4,10), 2L, LocalDate.of(2026,4,11), 2L), res.getDaily());
+        }
+
+        @Test @DisplayName("should return null when short URL not found")
+        void returnsNull() {
+            when(urlMappingRepository.findByShortUrl("bad")).thenReturn(null);
+            assertNull(urlMappingService.getUniqueVisitors("bad", LocalDateTime.now(), LocalDateTime.now()));
+            verifyNoInteractions(uniqueVisitors);
+        }
+    }
+
+    private static HyperLogLog sketchOf(long... visitorHashes) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long hash : visitorHashes) {
+            sketch.add(VISITOR_KEY.hash(String.valueOf(hash), "test"));
+        }
+        return sketch;
     }
 
     // --- getTotalClicksByUserAndDate ---
@@ -168,69 +358,110 @@ class UrlMappingServiceTest {
         @Test @DisplayName("should aggregate clicks across all user URLs by date")
         void aggregatesClicks() {
             LocalDate s = LocalDate.of(2026,4,1), e = LocalDate.of(2026,4,30);
-            UrlMapping m1 = makeMapping(1L,"a","s1",testUser,0);
-            UrlMapping m2 = makeMapping(2L,"b","s2",testUser,0);
-            List<UrlMapping> maps = List.of(m1,m2);
-            when(urlMappingRepository.findByUser(testUser)).thenReturn(maps);
-            when(clickEventRepository.findByUrlMappingInAndClickDateBetween(maps, s.atStartOfDay(), e.plusDays(1).atStartOfDay()))
+            when(clickEventRepository.countClicksPerDayByUser(testUser, s.atStartOfDay(), e.plusDays(1).atStartOfDay()))
                 .thenReturn(List.of(
-                    makeClick(1L, LocalDateTime.of(2026,4,5,10,0), m1),
-                    makeClick(2L, LocalDateTime.of(2026,4,5,14,0), m2),
-                    makeClick(3L, LocalDateTime.of(2026,4,20,9,0), m1)));
+                    new ClickEventDTO(LocalDate.of(2026,4,5), 2L),
+                    new ClickEventDTO(LocalDate.of(2026,4,20), 1L)));
             Map<LocalDate,Long> res = urlMappingService.getTotalClicksByUserAndDate(testUser, s, e);
             assertEquals(2, res.size());
             assertEquals(2L, res.get(LocalDate.of(2026,4,5)));
             assertEquals(1L, res.get(LocalDate.of(2026,4,20)));
+            verify(urlMappingRepository, never()).findByUser(any());
         }
 
         @Test @DisplayName("should return empty map when no clicks")
         void emptyMap() {
             LocalDate s = LocalDate.of(2026,4,1), e = LocalDate.of(2026,4,30);
-            when(urlMappingRepository.findByUser(testUser)).thenReturn(Collections.emptyList());
-            when(clickEventRepository.findByUrlMappingInAndClickDateBetween(any(), any(), any())).thenReturn(Collections.emptyList());
+            when(clickEventRepository.countClicksPerDayByUser(any(), any(), any())).thenReturn(Collections.emptyList());
             assertTrue(urlMappingService.getTotalClicksByUserAndDate(testUser, s, e).isEmpty());
         }
+
+        @Test @DisplayName("should serve from the daily rollup without loading the user's URLs")
+        void servesFromRollup() {
+            LocalDate s = LocalDate.of(2026,4,1), e = LocalDate.of(2026,4,30);
+            when(clickRollups.isEnabled()).thenReturn(true);
+            when(clickRollups.getDailyClicksByUser(1L, s, e)).thenReturn(Map.of(LocalDate.of(2026,4,5), 3L));
+            assertEquals(Map.of(LocalDate.of(2026,4,5), 3L), urlMappingService.getTotalClicksByUserAndDate(testUser, s, e));
+            verify(urlMappingRepository, never()).findByUser(any());
+            verifyNoInteractions(clickEventRepository);
+        }
     }
 
     // --- getOriginalUrl ---
     @Nested @DisplayName("getOriginalUrl()")
     class GetOriginalUrl {
-        @Test @DisplayName("should return mapping and increment click count")
-        void incrementsCount() {
-            testUrlMapping.setClickCount(5);
+        @Test @DisplayName("should return resolved url, count the click and hand it to the recorder")
+        void recordsClick() {
             when(urlMappingRepository.findByShortUrl("aBcD1234")).thenReturn(testUrlMapping);
-            when(urlMappingRepository.save(any())).thenReturn(testUrlMapping);
-            UrlMapping res = urlMappingService.getOriginalUrl("aBcD1234");
+            ResolvedUrl res = urlMappingService.getOriginalUrl("aBcD1234", 7L);
             assertNotNull(res);
-            assertEquals(6, res.getClickCount());
-            verify(urlMappingRepository).save(testUrlMapping);
+            assertEquals("https://www.example.com/long", res.originalUrl());
+            assertEquals(1L, res.userId());
+            verify(clickCounters).increment(1L);
+            verify(clickRecorder).record(eq(1L), any(LocalDateTime.class), eq(7L));
+            verify(hotLinks).record(res);
+            verify(urlMappingRepository, never()).save(any());
+            verify(clickEventRepository, never()).save(any());
+        }
+
+        @Test @DisplayName("should return null and not record when short URL not found")
+        void returnsNullIfNotFound() {
+            when(urlMappingRepository.findByShortUrl("bad")).thenReturn(null);
+            assertNull(urlMappingService.getOriginalUrl("bad", 7L));
+            verifyNoInteractions(clickRecorder, clickCounters, hotLinks);
+            verify(shortCodeFilter).recordFalsePositive();
         }
 
-        @Test @DisplayName("should record a click event")
-        void recordsClickEvent() {
+        @Test @DisplayName("should serve repeated lookups from the cache")
+        void cachesHits() {
             when(urlMappingRepository.findByShortUrl("aBcD1234")).thenReturn(testUrlMapping);
-            when(urlMappingRepository.save(any())).thenReturn(testUrlMapping);
-            ArgumentCaptor<ClickEvent> cap = ArgumentCaptor.forClass(ClickEvent.class);
-            urlMappingService.getOriginalUrl("aBcD1234");
-            verify(clickEventRepository).save(cap.capture());
-            assertNotNull(cap.getValue().getClickDate());
-            assertEquals(testUrlMapping, cap.getValue().getUrlMapping());
+            urlMappingService.getOriginalUrl("aBcD1234", 7L);
+            urlMappingService.getOriginalUrl("aBcD1234", 7L);
+            verify(urlMappingRepository, times(1)).findByShortUrl("aBcD1234");
+            verify(clickRecorder, times(2)).record(eq(1L), any(), eq(7L));
+            assertEquals(1, urlResolutionCache.stats().hitCount());
         }
 
-        @Test @DisplayName("should return null and not save when short URL not found")
-        void returnsNullIfNotFound() {
+        @Test @DisplayName("should resolve links stored before normalization to an absolute URL")
+        void normalizesLegacyLinks() {
+            testUrlMapping.setOriginalUrl("www.example.com/legacy");
+            when(urlMappingRepository.findByShortUrl("aBcD1234")).thenReturn(testUrlMapping);
+            assertEquals("http://www.example.com/legacy", urlMappingService.getOriginalUrl("aBcD1234", 7L).originalUrl());
+        }
+
+        @Test @DisplayName("should negatively cache unknown codes")
+        void cachesMisses() {
             when(urlMappingRepository.findByShortUrl("bad")).thenReturn(null);
-            assertNull(urlMappingService.getOriginalUrl("bad"));
-            verify(urlMappingRepository, never()).save(any());
-            verify(clickEventRepository, never()).save(any());
+            assertNull(urlMappingService.getOriginalUrl("bad", 7L));
+            assertNull(urlMappingService.getOriginalUrl("bad", 7L));
+            verify(urlMappingRepository, times(1)).findByShortUrl("bad");
+        }
+
+        @Test @DisplayName("should ask the primary before treating a code unknown to the replica as missing")
+        void fallsBackToPrimary() {
+            when(replicaRouting.isReplicaConfigured()).thenReturn(true);
+            when(replicaRouting.onPrimary(any())).thenAnswer(i -> {
+                when(urlMappingRepository.findByShortUrl("aBcD1234")).thenReturn(testUrlMapping);
+                return i.<Supplier<UrlMapping>>getArgument(0).get();
+            });
+            assertNotNull(urlMappingService.getOriginalUrl("aBcD1234", 7L));
+            verify(urlMappingRepository, times(2)).findByShortUrl("aBcD1234");
+        }
+
+        @Test @DisplayName("should serve a code another instance loaded from the shared cache, without the DB")
+        void servesFromSharedCache() {
+            ResolvedUrl shared = new ResolvedUrl(1L, "aBcD1234", "https://www.example.com/long", 1L);
+            when(sharedUrlCache.get("aBcD1234")).thenReturn(shared);
+            assertEquals(shared, urlMappingService.getOriginalUrl("aBcD1234", 7L));
+            verify(urlMappingRepository, never()).findByShortUrl(any());
+            verify(clickRecorder).record(eq(1L), any(), eq(7L));
         }
 
-        @Test @DisplayName("should increment from zero")
-        void incrementsFromZero() {
-            testUrlMapping.setClickCount(0);
+        @Test @DisplayName("should store what it loads from the DB in the shared cache")
+        void fillsSharedCache() {
             when(urlMappingRepository.findByShortUrl("aBcD1234")).thenReturn(testUrlMapping);
-            when(urlMappingRepository.save(any())).thenReturn(testUrlMapping);
-            assertEquals(1, urlMappingService.getOriginalUrl("aBcD1234").getClickCount());
+            ResolvedUrl res = urlMappingService.getOriginalUrl("aBcD1234", 7L);
+            verify(sharedUrlCache).put(res);
         }
     }
 }
@@ -0,0 +1,53 @@
+package com.url.shortner.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("UrlNormalizer Tests")
+class UrlNormalizerTest {
+
+    @ParameterizedTest(name = "{0} -> {1}")
+    @CsvSource({
+            "https://example.com,                  https://example.com",
+            "http://example.com/a?b=c#d,           http://example.com/a?b=c#d",
+            "www.google.com,                       http://www.google.com",
+            "'  https://example.com/x  ',          https://example.com/x",
+            "HTTPS://Example.com/Path,             https://Example.com/Path",
+            "https://example.com/a%20b,            https://example.com/a%20b",
+            "https://example.com/café,             https://example.com/caf%C3%A9",
+            "https://bücher.de/straße?q=ü,         https://xn--bcher-kva.de/stra%C3%9Fe?q=%C3%BC",
+            "bücher.de,                            http://xn--bcher-kva.de",
+            "https://my_host.example.com/a,        https://my_host.example.com/a",
+            "http://user@my_host.example.com:8080/, http://user@my_host.example.com:8080/"
+    })
+    @DisplayName("should produce the canonical absolute URL")
+    void normalizes(String input, String expected) {
+        assertEquals(expected, UrlNormalizer.normalize(input));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "   ", "ftp://example.com/file", "javascript://alert(1)", "http://exa mple.com", "http://",
+            "http://bad!host.com", "http://my_host.example.com:80x/"})
+    @DisplayName("should reject URLs that can't be redirected to")
+    void rejectsInvalid(String input) {
+        assertThrows(InvalidUrlException.class, () -> UrlNormalizer.normalize(input));
+    }
+
+    @Test
+    @DisplayName("should reject null")
+    void rejectsNull() {
+        assertThrows(InvalidUrlException.class, () -> UrlNormalizer.normalize(null));
+    }
+
+    @Test
+    @DisplayName("should be idempotent")
+    void idempotent() {
+        String once = UrlNormalizer.normalize("Example.com/ü?q=1");
+        assertEquals(once, UrlNormalizer.normalize(once));
+    }
+}
@@ -1,5 +1,6 @@
 package com.url.shortner.services;
 
+import com.url.shortner.cache.UserCache;
 import com.url.shortner.models.User;
 import com.url.shortner.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,6 +13,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
+import java.time.Duration;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -31,6 +33,9 @@ class UserDetailsServiceImplTest {
 
     @BeforeEach
     void setUp() {
+        // A real cache in front of the mocked repository
+        userDetailsService.userCache = new UserCache(userRepository, 100, Duration.ofMinutes(5));
+
         testUser = new User();
         testUser.setId(1L);
         testUser.setEmail("test@example.com");
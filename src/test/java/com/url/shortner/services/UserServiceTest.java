@@ -1,6 +1,8 @@
 package com.url.shortner.services;
 
+import com.url.shortner.cache.UserCache;
 import com.url.shortner.dtos.LoginRequest;
+import com.url.shortner.metrics.ShortnerMetrics;
 import com.url.shortner.models.User;
 import com.url.shortner.repository.UserRepository;
 import com.url.shortner.security.jwt.JwtAuthenticationResponse;
@@ -11,7 +13,6 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -22,6 +23,7 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.Optional;
 
@@ -37,14 +39,18 @@ class UserServiceTest {
     @Mock private PasswordEncoder passwordEncoder;
     @Mock private AuthenticationManager authenticationManager;
     @Mock private JwtUtils jwtUtils;
+    @Mock private ShortnerMetrics metrics;
 
-    @InjectMocks
     private UserService userService;
 
     private User testUser;
 
     @BeforeEach
     void setUp() {
+        // A real cache in front of the mocked repository
+        userService = new UserService(userRepository, passwordEncoder, authenticationManager, jwtUtils,
+                new UserCache(userRepository, 100, Duration.ofMinutes(5)), metrics);
+
         testUser = new User();
         testUser.setId(1L);
         testUser.setEmail("test@example.com");
@@ -186,5 +192,65 @@ class UserServiceTest {
             userService.getByUsername("testuser");
             verify(userRepository, times(1)).findByUsername("testuser");
         }
+
+        @Test @DisplayName("should serve repeated lookups from the cache")
+        void cachesUser() {
+            when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+            userService.getByUsername("testuser");
+            userService.getByUsername("testuser");
+            verify(userRepository, times(1)).findByUsername("testuser");
+        }
+
+        @Test @DisplayName("should not cache unknown usernames")
+        void doesNotCacheMissing() {
+            when(userRepository.findByUsername("newuser")).thenReturn(Optional.empty());
+            assertThrows(UsernameNotFoundException.class, () -> userService.getByUsername("newuser"));
+            User registered = new User();
+            registered.setUsername("newuser");
+            when(userRepository.findByUsername("newuser")).thenReturn(Optional.of(registered));
+            assertSame(registered, userService.getByUsername("newuser"));
+        }
+
+        @Test @DisplayName("should reload the user after registration")
+        void evictsOnRegister() {
+            when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+            when(passwordEncoder.encode(any())).thenReturn("enc");
+            userService.getByUsername("testuser");
+            userService.registerUser(testUser);
+            userService.getByUsername("testuser");
+            verify(userRepository, times(2)).findByUsername("testuser");
+        }
+    }
+
+    // --- changeRole ---
+    @Nested @DisplayName("changeRole()")
+    class ChangeRole {
+
+        @Test @DisplayName("should save the new role and evict the cached user")
+        void savesAndEvicts() {
+            when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+            userService.getByUsername("testuser");
+            userService.changeRole("testuser", "ROLE_ADMIN");
+            assertEquals("ROLE_ADMIN", testUser.getRole());
+            verify(userRepository).save(testUser);
+            userService.getByUsername("testuser");
+            // cache fill, changeRole's own read, reload after eviction
+            verify(userRepository, times(3)).findByUsername("testuser");
+        }
+
+        @Test @DisplayName("should throw UsernameNotFoundException when user not found")
+        void throwsWhenNotFound() {
+            when(userRepository.findByUsername("unknown")).thenReturn(Optional.empty());
+            assertThrows(UsernameNotFoundException.class, () -> userService.changeRole("unknown", "ROLE_ADMIN"));
+            verify(userRepository, never()).save(any());
+        }
+
+        @Test @DisplayName("should reject a role other than ROLE_USER or ROLE_ADMIN without saving")
+        void rejectsUnknownRole() {
+            assertThrows(InvalidRoleException.class, () -> userService.changeRole("testuser", "ROLE_ROOT"));
+            assertThrows(InvalidRoleException.class, () -> userService.changeRole("testuser", "admin"));
+            assertThrows(InvalidRoleException.class, () -> userService.changeRole("testuser", null));
+            verify(userRepository, never()).save(any());
+        }
     }
 }